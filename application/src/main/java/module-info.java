@@ -3,8 +3,11 @@ module university.dijkstra {
     requires javafx.fxml;
     requires javafx.graphics;
     requires javafx.base;
+    requires java.management;
+    requires jdk.jfr;
 
     opens university.dijkstra to javafx.fxml;
 
     exports university.dijkstra;
+    exports university.dijkstra.monitoring;
 }
@@ -1,12 +1,15 @@
 package university.dijkstra;
 
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Slider;
 import javafx.scene.control.TextArea;
@@ -20,13 +23,18 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
-import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+import university.dijkstra.monitoring.MonitoredLoader;
+import university.dijkstra.model.SpatialIndex;
 import university.dijkstra.model.Vertex;
 import university.dijkstra.model.Edge;
 import university.dijkstra.data_structures.List;
@@ -38,8 +46,14 @@ public class DijkstraVisualization extends Application {
   private static final double MIN_ZOOM = 0.1;
   private static final double MAX_ZOOM = 10.0;
   private static final double VERTEX_LABEL_ZOOM = 6.0;
-
-  private Vertex[] graph;
+  // Above this many vertices in view, drawLabels leaves out the vertex ids
+  private static final int MAX_LABELED_VERTICES = 2_000;
+
+  private Graph graph; // compact graph used for path searches
+  private Vertex[] vertices; // object view used for drawing
+  private SpatialIndex spatialIndex; // nearest vertex lookup for mouse clicks
+  private TileCache tileCache; // rasterized base map, drawn under the path
+  private boolean showEdges = false;
   private double minX, maxX, minY, maxY;
   private double currentZoom = 1.0;
   private Canvas canvas;
@@ -54,7 +68,18 @@ public class DijkstraVisualization extends Application {
   private Vertex selectedSource = null;
   private Vertex selectedDestination = null;
   private List<Integer> currentPath = null;
-  private Dijkstra dijkstra;
+  private boolean redrawPending = false;
+  private Dijkstra dijkstra; // only used on the path thread
+  private double currentDistance; // distance of currentPath
+  // Path searches run one at a time on this thread, so they can share the
+  // Dijkstra; pathTask is the one whose result will be shown
+  private final ExecutorService pathExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "path-search");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Task<PathResult> pathTask = null;
+  private ProgressIndicator pathProgress;
 
   @Override
   public void start(Stage primaryStage) {
@@ -64,7 +89,7 @@ public class DijkstraVisualization extends Application {
     FileChooser fileChooser = new FileChooser();
     fileChooser.setTitle("Select Graph Data File");
     fileChooser.getExtensionFilters().add(
-        new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        new FileChooser.ExtensionFilter("Graph Files", "*.txt", "*.bin"));
 
     File selectedFile = fileChooser.showOpenDialog(primaryStage);
     if (selectedFile == null) {
@@ -74,11 +99,14 @@ public class DijkstraVisualization extends Application {
 
     // Load the graph
     try {
-      graph = DataProccessor.parseFile(selectedFile.getAbsolutePath());
+      graph = MonitoredLoader.loadGraph(selectedFile.getAbsolutePath());
+      vertices = graph.toVertices();
+      spatialIndex = new SpatialIndex(graph);
       // Initialize Dijkstra
-      dijkstra = new Dijkstra(graph.length);
+      dijkstra = new Dijkstra(graph.getNumVertices());
 
       calculateBounds();
+      tileCache = new TileCache(new TileRenderer(graph, spatialIndex, minX, maxX, minY, maxY), this::requestRedraw);
 
       // Create UI
       BorderPane root = new BorderPane();
@@ -97,6 +125,11 @@ public class DijkstraVisualization extends Application {
       scrollPane.setPannable(true); // this allows to use the mouse to scroll through the canvas
       root.setCenter(scrollPane);
 
+      // Only the visible part of the canvas is drawn, so scrolling redraws
+      scrollPane.hvalueProperty().addListener((obs, oldVal, newVal) -> requestRedraw());
+      scrollPane.vvalueProperty().addListener((obs, oldVal, newVal) -> requestRedraw());
+      scrollPane.viewportBoundsProperty().addListener((obs, oldVal, newVal) -> requestRedraw());
+
       // Add mouse interaction
       setupMouseInteraction();
 
@@ -107,16 +140,10 @@ public class DijkstraVisualization extends Application {
       primaryStage.show();
 
       // Count edges
-      int edgeCount = 0;
-      for (Vertex v : graph) {
-        if (v != null) {
-          edgeCount += v.getEdges().size();
-        }
-      }
-      edgeCount /= 2; // Undirected graph
+      int edgeCount = graph.getNumArcs() / 2; // Undirected graph
 
       System.out.println("=== Map Statistics ===");
-      System.out.println("Vertices: " + graph.length);
+      System.out.println("Vertices: " + graph.getNumVertices());
       System.out.println("Edges: " + edgeCount);
       System.out.println("\n=== Controls ===");
       System.out.println("Zoom: Ctrl+Mouse Wheel or use slider");
@@ -133,13 +160,13 @@ public class DijkstraVisualization extends Application {
   }
 
   private void calculateBounds() {
-    if (graph.length == 0)
+    if (vertices.length == 0)
       return;
 
-    minX = maxX = graph[0].getX();
-    minY = maxY = graph[0].getY();
+    minX = maxX = vertices[0].getX();
+    minY = maxY = vertices[0].getY();
 
-    for (Vertex v : graph) {
+    for (Vertex v : vertices) {
       if (v != null) {
         minX = Math.min(minX, v.getX());
         maxX = Math.max(maxX, v.getX());
@@ -186,10 +213,16 @@ public class DijkstraVisualization extends Application {
     calculateButton.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
     calculateButton.setOnAction(e -> handleSearchFieldSelection());
 
+    CheckBox edgesBox = new CheckBox("Show edges");
+    edgesBox.selectedProperty().addListener((obs, oldVal, newVal) -> {
+      showEdges = newVal;
+      drawGraph();
+    });
+
     controls.getChildren().addAll(
         zoomLabel, zoomSlider, zoomValue,
         sourceBox, destBox,
-        calculateButton);
+        calculateButton, edgesBox);
     return controls;
   }
 
@@ -212,6 +245,10 @@ public class DijkstraVisualization extends Application {
     Label pathLabel = new Label("Path: Not calculated");
 
     Label distanceLabel = new Label("Distance: N/A");
+    pathProgress = new ProgressIndicator();
+    pathProgress.setPrefWidth(24);
+    pathProgress.setPrefHeight(24);
+    pathProgress.setVisible(false);
     showDetailsButton = new Button("Show Path Details");
     showDetailsButton.setVisible(false);
     showDetailsButton.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
@@ -221,7 +258,7 @@ public class DijkstraVisualization extends Application {
     // Store labels for updates
     info.setUserData(new Label[] { sourceLabel, destLabel, pathLabel, distanceLabel });
 
-    info.getChildren().addAll(sourceLabel, destLabel, pathLabel, distanceLabel, showDetailsButton);
+    info.getChildren().addAll(sourceLabel, destLabel, pathLabel, pathProgress, distanceLabel, showDetailsButton);
     return info;
   }
 
@@ -253,6 +290,7 @@ public class DijkstraVisualization extends Application {
         if (selectedSource == null) {
           selectedSource = nearest;
           selectedDestination = null;
+          cancelPathTask();
           currentPath = null;
         } else if (selectedDestination == null) {
           selectedDestination = nearest;
@@ -261,6 +299,7 @@ public class DijkstraVisualization extends Application {
           // Reset and start new selection
           selectedSource = nearest;
           selectedDestination = null;
+          cancelPathTask();
           currentPath = null;
         }
 
@@ -271,38 +310,87 @@ public class DijkstraVisualization extends Application {
   }
 
   private Vertex findNearestVertex(double x, double y) {
-    Vertex nearest = null;
-    double minDistance = Double.MAX_VALUE;
-
     // Adjust search radius based on zoom
     // If the user clicked within 50 pixels of a vertex, select it
     double searchRadius = 50 / currentZoom;
 
-    for (Vertex v : graph) {
-      if (v != null &&
-          Math.abs(v.getX() - x) < searchRadius &&
-          Math.abs(v.getY() - y) < searchRadius) {
+    int nearest = spatialIndex.nearest(x, y, searchRadius);
+    return nearest == -1 ? null : vertices[nearest];
+  }
 
-        // check if it's the nearest vertex or not
-        double dist = Math.sqrt(Math.pow(v.getX() - x, 2) + Math.pow(v.getY() - y, 2));
-        if (dist < minDistance) {
-          minDistance = dist;
-          nearest = v;
+  /**
+   * Starts the search for the selected pair on the path thread and shows
+   * the progress indicator. A search still running for an older selection
+   * is cancelled. The result is applied on the JavaFX thread when it is
+   * ready.
+   */
+  private void calculatePath() {
+    if (selectedSource == null || selectedDestination == null)
+      return;
+
+    cancelPathTask();
+    currentPath = null;
+    int sourceId = selectedSource.getId();
+    int destinationId = selectedDestination.getId();
+
+    Graph searchGraph = graph;
+    Dijkstra search = dijkstra;
+    Task<PathResult> task = new Task<PathResult>() {
+      @Override
+      protected PathResult call() {
+        // Run Dijkstra's algorithm until it is done or this task is cancelled
+        search.findShortestPath(searchGraph, sourceId, destinationId, this::isCancelled);
+        if (search.wasCancelled()) {
+          return null;
         }
+        // Reconstruct the path, an empty one if there is none
+        List<Integer> path = search.reconstructPath(sourceId, destinationId);
+        return new PathResult(path != null ? path : new List<>(), search.getDistance(destinationId));
       }
-    }
+    };
+    task.setOnSucceeded(event -> {
+      if (task == pathTask) {
+        pathTask = null;
+        currentDistance = task.getValue().distance;
+        currentPath = task.getValue().path;
+        pathProgress.setVisible(false);
+        updateInfoPanel();
+        drawGraph();
+      }
+    });
+    task.setOnFailed(event -> {
+      if (task == pathTask) {
+        pathTask = null;
+        pathProgress.setVisible(false);
+        System.err.println("Path search failed: " + task.getException());
+        updateInfoPanel();
+      }
+    });
 
-    return (minDistance < searchRadius) ? nearest : null;
+    pathTask = task;
+    pathProgress.setVisible(true);
+    pathExecutor.submit(task);
   }
 
-  private void calculatePath() {
-    if (selectedSource == null || selectedDestination == null)
-      return;
+  private static final class PathResult {
+    final List<Integer> path;
+    final double distance;
 
-    // Run Dijkstra's algorithm
-    dijkstra.findShortestPath(graph, selectedSource, selectedDestination);
-    // Reconstruct the path
-    currentPath = dijkstra.reconstructPath(selectedSource.getId(), selectedDestination.getId());
+    PathResult(List<Integer> path, double distance) {
+      this.path = path;
+      this.distance = distance;
+    }
+  }
+
+  /**
+   * Cancels the search in progress, if any, and drops its result.
+   */
+  private void cancelPathTask() {
+    if (pathTask != null) {
+      pathTask.cancel();
+      pathTask = null;
+      pathProgress.setVisible(false);
+    }
   }
 
   private void updateInfoPanel() {
@@ -312,13 +400,15 @@ public class DijkstraVisualization extends Application {
       labels[1]
           .setText("Destination: " + (selectedDestination != null ? "Vertex " + selectedDestination.getId() : "None"));
 
-      if (currentPath != null && currentPath.size() > 0) {
+      if (pathTask != null) {
+        labels[2].setText("Path: Calculating...");
+        labels[3].setText("Distance: N/A");
+      } else if (currentPath != null && currentPath.size() > 0) {
         labels[2].setText("Path: Found (" + currentPath.size() + " vertices)");
 
-        // Calculate and display distance
+        // Display the distance found with the path
         if (selectedDestination != null) {
-          double distance = dijkstra.getDistance(selectedDestination.getId());
-          labels[3].setText(String.format("Distance: %.2f", distance));
+          labels[3].setText(String.format("Distance: %.2f", currentDistance));
         }
       } else if (currentPath != null && currentPath.size() == 0) {
         labels[2].setText("Path: No path exists!");
@@ -332,20 +422,66 @@ public class DijkstraVisualization extends Application {
 
   }
 
+  /**
+   * Redraws once the current event is handled, so a burst of scroll events
+   * costs one redraw.
+   */
+  private void requestRedraw() {
+    if (!redrawPending) {
+      redrawPending = true;
+      javafx.application.Platform.runLater(() -> {
+        redrawPending = false;
+        drawGraph();
+      });
+    }
+  }
+
+  /**
+   * Draws the part of the graph inside the scroll pane's viewport: the base
+   * map from the tile cache, then the path and the selection on top. The
+   * rest of the canvas is left as it is until it is scrolled into view.
+   */
   private void drawGraph() {
     GraphicsContext gc = canvas.getGraphicsContext2D();
+    double[] area = visibleArea();
+    double pointSize = Math.max(3, Math.min(10, 4 * currentZoom));
 
-    // Clear canvas
+    // Clear the visible area, for tiles that are not rendered yet
     gc.setFill(Color.WHITE);
-    gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    gc.fillRect(area[0], area[1], area[2], area[3]);
+
+    tileCache.setLevel(canvas.getWidth(), canvas.getHeight(), pointSize, showEdges);
+    tileCache.draw(gc, area[0], area[1], area[2], area[3]);
 
     // Draw the shortest path (before vertices so vertices appear on top)
     if (currentPath != null && currentPath.size() > 1) {
       drawPath(gc);
     }
+    drawPathVertices(gc, pointSize);
+    if (currentZoom >= VERTEX_LABEL_ZOOM) {
+      drawLabels(gc, area, pointSize);
+    }
+    drawSelection(gc, pointSize);
+  }
 
-    // Draw vertices
-    drawVertices(gc);
+  /**
+   * Returns the visible part of the canvas as {x, y, width, height} in canvas
+   * pixels, or the whole canvas before the scroll pane has been laid out.
+   */
+  private double[] visibleArea() {
+    Bounds viewport = scrollPane.getViewportBounds();
+    double canvasWidth = canvas.getWidth();
+    double canvasHeight = canvas.getHeight();
+    if (viewport == null || viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+      return new double[] { 0, 0, canvasWidth, canvasHeight };
+    }
+    double width = Math.min(viewport.getWidth(), canvasWidth);
+    double height = Math.min(viewport.getHeight(), canvasHeight);
+    double hRange = scrollPane.getHmax() - scrollPane.getHmin();
+    double vRange = scrollPane.getVmax() - scrollPane.getVmin();
+    double hFraction = hRange > 0 ? (scrollPane.getHvalue() - scrollPane.getHmin()) / hRange : 0;
+    double vFraction = vRange > 0 ? (scrollPane.getVvalue() - scrollPane.getVmin()) / vRange : 0;
+    return new double[] { hFraction * (canvasWidth - width), vFraction * (canvasHeight - height), width, height };
   }
 
   private void drawPath(GraphicsContext gc) {
@@ -360,7 +496,7 @@ public class DijkstraVisualization extends Application {
     Vertex prev = null;
 
     while (node != null) {
-      Vertex current = graph[node.getData()];
+      Vertex current = vertices[node.getData()];
 
       if (prev != null && current != null) {
         double x1 = mapX(prev.getX());
@@ -384,50 +520,70 @@ public class DijkstraVisualization extends Application {
     return canvas.getHeight() - ((y - minY) / (maxY - minY) * canvas.getHeight());
   }
 
-  private void drawVertices(GraphicsContext gc) {
-    // Adjust point size based on zoom
-    double pointSize = Math.max(3, Math.min(10, 4 * currentZoom));
+  // Inverse of mapX and mapY, the same conversion the click handler does
+  private double toDataX(double canvasX) {
+    return minX + (canvasX / canvas.getWidth()) * (maxX - minX);
+  }
 
-    for (Vertex v : graph) {
-      if (v != null) {
-        double x = mapX(v.getX());
-        double y = mapY(v.getY());
-
-        // Choose color based on selection and path
-        if (v == selectedSource) {
-          gc.setFill(Color.LIGHTGREEN);
-          // x y width height
-          // If we used fillOval(x, y, pointSize * 2, pointSize * 2),
-          // the circle would appear shifted - its top-left corner would
-          // be at the vertex position, making the circle appear down and
-          // to the right of where it should be, because fillOvall requires
-          // top left corner, not the vertex center itself
-          gc.fillOval(x - pointSize, y - pointSize, pointSize * 2, pointSize * 2);
-          gc.setFill(Color.DARKGREEN);
-          gc.fillOval(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize);
-          sourceSearchField.setText(String.valueOf(v.getId()));
-        } else if (v == selectedDestination) {
-          gc.setFill(Color.PINK);
-          gc.fillOval(x - pointSize, y - pointSize, pointSize * 2, pointSize * 2);
-          gc.setFill(Color.DARKRED);
-          gc.fillOval(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize);
-          destSearchField.setText(String.valueOf(v.getId()));
-        } else if (currentPath != null && currentPath.contains(v.getId())) {
-          // Highlight vertices on the path
-          gc.setFill(Color.ORANGE);
-          gc.fillOval(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize);
-        } else {
-          gc.setFill(Color.DARKBLUE);
-          gc.fillOval(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize);
-        }
+  private double toDataY(double canvasY) {
+    return maxY - (canvasY / canvas.getHeight()) * (maxY - minY);
+  }
 
-        // Show vertex IDs if zoomed in
-        if (currentZoom >= VERTEX_LABEL_ZOOM) {
-          gc.setFill(Color.BLACK);
-          gc.fillText(String.valueOf(v.getId()), x + pointSize, y - pointSize);
-        }
-      }
+  /**
+   * Shows the ids of the vertices in view, unless there are too many to
+   * read.
+   */
+  private void drawLabels(GraphicsContext gc, double[] area, double pointSize) {
+    int[] visible = spatialIndex.withinRectangle(
+        toDataX(area[0]), toDataY(area[1] + area[3]), toDataX(area[0] + area[2]), toDataY(area[1]));
+    if (visible.length > MAX_LABELED_VERTICES) {
+      return;
+    }
+    gc.setFill(Color.BLACK);
+    for (int id : visible) {
+      Vertex v = vertices[id];
+      gc.fillText(String.valueOf(v.getId()), mapX(v.getX()) + pointSize, mapY(v.getY()) - pointSize);
+    }
+  }
+
+  /**
+   * Draws the vertices of the path over the base map.
+   */
+  private void drawPathVertices(GraphicsContext gc, double pointSize) {
+    if (currentPath == null) {
+      return;
     }
+    gc.setFill(Color.ORANGE);
+    for (List.Node<Integer> node = currentPath.getHead(); node != null; node = node.getNext()) {
+      Vertex v = vertices[node.getData()];
+      gc.fillOval(mapX(v.getX()) - pointSize / 2, mapY(v.getY()) - pointSize / 2, pointSize, pointSize);
+    }
+  }
+
+  private void drawSelection(GraphicsContext gc, double pointSize) {
+    if (selectedSource != null) {
+      drawMarker(gc, selectedSource, pointSize, Color.LIGHTGREEN, Color.DARKGREEN);
+      sourceSearchField.setText(String.valueOf(selectedSource.getId()));
+    }
+    if (selectedDestination != null) {
+      drawMarker(gc, selectedDestination, pointSize, Color.PINK, Color.DARKRED);
+      destSearchField.setText(String.valueOf(selectedDestination.getId()));
+    }
+  }
+
+  private void drawMarker(GraphicsContext gc, Vertex v, double pointSize, Color outer, Color inner) {
+    double x = mapX(v.getX());
+    double y = mapY(v.getY());
+    // x y width height
+    // If we used fillOval(x, y, pointSize * 2, pointSize * 2),
+    // the circle would appear shifted - its top-left corner would
+    // be at the vertex position, making the circle appear down and
+    // to the right of where it should be, because fillOvall requires
+    // top left corner, not the vertex center itself
+    gc.setFill(outer);
+    gc.fillOval(x - pointSize, y - pointSize, pointSize * 2, pointSize * 2);
+    gc.setFill(inner);
+    gc.fillOval(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize);
   }
 
   private void handleSearchFieldSelection() {
@@ -445,15 +601,15 @@ public class DijkstraVisualization extends Application {
       int destId = Integer.parseInt(destSelection);
 
       // Validate the IDs are within bounds
-      if (sourceId < 0 || sourceId >= graph.length ||
-          destId < 0 || destId >= graph.length ||
-          graph[sourceId] == null || graph[destId] == null) {
+      if (sourceId < 0 || sourceId >= vertices.length ||
+          destId < 0 || destId >= vertices.length ||
+          vertices[sourceId] == null || vertices[destId] == null) {
         System.out.println("Invalid vertex ID");
         return;
       }
 
-      selectedSource = graph[sourceId];
-      selectedDestination = graph[destId];
+      selectedSource = vertices[sourceId];
+      selectedDestination = vertices[destId];
       calculatePath();
       updateInfoPanel();
       drawGraph();
@@ -482,7 +638,7 @@ public class DijkstraVisualization extends Application {
     // This happens during UI creation, not while the user types
     if (allVerticesList == null) {
       allVerticesList = FXCollections.observableArrayList();
-      for (Vertex v : graph) {
+      for (Vertex v : vertices) {
         if (v != null) {
           allVerticesList.add(v.getId());
         }
@@ -561,7 +717,7 @@ public class DijkstraVisualization extends Application {
     pathDetails.setFont(Font.font("Arial", 20));
 
     StringBuilder details = new StringBuilder();
-    details.append("Total Distance: ").append(String.format("%.2f", dijkstra.getDistance(selectedDestination.getId())))
+    details.append("Total Distance: ").append(String.format("%.2f", currentDistance))
         .append("\n\n");
     details.append("Path vertices: ").append(currentPath.size()).append("\n\n");
     details.append("Detailed Route:\n");
@@ -573,14 +729,14 @@ public class DijkstraVisualization extends Application {
 
     while (node != null) {
       Integer currentId = node.getData();
-      Vertex current = graph[currentId];
+      Vertex current = vertices[currentId];
 
       details.append(String.format("%d. Vertex %d (x=%d, y=%d)",
           step++, current.getId(), current.getX(), current.getY()));
 
       if (prevId != null) {
         // Find the edge weight between prev and current
-        Vertex prev = graph[prevId];
+        Vertex prev = vertices[prevId];
         double edgeWeight = findEdgeWeight(prev, current);
 
         if (edgeWeight >= 0) { // Include zero-weight edges
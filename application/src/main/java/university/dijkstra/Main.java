@@ -1,13 +1,35 @@
 package university.dijkstra;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
 
+import university.dijkstra.algorithm.BatchQueryRunner;
+import university.dijkstra.algorithm.BidirectionalDijkstra;
+import university.dijkstra.algorithm.ContractionHierarchyBuilder;
+import university.dijkstra.algorithm.ContractionHierarchyQuery;
 import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.algorithm.LandmarkSelector;
+import university.dijkstra.algorithm.LandmarkTable;
+import university.dijkstra.algorithm.QueueType;
+import university.dijkstra.algorithm.ReorderedEngine;
+import university.dijkstra.algorithm.SearchStatistics;
+import university.dijkstra.algorithm.ShortestPathEngine;
+import university.dijkstra.algorithm.SourceTreeCache;
 import university.dijkstra.data_structures.List;
-import university.dijkstra.io.DataProccessor;
+import university.dijkstra.io.ContractionHierarchyFile;
+import university.dijkstra.io.QueryFile;
+import university.dijkstra.model.ContractionHierarchy;
 import university.dijkstra.model.Edge;
+import university.dijkstra.model.Graph;
 import university.dijkstra.model.Vertex;
+import university.dijkstra.model.VertexOrder;
+import university.dijkstra.monitoring.MonitoredEngine;
+import university.dijkstra.monitoring.MonitoredLoader;
+import university.dijkstra.monitoring.QueryMonitor;
+import university.dijkstra.monitoring.RoutingMonitor;
 
 public class Main {
 
@@ -68,15 +90,17 @@ public class Main {
 
   // ================= Test Dijkstra =============================
 
-  public static void testDijkstraWithQueries() {
-    System.out.println("\n=== Dijkstra Algorithm Test with Query File ===");
+  public static void testDijkstraWithQueries(String engineName, QueueType queueType,
+      VertexOrder.Strategy orderStrategy) {
+    System.out.println("\n=== " + engineName + " Algorithm Test with Query File ===");
 
     try {
       // First, load the USA graph
       String graphFile = "/home/osamaps/Downloads/University/HomeWorks/Semester2_Year3/Algorithm/Third_Project/USA.txt";
       System.out.println("Loading graph from USA.txt...");
-      Vertex[] graph = DataProccessor.parseFile(graphFile);
-      System.out.println("Graph loaded successfully with " + graph.length + " vertices.");
+      Graph graph = MonitoredLoader.loadGraph(graphFile);
+      System.out.println("Graph loaded successfully with " + graph.getNumVertices() + " vertices.");
+      System.out.println("Connected components: " + graph.getComponents());
 
       // Now read the test queries from Test.txt
       String testFile = "/home/osamaps/Downloads/University/HomeWorks/Semester2_Year3/Algorithm/Third_Project/Test.txt";
@@ -86,12 +110,28 @@ public class Main {
       String line;
       int testCase = 1;
 
-      // Create Dijkstra instance
-      Dijkstra dijkstra = new Dijkstra(graph.length);
+      // Create the search engine, on renumbered vertices if asked to
+      ShortestPathEngine engine;
+      if (orderStrategy != null) {
+        long orderStart = System.nanoTime();
+        VertexOrder order = VertexOrder.compute(graph, orderStrategy);
+        ReorderedEngine reordered = new ReorderedEngine(graph, order,
+            internalGraph -> createEngine(engineName, queueType, internalGraph, graphFile, orderStrategy));
+        System.out.printf("Vertex order %s: %.1f ms, average arc span %.0f -> %.0f ids\n", orderStrategy,
+            (System.nanoTime() - orderStart) / 1e6, VertexOrder.averageArcSpan(graph),
+            VertexOrder.averageArcSpan(reordered.getInternalGraph()));
+        engine = reordered;
+      } else {
+        engine = createEngine(engineName, queueType, graph, graphFile, null);
+      }
+      ShortestPathEngine dijkstra = new MonitoredEngine(engine);
+      dijkstra.setStatisticsEnabled(true);
+      SearchStatistics searchStatistics = new SearchStatistics();
 
       // Track timing for performance analysis
       long totalTime = 0;
       List<Long> queryTimes = new List<>();
+      long wallStartTime = System.nanoTime();
 
       while ((line = reader.readLine()) != null) {
         String[] parts = line.trim().split("\\s+");
@@ -111,12 +151,15 @@ public class Main {
         long startTime = System.nanoTime();
 
         // Run Dijkstra's algorithm
-        dijkstra.findShortestPath(graph, graph[sourceId], graph[destinationId]);
+        dijkstra.findShortestPath(graph, sourceId, destinationId);
 
         long endTime = System.nanoTime();
         long queryTime = endTime - startTime;
         totalTime += queryTime;
         queryTimes.add(queryTime);
+        if (dijkstra.getLastStatistics() != null) {
+          searchStatistics.add(dijkstra.getLastStatistics());
+        }
 
         // Get the results
         double distance = dijkstra.getDistance(destinationId);
@@ -139,13 +182,26 @@ public class Main {
       }
 
       reader.close();
+      long wallTime = System.nanoTime() - wallStartTime;
 
       // Print performance summary
+      long[] latencies = new long[testCase - 1];
+      List.Node<Long> node = queryTimes.getHead();
+      for (int i = 0; node != null; i++, node = node.getNext()) {
+        latencies[i] = node.getData();
+      }
       System.out.println("\n=== Performance Summary ===");
-      System.out.printf("Total queries: %d\n", testCase - 1);
-      System.out.printf("Total time: %.3f ms\n", totalTime / 1_000_000.0);
-      System.out.printf("Average query time: %.3f ms\n",
-          (totalTime / (testCase - 1)) / 1_000_000.0);
+      System.out.printf("Search time: %.3f ms\n", totalTime / 1_000_000.0);
+      System.out.println(new BatchQueryRunner.Statistics(latencies.length, latencies.length, wallTime, latencies));
+      if (searchStatistics.getQueries() > 0) {
+        System.out.println("Search statistics: " + searchStatistics);
+      }
+      if (engine instanceof ReorderedEngine) {
+        engine = ((ReorderedEngine) engine).getEngine();
+      }
+      if (engine instanceof SourceTreeCache) {
+        System.out.println("Source tree cache: " + ((SourceTreeCache) engine).getStatistics());
+      }
 
     } catch (Exception e) {
       System.err.println("Error in Dijkstra test: " + e.getMessage());
@@ -153,6 +209,78 @@ public class Main {
     }
   }
 
+  /**
+   * Creates the search engine selected on the command line: "dijkstra",
+   * "astar", "alt" (A* with 16 landmarks), "bidirectional", "ch"
+   * (contraction hierarchy) or "cached" (Dijkstra with a 256 MB LFU cache
+   * of source trees). The preprocessing for alt runs here; ch loads the
+   * hierarchy saved next to the graph file, see loadOrBuildHierarchy.
+   * The Dijkstra-based engines run on the given queue type.
+   */
+  private static ShortestPathEngine createEngine(String engineName, QueueType queueType, Graph graph,
+      String graphFile, VertexOrder.Strategy orderStrategy) {
+    switch (engineName) {
+      case "dijkstra":
+        return new Dijkstra(graph.getNumVertices(), queueType.create(graph));
+      case "astar":
+        Dijkstra aStar = new Dijkstra(graph.getNumVertices(), queueType.create(graph));
+        aStar.setAStar(true);
+        return aStar;
+      case "alt":
+        Dijkstra alt = new Dijkstra(graph.getNumVertices(), queueType.create(graph));
+        alt.setHeuristic(LandmarkSelector.buildTable(graph, 16, LandmarkSelector.Strategy.AVOID,
+            LandmarkTable.Encoding.FLOAT));
+        return alt;
+      case "bidirectional":
+        return new BidirectionalDijkstra(graph.getNumVertices());
+      case "ch":
+        return new ContractionHierarchyQuery(loadOrBuildHierarchy(graph, graphFile, orderStrategy));
+      case "cached":
+        return new SourceTreeCache(graph, 256L << 20, SourceTreeCache.Policy.LFU);
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + engineName);
+    }
+  }
+
+  /**
+   * Loads the contraction hierarchy of the graph from the file next to the
+   * graph file, "USA.ch" for "USA.txt" or "USA.hilbert.ch" for its Hilbert
+   * renumbering. If there is no such file, or it is older than the graph
+   * file or does not fit the graph, the hierarchy is built and saved there
+   * for the next run.
+   */
+  private static ContractionHierarchy loadOrBuildHierarchy(Graph graph, String graphFile,
+      VertexOrder.Strategy orderStrategy) {
+    String baseName = graphFile.replaceFirst("\\.[^./\\\\]*$", "");
+    String hierarchyFile = baseName + (orderStrategy == null ? "" : "." + orderStrategy.name().toLowerCase()) + ".ch";
+    File file = new File(hierarchyFile);
+    if (file.isFile() && file.lastModified() >= new File(graphFile).lastModified()) {
+      try {
+        long startTime = System.nanoTime();
+        ContractionHierarchy hierarchy = ContractionHierarchyFile.read(hierarchyFile);
+        if (hierarchy.getNumVertices() == graph.getNumVertices()) {
+          System.out.printf("Contraction hierarchy loaded from %s in %.1f ms\n", hierarchyFile,
+              (System.nanoTime() - startTime) / 1e6);
+          return hierarchy;
+        }
+        System.out.println("Ignoring " + hierarchyFile + ": it belongs to a different graph");
+      } catch (IOException e) {
+        System.out.println("Ignoring " + hierarchyFile + ": " + e.getMessage());
+      }
+    }
+
+    ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder();
+    ContractionHierarchy hierarchy = builder.build(graph);
+    System.out.println("Contraction hierarchy: " + builder.getLastStatistics());
+    try {
+      ContractionHierarchyFile.write(hierarchy, hierarchyFile);
+      System.out.println("Contraction hierarchy saved to " + hierarchyFile);
+    } catch (IOException e) {
+      System.out.println("Could not save the contraction hierarchy: " + e.getMessage());
+    }
+    return hierarchy;
+  }
+
   // Helper method to print the path
   private static void printPath(List<Integer> path) {
     List.Node<Integer> current = path.getHead();
@@ -168,11 +296,49 @@ public class Main {
     System.out.println();
   }
 
+  /**
+   * Does what {@link BatchQueryRunner#main} does, with the load and the
+   * searches reported to the monitor.
+   */
+  private static void runBatch(String[] args) {
+    if (args.length < 3 || args.length > 4 || (args.length == 4 && !args[3].equals("--paths"))) {
+      System.err.println("Usage: Main batch <graph> <queries> <output> [--paths]");
+      System.exit(2);
+    }
+
+    try {
+      Graph graph = MonitoredLoader.loadGraph(args[0]);
+      QueryFile queries = QueryFile.read(args[1]);
+      BatchQueryRunner runner = new BatchQueryRunner(graph);
+      runner.setWritePaths(args.length == 4);
+      runner.setListener(new QueryMonitor("BatchQueryRunner"));
+      System.out.println(runner.run(queries, args[2]));
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
   // Add this to your main method
   public static void main(String[] args) {
     // Your existing code...
 
-    // Add this line to run the Dijkstra test
-    testDijkstraWithQueries();
+    // Publish query latencies and counters over JMX, see RoutingMonitor
+    RoutingMonitor.register();
+
+    // "batch <graph> <queries> <output> [--paths]" answers a whole query file
+    // in parallel, see BatchQueryRunner
+    if (args.length > 0 && args[0].equals("batch")) {
+      runBatch(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
+    // Add this line to run the Dijkstra test. The first argument picks the
+    // engine (see createEngine), the second the queue type (see QueueType),
+    // the optional third a vertex renumbering such as "hilbert" or "rcm"
+    // (see VertexOrder)
+    testDijkstraWithQueries(args.length > 0 ? args[0] : "dijkstra",
+        args.length > 1 ? QueueType.fromName(args[1]) : QueueType.FOUR_ARY_HEAP,
+        args.length > 2 && !args[2].equals("none") ? VertexOrder.Strategy.fromName(args[2]) : null);
   }
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+package university.dijkstra;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Base map tiles of the viewer for the current zoom level, rasterized by a
+ * {@link TileRenderer} on background threads.
+ *
+ * Drawing a part of the canvas copies the tiles that are ready and queues
+ * the missing ones. When a tile is ready the listener is called on the
+ * JavaFX thread, so the viewer can draw again. Changing the zoom level or
+ * the edge setting starts a new level; until its tiles are ready the tiles
+ * of the previous level are drawn scaled in their place, so zooming does not
+ * show an empty map. Queued tiles that scroll out of view are
+ * cancelled.
+ *
+ * At most {@code MAX_TILES} tiles are kept, the least recently drawn are
+ * dropped first. Everything but the rendering runs on the JavaFX thread.
+ */
+public class TileCache {
+  private static final int TILE_SIZE = TileRenderer.TILE_SIZE;
+  private static final int MAX_TILES = 256; // 64 MB of pixels
+
+  private final TileRenderer renderer;
+  private final Runnable onTileReady;
+  private final ExecutorService executor;
+
+  // The level being drawn
+  private int generation;
+  private double canvasWidth = -1;
+  private double canvasHeight;
+  private double pointSize;
+  private boolean drawEdges;
+  private LinkedHashMap<Long, WritableImage> tiles = newTileMap(); // In access order
+  private final HashMap<Long, Future<?>> pending = new HashMap<>();
+
+  // Tiles of the last level that had any, drawn scaled while the current
+  // level is rendered
+  private LinkedHashMap<Long, WritableImage> previousTiles = newTileMap();
+  private double previousWidth;
+
+  /**
+   * @param renderer    rasterizes the tiles
+   * @param onTileReady called on the JavaFX thread when a tile of the
+   *                    current level is ready
+   */
+  public TileCache(TileRenderer renderer, Runnable onTileReady) {
+    this.renderer = renderer;
+    this.onTileReady = onTileReady;
+    int numThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+      Thread thread = new Thread(runnable, "tile-renderer-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static LinkedHashMap<Long, WritableImage> newTileMap() {
+    return new LinkedHashMap<Long, WritableImage>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+        return size() > MAX_TILES;
+      }
+    };
+  }
+
+  /**
+   * Sets the level to draw. Nothing happens if it is the current one.
+   */
+  public void setLevel(double canvasWidth, double canvasHeight, double pointSize, boolean drawEdges) {
+    if (canvasWidth == this.canvasWidth && canvasHeight == this.canvasHeight && pointSize == this.pointSize
+        && drawEdges == this.drawEdges) {
+      return;
+    }
+    // Keep the old tiles as a stand-in, unless the level had none ready yet
+    if (!tiles.isEmpty()) {
+      previousTiles = tiles;
+      previousWidth = this.canvasWidth;
+    }
+    tiles = newTileMap();
+    for (Future<?> future : pending.values()) {
+      future.cancel(false);
+    }
+    pending.clear();
+    generation++;
+    this.canvasWidth = canvasWidth;
+    this.canvasHeight = canvasHeight;
+    this.pointSize = pointSize;
+    this.drawEdges = drawEdges;
+  }
+
+  /**
+   * Draws the base map over the given part of the canvas and queues the
+   * tiles it is missing.
+   */
+  public void draw(GraphicsContext gc, double x, double y, double width, double height) {
+    int firstColumn = (int) Math.floor(x / TILE_SIZE);
+    int lastColumn = (int) Math.ceil((x + width) / TILE_SIZE) - 1;
+    int firstRow = (int) Math.floor(y / TILE_SIZE);
+    int lastRow = (int) Math.ceil((y + height) / TILE_SIZE) - 1;
+
+    HashSet<Long> visible = new HashSet<>();
+    boolean complete = true;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        long key = key(column, row);
+        visible.add(key);
+        complete &= tiles.containsKey(key);
+      }
+    }
+    if (!complete && !previousTiles.isEmpty()) {
+      drawPrevious(gc, x, y, width, height);
+    }
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        long key = key(column, row);
+        WritableImage tile = tiles.get(key);
+        if (tile != null) {
+          gc.drawImage(tile, column * TILE_SIZE, row * TILE_SIZE);
+        } else if (!pending.containsKey(key)) {
+          pending.put(key, submit(column, row));
+        }
+      }
+    }
+
+    // Tiles scrolled out of view before they were started are not needed
+    Iterator<Map.Entry<Long, Future<?>>> it = pending.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Long, Future<?>> entry = it.next();
+      if (!visible.contains(entry.getKey())) {
+        entry.getValue().cancel(false);
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Stops the rendering threads.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Draws the tiles of the previous level that overlap the area, scaled to
+   * the current level.
+   */
+  private void drawPrevious(GraphicsContext gc, double x, double y, double width, double height) {
+    double scale = canvasWidth / previousWidth;
+    double scaledSize = TILE_SIZE * scale;
+    int firstColumn = (int) Math.floor(x / scaledSize);
+    int lastColumn = (int) Math.ceil((x + width) / scaledSize) - 1;
+    int firstRow = (int) Math.floor(y / scaledSize);
+    int lastRow = (int) Math.ceil((y + height) / scaledSize) - 1;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        WritableImage tile = previousTiles.get(key(column, row));
+        if (tile != null) {
+          gc.drawImage(tile, column * scaledSize, row * scaledSize, scaledSize, scaledSize);
+        }
+      }
+    }
+  }
+
+  private Future<?> submit(int column, int row) {
+    // The job gets its own copy of the level, the fields change on the
+    // JavaFX thread
+    int tileGeneration = generation;
+    double width = canvasWidth;
+    double height = canvasHeight;
+    double size = pointSize;
+    boolean edges = drawEdges;
+    return executor.submit(() -> {
+      int[] pixels = renderer.render(column, row, width, height, size, edges);
+      WritableImage image = new WritableImage(TILE_SIZE, TILE_SIZE);
+      image.getPixelWriter().setPixels(0, 0, TILE_SIZE, TILE_SIZE, PixelFormat.getIntArgbInstance(), pixels, 0,
+          TILE_SIZE);
+      Platform.runLater(() -> {
+        if (tileGeneration == generation) {
+          long key = key(column, row);
+          pending.remove(key);
+          tiles.put(key, image);
+          onTileReady.run();
+        }
+      });
+    });
+  }
+
+  private static long key(int column, int row) {
+    return ((long) column << 32) | (row & 0xFFFFFFFFL);
+  }
+}
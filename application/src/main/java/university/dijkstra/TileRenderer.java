@@ -0,0 +1,170 @@
+package university.dijkstra;
+
+import java.util.Arrays;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.SpatialIndex;
+
+/**
+ * Rasterizes the base map of the viewer, the vertices and optionally the
+ * edges, into square tiles of ARGB pixels.
+ *
+ * A tile is one {@code TILE_SIZE} square of a canvas of a given size, on
+ * which the data bounds are mapped the same way the viewer maps them. Only
+ * the vertices near the tile are looked up in the spatial index. Vertices are
+ * drawn as discs; where discs pile up the pixel gets darker with the
+ * logarithm of their number, so dense regions still show their shape.
+ * Pixels are written directly, without anti-aliasing.
+ *
+ * A renderer does not change after it is built, so several threads may
+ * render tiles at the same time.
+ */
+public class TileRenderer {
+  public static final int TILE_SIZE = 256;
+
+  private static final int BACKGROUND = 0xFFFFFFFF;
+  private static final int EDGE_COLOR = 0xFFC0C0C0;
+  private static final int VERTEX_BLUE = 139; // Color.DARKBLUE, a single vertex
+  private static final int DENSE_BLUE = 40; // The darkest shade, for piled up discs
+  private static final int DENSITY_SATURATION = 64; // Discs per pixel at the darkest shade
+
+  private final Graph graph;
+  private final SpatialIndex index;
+  private final double minX, maxX, minY, maxY;
+
+  /**
+   * @param graph the graph to draw
+   * @param index spatial index of the graph
+   * @param minX  data coordinate at the left edge of the canvas, and so on
+   */
+  public TileRenderer(Graph graph, SpatialIndex index, double minX, double maxX, double minY, double maxY) {
+    this.graph = graph;
+    this.index = index;
+    this.minX = minX;
+    this.maxX = maxX;
+    this.minY = minY;
+    this.maxY = maxY;
+  }
+
+  /**
+   * Renders the tile in the given column and row of a canvas.
+   *
+   * Edges are drawn if at least one of their ends lies within a tile's width
+   * of the tile, so only edges longer than that can be missing.
+   *
+   * @return {@code TILE_SIZE * TILE_SIZE} ARGB pixels, row by row
+   */
+  public int[] render(int column, int row, double canvasWidth, double canvasHeight, double pointSize,
+      boolean drawEdges) {
+    int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+    Arrays.fill(pixels, BACKGROUND);
+
+    // Tile origin on the canvas and the scale from data to canvas pixels
+    double originX = (double) column * TILE_SIZE;
+    double originY = (double) row * TILE_SIZE;
+    double scaleX = canvasWidth / (maxX - minX);
+    double scaleY = canvasHeight / (maxY - minY);
+
+    // Look up the vertices whose disc, or whose edges, may reach the tile
+    double margin = drawEdges ? TILE_SIZE : pointSize;
+    double left = originX - margin;
+    double right = originX + TILE_SIZE + margin;
+    double top = originY - margin;
+    double bottom = originY + TILE_SIZE + margin;
+    int[] nearby = index.withinRectangle(minX + left / scaleX, maxY - bottom / scaleY, minX + right / scaleX,
+        maxY - top / scaleY);
+
+    if (drawEdges) {
+      for (int v : nearby) {
+        double x1 = (graph.getX(v) - minX) * scaleX - originX;
+        double y1 = (maxY - graph.getY(v)) * scaleY - originY;
+        for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+          int w = graph.getTarget(e);
+          double x2 = (graph.getX(w) - minX) * scaleX - originX;
+          double y2 = (maxY - graph.getY(w)) * scaleY - originY;
+          // Both directions of an edge are arcs; draw it once when both
+          // ends were looked up
+          boolean otherNearby = x2 >= -margin && x2 <= TILE_SIZE + margin && y2 >= -margin
+              && y2 <= TILE_SIZE + margin;
+          if (w > v || !otherNearby) {
+            drawLine(pixels, x1, y1, x2, y2);
+          }
+        }
+      }
+    }
+
+    // Count the discs covering each pixel, then shade by the count
+    int[] coverage = new int[TILE_SIZE * TILE_SIZE];
+    double radius = pointSize / 2;
+    for (int v : nearby) {
+      double centerX = (graph.getX(v) - minX) * scaleX - originX;
+      double centerY = (maxY - graph.getY(v)) * scaleY - originY;
+      int fromY = Math.max(0, (int) Math.ceil(centerY - radius - 0.5));
+      int toY = Math.min(TILE_SIZE - 1, (int) Math.floor(centerY + radius - 0.5));
+      for (int y = fromY; y <= toY; y++) {
+        double dy = y + 0.5 - centerY;
+        double halfWidth = Math.sqrt(Math.max(0, radius * radius - dy * dy));
+        int fromX = Math.max(0, (int) Math.ceil(centerX - halfWidth - 0.5));
+        int toX = Math.min(TILE_SIZE - 1, (int) Math.floor(centerX + halfWidth - 0.5));
+        for (int x = fromX; x <= toX; x++) {
+          coverage[y * TILE_SIZE + x]++;
+        }
+      }
+    }
+
+    double scale = Math.log(DENSITY_SATURATION);
+    for (int i = 0; i < pixels.length; i++) {
+      int count = coverage[i];
+      if (count > 0) {
+        double t = Math.min(1, Math.log(count) / scale);
+        int blue = (int) Math.round(VERTEX_BLUE + t * (DENSE_BLUE - VERTEX_BLUE));
+        pixels[i] = 0xFF000000 | blue;
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Draws a one pixel wide line, clipped to the tile.
+   */
+  private static void drawLine(int[] pixels, double x1, double y1, double x2, double y2) {
+    // Liang-Barsky clipping against [0, TILE_SIZE)
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double[] p = { -dx, dx, -dy, dy };
+    double[] q = { x1, TILE_SIZE - 1e-9 - x1, y1, TILE_SIZE - 1e-9 - y1 };
+    double from = 0;
+    double to = 1;
+    for (int i = 0; i < 4; i++) {
+      if (p[i] == 0) {
+        if (q[i] < 0) {
+          return;
+        }
+      } else {
+        double r = q[i] / p[i];
+        if (p[i] < 0) {
+          from = Math.max(from, r);
+        } else {
+          to = Math.min(to, r);
+        }
+      }
+    }
+    if (from > to) {
+      return;
+    }
+
+    double startX = x1 + from * dx;
+    double startY = y1 + from * dy;
+    double lengthX = (to - from) * dx;
+    double lengthY = (to - from) * dy;
+    int steps = (int) Math.ceil(Math.max(Math.abs(lengthX), Math.abs(lengthY)));
+    for (int s = 0; s <= steps; s++) {
+      double t = steps == 0 ? 0 : (double) s / steps;
+      int x = (int) (startX + t * lengthX);
+      int y = (int) (startY + t * lengthY);
+      if (x >= 0 && x < TILE_SIZE && y >= 0 && y < TILE_SIZE) {
+        pixels[y * TILE_SIZE + x] = EDGE_COLOR;
+      }
+    }
+  }
+}
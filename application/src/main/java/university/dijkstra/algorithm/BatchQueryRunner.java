@@ -0,0 +1,314 @@
+package university.dijkstra.algorithm;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.io.QueryFile;
+import university.dijkstra.model.Graph;
+
+/**
+ * Answers a whole file of queries at once.
+ *
+ * Queries are grouped by source, and one {@link Dijkstra} search per group
+ * runs until every destination of the group is settled. Groups are spread
+ * over a fork-join pool, each worker with its own search workspace. Results
+ * are written as {@code source destination distance} lines, optionally
+ * followed by the path, in the order the groups finish; unreachable pairs
+ * get {@code unreachable} as their distance. Each worker collects its lines
+ * and hands them to the shared buffered writer in large chunks.
+ *
+ * The latency recorded for a query is the time of the search that answered
+ * it, so every query of a group gets the same latency. Every search is
+ * reported to the {@link QueryListener}, if one is set.
+ *
+ * Usage: {@code BatchQueryRunner <graph> <queries> <output> [--paths]}
+ */
+public class BatchQueryRunner {
+  private static final int CHUNK_CHARS = 1 << 16;
+
+  private final Graph graph;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private boolean writePaths;
+  private QueryListener listener = QueryListener.NONE;
+
+  /**
+   * Timing of one batch.
+   */
+  public static class Statistics {
+    private final int numQueries;
+    private final int numSearches;
+    private final long wallNanos;
+    private final long[] sortedLatencies;
+
+    /**
+     * @param numQueries  queries answered
+     * @param numSearches searches run, fewer than the queries if some shared
+     *                    a source
+     * @param wallNanos   elapsed time of the whole batch
+     * @param latencies   time per query in nanoseconds, not modified
+     */
+    public Statistics(int numQueries, int numSearches, long wallNanos, long[] latencies) {
+      this.numQueries = numQueries;
+      this.numSearches = numSearches;
+      this.wallNanos = wallNanos;
+      this.sortedLatencies = latencies.clone();
+      Arrays.sort(sortedLatencies);
+    }
+
+    public int getNumQueries() {
+      return numQueries;
+    }
+
+    public int getNumSearches() {
+      return numSearches;
+    }
+
+    public long getWallNanos() {
+      return wallNanos;
+    }
+
+    public double getQueriesPerSecond() {
+      return wallNanos == 0 ? 0 : numQueries / (wallNanos / 1e9);
+    }
+
+    /**
+     * Returns the latency below which the given fraction of the queries
+     * fall, in nanoseconds, or 0 for an empty batch.
+     */
+    public long getPercentile(double fraction) {
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))];
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Total queries: %d (%d searches)\nWall-clock time: %.3f ms\nThroughput: %.1f queries/s\n"
+              + "Latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+          numQueries, numSearches, wallNanos / 1e6, getQueriesPerSecond(), getPercentile(0.5) / 1e6,
+          getPercentile(0.9) / 1e6, getPercentile(0.99) / 1e6, getPercentile(1) / 1e6);
+    }
+  }
+
+  public BatchQueryRunner(Graph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Sets the pool the groups are spread over. The common pool is used by
+   * default.
+   */
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Whether every result line also lists the vertices of the path.
+   */
+  public void setWritePaths(boolean writePaths) {
+    this.writePaths = writePaths;
+  }
+
+  /**
+   * Sets the listener told about every search, for monitoring.
+   */
+  public void setListener(QueryListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Runs the queries and writes the results to a file.
+   *
+   * @throws IOException if the output cannot be written
+   */
+  public Statistics run(QueryFile queries, String outputFile) throws IOException {
+    try (Writer writer = new BufferedWriter(new FileWriter(outputFile), CHUNK_CHARS)) {
+      return run(queries.getSources(), queries.getDestinations(), writer);
+    }
+  }
+
+  /**
+   * Runs the queries and writes the results to {@code writer}, which is not
+   * closed.
+   *
+   * @throws IllegalArgumentException if a vertex id is out of range or the
+   *                                  arrays differ in length
+   * @throws IOException              if the output cannot be written
+   */
+  public Statistics run(int[] sources, int[] destinations, Writer writer) throws IOException {
+    if (sources.length != destinations.length) {
+      throw new IllegalArgumentException("Need one destination per source");
+    }
+    for (int i = 0; i < sources.length; i++) {
+      checkVertex(sources[i]);
+      checkVertex(destinations[i]);
+    }
+
+    long startTime = System.nanoTime();
+    int[] order = sortBySource(sources);
+    int[] groupStart = groupStarts(sources, order);
+    int numGroups = groupStart.length - 1;
+    long[] latencies = new long[sources.length];
+
+    AtomicInteger nextGroup = new AtomicInteger();
+    Runnable job = () -> {
+      Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+      dijkstra.setStatisticsEnabled(listener.wantsStatistics());
+      StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 256);
+      int[] targets = new int[1];
+      int[] path = writePaths ? new int[graph.getNumVertices()] : null;
+      int g;
+      while ((g = nextGroup.getAndIncrement()) < numGroups) {
+        int from = groupStart[g];
+        int count = groupStart[g + 1] - from;
+        int source = sources[order[from]];
+        if (targets.length != count) {
+          targets = new int[count];
+        }
+        for (int k = 0; k < count; k++) {
+          targets[k] = destinations[order[from + k]];
+        }
+
+        Object context = listener.searchStarting();
+        long searchStart = System.nanoTime();
+        if (count == 1) {
+          dijkstra.findShortestPath(graph, source, targets[0]);
+        } else {
+          dijkstra.findShortestPaths(graph, source, targets);
+        }
+        long searchTime = System.nanoTime() - searchStart;
+        listener.searchFinished(context, dijkstra, source, targets, searchTime);
+
+        for (int k = 0; k < count; k++) {
+          int query = order[from + k];
+          latencies[query] = searchTime;
+          appendResult(chunk, path, dijkstra, source, destinations[query]);
+        }
+        if (chunk.length() >= CHUNK_CHARS) {
+          writeChunk(writer, chunk);
+        }
+      }
+      writeChunk(writer, chunk);
+    };
+
+    try {
+      ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+      for (int w = 0; w < Math.min(pool.getParallelism(), numGroups); w++) {
+        tasks.add(pool.submit(job));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+    return new Statistics(sources.length, numGroups, System.nanoTime() - startTime, latencies);
+  }
+
+  private void checkVertex(int vertexId) {
+    if (vertexId < 0 || vertexId >= graph.getNumVertices()) {
+      throw new IllegalArgumentException("Vertex " + vertexId + " is not in the graph");
+    }
+  }
+
+  /**
+   * Returns the query indices ordered by source, stable within a source.
+   */
+  private int[] sortBySource(int[] sources) {
+    // Counting sort over the vertex ids
+    int[] counts = new int[graph.getNumVertices() + 1];
+    for (int source : sources) {
+      counts[source + 1]++;
+    }
+    for (int v = 0; v < graph.getNumVertices(); v++) {
+      counts[v + 1] += counts[v];
+    }
+    int[] order = new int[sources.length];
+    for (int i = 0; i < sources.length; i++) {
+      order[counts[sources[i]]++] = i;
+    }
+    return order;
+  }
+
+  /**
+   * Returns where each group of equal sources starts in {@code order}, with
+   * one extra trailing entry.
+   */
+  private static int[] groupStarts(int[] sources, int[] order) {
+    int[] starts = new int[sources.length + 1];
+    int numGroups = 0;
+    for (int i = 0; i < order.length; i++) {
+      if (i == 0 || sources[order[i]] != sources[order[i - 1]]) {
+        starts[numGroups++] = i;
+      }
+    }
+    starts[numGroups] = order.length;
+    return Arrays.copyOf(starts, numGroups + 1);
+  }
+
+  private void appendResult(StringBuilder chunk, int[] path, Dijkstra dijkstra, int source, int destination) {
+    chunk.append(source).append(' ').append(destination).append(' ');
+    double distance = dijkstra.getDistance(destination);
+    if (distance == Double.MAX_VALUE) {
+      chunk.append("unreachable\n");
+      return;
+    }
+    chunk.append(String.format("%.2f", distance));
+    if (writePaths) {
+      int length = 0;
+      for (int v = destination; v != -1; v = dijkstra.getPrevious(v)) {
+        path[length++] = v;
+      }
+      // Built backwards from the destination
+      for (int i = length - 1; i >= 0; i--) {
+        chunk.append(' ').append(path[i]);
+      }
+    }
+    chunk.append('\n');
+  }
+
+  private static void writeChunk(Writer writer, StringBuilder chunk) {
+    if (chunk.length() == 0) {
+      return;
+    }
+    synchronized (writer) {
+      try {
+        writer.append(chunk);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    chunk.setLength(0);
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 3 || args.length > 4 || (args.length == 4 && !args[3].equals("--paths"))) {
+      System.err.println("Usage: BatchQueryRunner <graph> <queries> <output> [--paths]");
+      System.exit(2);
+    }
+
+    try {
+      Graph graph = DataProccessor.loadGraph(args[0]);
+      QueryFile queries = QueryFile.read(args[1]);
+      BatchQueryRunner runner = new BatchQueryRunner(graph);
+      runner.setWritePaths(args.length == 4);
+      System.out.println(runner.run(queries, args[2]));
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.data_structures.GenerationStamps;
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.model.Graph;
+
+/**
+ * Point-to-point Dijkstra that grows one search from the source and one from
+ * the destination until they meet.
+ *
+ * The loader stores every edge in both directions, so the backward search
+ * runs over the same arcs as the forward one. Each step expands the side
+ * whose queue minimum is smaller. The best path seen so far through a vertex
+ * labelled by both sides is kept in {@code bestDistance}, and the search stops
+ * once the two queue minimums add up to at least that distance.
+ *
+ * After the search the backward half of the best path is copied into the
+ * forward arrays, so {@link #getDistance} and {@link #reconstructPath} answer
+ * for the destination exactly as {@link Dijkstra} does. Distances of other
+ * vertices are only the forward labels and may not be final.
+ */
+public class BidirectionalDijkstra implements ShortestPathEngine {
+  private double[] forwardDistances;
+  private int[] forwardPrevious;
+  private boolean[] forwardKnown;
+  private double[] backwardDistances;
+  private int[] backwardPrevious;
+  private boolean[] backwardKnown;
+  private final GenerationStamps reached; // Vertices whose entries belong to the current query
+  private IndexedMinHeap forwardQueue;
+  private IndexedMinHeap backwardQueue;
+
+  private double bestDistance;
+  private int meetingVertex;
+
+  // Work of the current query, published when statistics are on
+  private SearchStatistics statistics; // Null while statistics are off
+  private long settled;
+  private long arcsScanned;
+  private long relaxations;
+  private long inserts;
+  private long decreaseKeys;
+
+  public BidirectionalDijkstra(int numVertices) {
+    this(new GenerationStamps(numVertices));
+  }
+
+  /**
+   * Creates a search whose workspace is tracked by the given stamps, one per
+   * vertex, so a test can move their generation on.
+   */
+  BidirectionalDijkstra(GenerationStamps reached) {
+    int numVertices = reached.getCapacity();
+    forwardDistances = new double[numVertices];
+    forwardPrevious = new int[numVertices];
+    forwardKnown = new boolean[numVertices];
+    backwardDistances = new double[numVertices];
+    backwardPrevious = new int[numVertices];
+    backwardKnown = new boolean[numVertices];
+    this.reached = reached;
+    forwardQueue = new IndexedMinHeap(numVertices);
+    backwardQueue = new IndexedMinHeap(numVertices);
+  }
+
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    SearchStatistics stats = statistics;
+    long phaseStart = stats != null ? System.nanoTime() : 0;
+    // Forget the previous query in O(1)
+    reached.advance();
+    forwardQueue.clear();
+    backwardQueue.clear();
+    bestDistance = Double.MAX_VALUE;
+    meetingVertex = -1;
+    settled = 0;
+    arcsScanned = 0;
+    relaxations = 0;
+    inserts = 2;
+    decreaseKeys = 0;
+    if (stats != null) {
+      long now = System.nanoTime();
+      stats.reset();
+      stats.addPhaseNanos(SearchStatistics.Phase.INITIALIZATION, now - phaseStart);
+      phaseStart = now;
+    }
+
+    reach(source);
+    reach(destination);
+    forwardDistances[source] = 0;
+    backwardDistances[destination] = 0;
+    forwardQueue.insertOrDecrease(source, 0);
+    backwardQueue.insertOrDecrease(destination, 0);
+    if (source == destination) {
+      bestDistance = 0;
+      meetingVertex = source;
+    }
+    if (!graph.getComponents().isConnected(source, destination)) {
+      // Unreachable: the searches would settle a whole component first
+      forwardQueue.clear();
+      backwardQueue.clear();
+    }
+
+    while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+      double forwardMin = forwardQueue.peekKey();
+      double backwardMin = backwardQueue.peekKey();
+      if (forwardMin + backwardMin >= bestDistance) {
+        break;
+      }
+
+      if (forwardMin <= backwardMin) {
+        scan(graph, forwardQueue, forwardDistances, forwardPrevious, forwardKnown, backwardDistances);
+      } else {
+        scan(graph, backwardQueue, backwardDistances, backwardPrevious, backwardKnown, forwardDistances);
+      }
+    }
+
+    if (meetingVertex != -1) {
+      spliceBackwardPath(destination);
+    }
+    if (stats != null) {
+      recordQuery(stats);
+      stats.addPhaseNanos(SearchStatistics.Phase.SEARCH, System.nanoTime() - phaseStart);
+    }
+  }
+
+  /**
+   * Publishes the work of the current query. Both sides are added up, and
+   * the peak queue size is that of the two queues together at most.
+   */
+  private void recordQuery(SearchStatistics stats) {
+    stats.recordQuery(settled, arcsScanned, relaxations, inserts, decreaseKeys, settled, 0,
+        forwardQueue.getPeakSize() + backwardQueue.getPeakSize());
+  }
+
+  /**
+   * Settles the next vertex of one side and relaxes its arcs. Whenever a
+   * vertex gets a better label that the other side has also reached, the
+   * path through it is checked against the best one found so far.
+   */
+  private void scan(Graph graph, IndexedMinHeap pq, double[] distances, int[] previous, boolean[] known,
+      double[] otherDistances) {
+    int u = pq.dequeue();
+    known[u] = true;
+    settled++;
+
+    int end = graph.getEdgeEnd(u);
+    arcsScanned += end - graph.getEdgeStart(u);
+    for (int e = graph.getEdgeStart(u); e < end; e++) {
+      int v = graph.getTarget(e);
+      reach(v);
+
+      if (!known[v]) {
+        double newDistance = distances[u] + graph.getWeight(e);
+        if (newDistance < distances[v]) {
+          distances[v] = newDistance;
+          previous[v] = u;
+          countRelaxation(pq, v);
+          pq.insertOrDecrease(v, newDistance);
+
+          if (otherDistances[v] != Double.MAX_VALUE && newDistance + otherDistances[v] < bestDistance) {
+            bestDistance = newDistance + otherDistances[v];
+            meetingVertex = v;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Walks the backward tree from the meeting vertex to the destination and
+   * links those vertices into the forward tree.
+   */
+  private void spliceBackwardPath(int destination) {
+    int current = meetingVertex;
+    while (current != destination) {
+      int next = backwardPrevious[current];
+      forwardDistances[next] = bestDistance - backwardDistances[next];
+      forwardPrevious[next] = current;
+      current = next;
+    }
+  }
+
+  /**
+   * Counts an improved label, telling inserts from decrease-keys only when
+   * statistics are on.
+   */
+  private void countRelaxation(IndexedMinHeap pq, int v) {
+    relaxations++;
+    if (statistics != null) {
+      if (pq.contains(v)) {
+        decreaseKeys++;
+      } else {
+        inserts++;
+      }
+    }
+  }
+
+  /**
+   * Resets the entries of a vertex the first time the current query reaches
+   * it from either side.
+   */
+  private void reach(int vertexId) {
+    if (reached.stamp(vertexId)) {
+      forwardDistances[vertexId] = Double.MAX_VALUE;
+      forwardPrevious[vertexId] = -1;
+      forwardKnown[vertexId] = false;
+      backwardDistances[vertexId] = Double.MAX_VALUE;
+      backwardPrevious[vertexId] = -1;
+      backwardKnown[vertexId] = false;
+    }
+  }
+
+  /**
+   * Returns the length of the shortest path found by the last query, or
+   * {@code Double.MAX_VALUE} if the vertices are not connected.
+   */
+  public double getBestDistance() {
+    return bestDistance;
+  }
+
+  public int getMeetingVertex() {
+    return meetingVertex;
+  }
+
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    statistics = enabled ? new SearchStatistics() : null;
+  }
+
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public double getDistance(int vertexId) {
+    return reached.isStamped(vertexId) ? forwardDistances[vertexId] : Double.MAX_VALUE;
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return reached.isStamped(vertexId) ? forwardPrevious[vertexId] : -1;
+  }
+}
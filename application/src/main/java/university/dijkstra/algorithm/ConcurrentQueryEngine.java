@@ -0,0 +1,300 @@
+package university.dijkstra.algorithm;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+
+/**
+ * Answers shortest path queries from many threads at once.
+ *
+ * A {@link ShortestPathEngine} keeps its distances, predecessors and queue
+ * between queries, so one instance can only run one query at a time. This
+ * class shares one immutable {@link Graph} and leases engines, the search
+ * workspaces, from a pool. Workspaces are created on demand up to a fixed
+ * limit and then reused, so memory stays bounded no matter how many queries
+ * are in flight: a caller that finds the pool empty and at its limit waits
+ * for a workspace to be returned.
+ *
+ * {@link #submit} runs a query on the engine's own worker threads and
+ * completes a future with a {@link Result}. {@link #query} runs it on the
+ * calling thread. The result is copied out of the workspace before the
+ * workspace goes back to the pool.
+ *
+ * The pool's usage is reported to the {@link QueryListener}, if one is set.
+ * The queries themselves can be watched by a factory that wraps the engines
+ * it creates.
+ */
+public class ConcurrentQueryEngine implements AutoCloseable {
+  private final Graph graph;
+  private final Function<Graph, ShortestPathEngine> factory;
+  private final ArrayBlockingQueue<ShortestPathEngine> idleWorkspaces;
+  private final AtomicInteger numWorkspaces = new AtomicInteger();
+  private final int maxWorkspaces;
+  private final ExecutorService executor;
+  private QueryListener listener = QueryListener.NONE;
+
+  /**
+   * The outcome of one query, independent of the workspace that computed it.
+   */
+  public static final class Result {
+    private final int source;
+    private final int destination;
+    private final double distance;
+    private final int[] path;
+
+    Result(int source, int destination, double distance, int[] path) {
+      this.source = source;
+      this.destination = destination;
+      this.distance = distance;
+      this.path = path;
+    }
+
+    public int getSource() {
+      return source;
+    }
+
+    public int getDestination() {
+      return destination;
+    }
+
+    /**
+     * Returns the shortest distance, or {@code Double.MAX_VALUE} if the
+     * destination is unreachable.
+     */
+    public double getDistance() {
+      return distance;
+    }
+
+    public boolean isReachable() {
+      return path != null;
+    }
+
+    /**
+     * Returns the vertices from source to destination, or null if there is
+     * no path. The array is shared and must not be modified.
+     */
+    public int[] getPath() {
+      return path;
+    }
+
+    @Override
+    public String toString() {
+      return isReachable()
+          ? String.format("%d -> %d: %.2f over %d vertices", source, destination, distance, path.length)
+          : String.format("%d -> %d: unreachable", source, destination);
+    }
+  }
+
+  /**
+   * Creates an engine running plain Dijkstra on one thread per processor.
+   */
+  public ConcurrentQueryEngine(Graph graph) {
+    this(graph, Runtime.getRuntime().availableProcessors(), g -> new Dijkstra(g.getNumVertices()));
+  }
+
+  /**
+   * @param graph      the graph shared by all queries
+   * @param numThreads worker threads for {@link #submit}, which is also the
+   *                   number of workspaces kept at most
+   * @param factory    creates one workspace for the graph, for example
+   *                   {@code g -> new Dijkstra(g.getNumVertices())}. Data the
+   *                   workspaces share, such as a landmark table or a
+   *                   hierarchy, must not be modified by queries.
+   * @throws IllegalArgumentException if numThreads is less than 1
+   */
+  public ConcurrentQueryEngine(Graph graph, int numThreads, Function<Graph, ShortestPathEngine> factory) {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Need at least one thread");
+    }
+    this.graph = graph;
+    this.factory = factory;
+    this.maxWorkspaces = numThreads;
+    this.idleWorkspaces = new ArrayBlockingQueue<>(numThreads);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+      Thread thread = new Thread(runnable, "query-worker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Queues a query for the worker threads.
+   *
+   * @return a future completed with the result, or exceptionally if the
+   *         search fails
+   * @throws IllegalArgumentException if a vertex id is out of range
+   */
+  public CompletableFuture<Result> submit(int source, int destination) {
+    checkVertex(source);
+    checkVertex(destination);
+    return CompletableFuture.supplyAsync(() -> run(source, destination), executor);
+  }
+
+  /**
+   * Runs a query on the calling thread, waiting for a free workspace if all
+   * of them are leased.
+   *
+   * @throws IllegalArgumentException if a vertex id is out of range
+   */
+  public Result query(int source, int destination) {
+    checkVertex(source);
+    checkVertex(destination);
+    return run(source, destination);
+  }
+
+  /**
+   * Sets the listener told about the workspaces being created, leased and
+   * returned, for monitoring. Must be called before the first query.
+   */
+  public void setListener(QueryListener listener) {
+    this.listener = listener;
+  }
+
+  public Graph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns how many workspaces have been created so far, at most the
+   * number of threads.
+   */
+  public int getNumWorkspaces() {
+    return numWorkspaces.get();
+  }
+
+  /**
+   * Stops the worker threads after the queries already submitted.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private void checkVertex(int vertexId) {
+    if (vertexId < 0 || vertexId >= graph.getNumVertices()) {
+      throw new IllegalArgumentException("Vertex " + vertexId + " is not in the graph");
+    }
+  }
+
+  private Result run(int source, int destination) {
+    ShortestPathEngine engine = lease();
+    listener.workspaceLeased();
+    try {
+      engine.findShortestPath(graph, source, destination);
+      return new Result(source, destination, engine.getDistance(destination),
+          extractPath(engine, source, destination));
+    } finally {
+      listener.workspaceReturned();
+      idleWorkspaces.offer(engine);
+    }
+  }
+
+  private ShortestPathEngine lease() {
+    ShortestPathEngine engine = idleWorkspaces.poll();
+    if (engine != null) {
+      return engine;
+    }
+    while (true) {
+      int created = numWorkspaces.get();
+      if (created >= maxWorkspaces) {
+        break;
+      }
+      if (numWorkspaces.compareAndSet(created, created + 1)) {
+        try {
+          ShortestPathEngine workspace = factory.apply(graph);
+          listener.workspaceCreated();
+          return workspace;
+        } catch (RuntimeException | Error e) {
+          numWorkspaces.decrementAndGet(); // Let a later caller try again
+          throw e;
+        }
+      }
+    }
+    try {
+      return idleWorkspaces.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a workspace", e);
+    }
+  }
+
+  /**
+   * Copies the predecessor chain into an array, or returns null if the
+   * destination was not reached.
+   */
+  private static int[] extractPath(ShortestPathEngine engine, int source, int destination) {
+    if (engine.getDistance(destination) == Double.MAX_VALUE) {
+      return null;
+    }
+    int length = 1;
+    for (int v = destination; v != source; v = engine.getPrevious(v)) {
+      length++;
+    }
+    int[] path = new int[length];
+    int v = destination;
+    for (int i = length - 1; i >= 0; i--) {
+      path[i] = v;
+      v = engine.getPrevious(v);
+    }
+    return path;
+  }
+
+  /**
+   * Measures the throughput of random Dijkstra queries for 1, 2, 4, ... up to
+   * the number of processors.
+   */
+  public static void main(String[] args) {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: ConcurrentQueryEngine <graph> [queries]");
+      System.exit(2);
+    }
+    int numQueries = args.length == 2 ? Integer.parseInt(args[1]) : 1000;
+
+    try {
+      Graph graph = DataProccessor.loadGraph(args[0]);
+      Random random = new Random(42);
+      int[] sources = new int[numQueries];
+      int[] destinations = new int[numQueries];
+      for (int i = 0; i < numQueries; i++) {
+        sources[i] = random.nextInt(graph.getNumVertices());
+        destinations[i] = random.nextInt(graph.getNumVertices());
+      }
+
+      int processors = Runtime.getRuntime().availableProcessors();
+      double baseline = 0;
+      for (int threads = 1;; threads = Math.min(threads * 2, processors)) {
+        try (ConcurrentQueryEngine engine = new ConcurrentQueryEngine(graph, threads,
+            g -> new Dijkstra(g.getNumVertices()))) {
+          long startTime = System.nanoTime();
+          CompletableFuture<?>[] futures = new CompletableFuture<?>[numQueries];
+          for (int i = 0; i < numQueries; i++) {
+            futures[i] = engine.submit(sources[i], destinations[i]);
+          }
+          CompletableFuture.allOf(futures).join();
+          double seconds = (System.nanoTime() - startTime) / 1e9;
+          double throughput = numQueries / seconds;
+          if (threads == 1) {
+            baseline = throughput;
+          }
+          System.out.printf("%2d threads: %.0f queries/s (%.2fx), %d workspaces\n", threads, throughput,
+              throughput / baseline, engine.getNumWorkspaces());
+        }
+        if (threads == processors) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Error loading graph: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
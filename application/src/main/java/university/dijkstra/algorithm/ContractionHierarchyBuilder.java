@@ -0,0 +1,433 @@
+package university.dijkstra.algorithm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.io.ContractionHierarchyFile;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.ContractionHierarchy;
+import university.dijkstra.model.Graph;
+
+/**
+ * Builds a {@link ContractionHierarchy} by contracting the vertices of a graph
+ * one at a time.
+ *
+ * Contracting a vertex {@code v} removes it from the remaining graph. For
+ * every pair of its neighbours {@code u, w} a shortcut {@code u - w} is added
+ * unless a witness search, a small Dijkstra from {@code u} that avoids
+ * {@code v}, finds a path that is no longer than {@code u - v - w}. The arcs
+ * that {@code v} still has at that moment all lead to later vertices and
+ * become its upward arcs.
+ *
+ * Vertices are picked lazily by priority: the number of shortcuts the
+ * contraction would add, minus the arcs it removes, plus the number of
+ * neighbours already contracted. The popped vertex is re-evaluated and put
+ * back if it is no longer the best choice.
+ */
+public class ContractionHierarchyBuilder {
+  private static final int DEFAULT_WITNESS_SETTLE_LIMIT = 100;
+  private static final int INITIAL_ADJACENCY = 4;
+
+  /**
+   * Preprocessing figures of the last {@link ContractionHierarchyBuilder#build}
+   * call.
+   */
+  public static class Statistics {
+    private final int numVertices;
+    private final int numOriginalArcs;
+    private final int numShortcuts;
+    private final long witnessSearches;
+    private final long buildNanos;
+
+    Statistics(int numVertices, int numOriginalArcs, int numShortcuts, long witnessSearches, long buildNanos) {
+      this.numVertices = numVertices;
+      this.numOriginalArcs = numOriginalArcs;
+      this.numShortcuts = numShortcuts;
+      this.witnessSearches = witnessSearches;
+      this.buildNanos = buildNanos;
+    }
+
+    public int getNumVertices() {
+      return numVertices;
+    }
+
+    /**
+     * Returns the number of original upward arcs, one per undirected edge.
+     */
+    public int getNumOriginalArcs() {
+      return numOriginalArcs;
+    }
+
+    public int getNumShortcuts() {
+      return numShortcuts;
+    }
+
+    public long getWitnessSearches() {
+      return witnessSearches;
+    }
+
+    public long getBuildNanos() {
+      return buildNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d vertices, %d edges, %d shortcuts (%.2f per edge), %d witness searches in %.1f ms",
+          numVertices, numOriginalArcs, numShortcuts, numShortcuts / (double) Math.max(1, numOriginalArcs),
+          witnessSearches, buildNanos / 1e6);
+    }
+  }
+
+  private int witnessSettleLimit = DEFAULT_WITNESS_SETTLE_LIMIT;
+  private Statistics lastStatistics;
+
+  // The remaining graph. Each undirected edge is stored at both endpoints and
+  // contracted vertices are removed from their neighbours' lists.
+  private int[][] neighbors;
+  private double[][] edgeWeights;
+  private int[][] edgeMiddles;
+  private int[] degree;
+  private boolean[] contracted;
+  private int[] contractedNeighbors;
+
+  // Upward arcs, filled as vertices are contracted
+  private int[][] upTargets;
+  private double[][] upWeights;
+  private int[][] upMiddles;
+
+  // Witness search workspace
+  private double[] witnessDistances;
+  private int[] touched;
+  private int numTouched;
+  private IndexedMinHeap witnessQueue;
+  private long witnessSearches;
+
+  /**
+   * Sets how many vertices a witness search may settle before giving up. A
+   * lower limit preprocesses faster but may add shortcuts that are not needed;
+   * the hierarchy stays correct either way.
+   */
+  public void setWitnessSettleLimit(int witnessSettleLimit) {
+    if (witnessSettleLimit < 1) {
+      throw new IllegalArgumentException("Witness settle limit must be at least 1");
+    }
+    this.witnessSettleLimit = witnessSettleLimit;
+  }
+
+  /**
+   * Returns the statistics of the last build, or null if nothing was built yet.
+   */
+  public Statistics getLastStatistics() {
+    return lastStatistics;
+  }
+
+  /**
+   * Contracts every vertex of the graph and returns the hierarchy.
+   */
+  public ContractionHierarchy build(Graph graph) {
+    long startTime = System.nanoTime();
+    int numVertices = graph.getNumVertices();
+    initialize(graph);
+
+    int numOriginalArcs = 0;
+    for (int v = 0; v < numVertices; v++) {
+      numOriginalArcs += degree[v];
+    }
+    numOriginalArcs /= 2;
+
+    IndexedMinHeap order = new IndexedMinHeap(numVertices);
+    for (int v = 0; v < numVertices; v++) {
+      order.insertOrDecrease(v, priority(v));
+    }
+
+    int[] ranks = new int[numVertices];
+    int nextRank = 0;
+    while (!order.isEmpty()) {
+      int v = order.dequeue();
+      // Lazy update: the stored priority may be out of date
+      double currentPriority = priority(v);
+      if (!order.isEmpty() && currentPriority > order.peekKey()) {
+        order.insertOrDecrease(v, currentPriority);
+        continue;
+      }
+      ranks[v] = nextRank++;
+      contract(v);
+    }
+
+    ContractionHierarchy hierarchy = pack(ranks);
+    lastStatistics = new Statistics(numVertices, numOriginalArcs, hierarchy.getNumShortcuts(), witnessSearches,
+        System.nanoTime() - startTime);
+    release();
+    return hierarchy;
+  }
+
+  private void initialize(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    neighbors = new int[numVertices][];
+    edgeWeights = new double[numVertices][];
+    edgeMiddles = new int[numVertices][];
+    degree = new int[numVertices];
+    contracted = new boolean[numVertices];
+    contractedNeighbors = new int[numVertices];
+    upTargets = new int[numVertices][];
+    upWeights = new double[numVertices][];
+    upMiddles = new int[numVertices][];
+    witnessDistances = new double[numVertices];
+    Arrays.fill(witnessDistances, Double.MAX_VALUE);
+    touched = new int[numVertices];
+    numTouched = 0;
+    witnessQueue = new IndexedMinHeap(numVertices);
+    witnessSearches = 0;
+
+    for (int v = 0; v < numVertices; v++) {
+      int capacity = Math.max(INITIAL_ADJACENCY, graph.getDegree(v));
+      neighbors[v] = new int[capacity];
+      edgeWeights[v] = new double[capacity];
+      edgeMiddles[v] = new int[capacity];
+    }
+    // Every edge already appears as an arc at both endpoints. Parallel edges
+    // are merged and self-loops can never be on a shortest path.
+    for (int u = 0; u < numVertices; u++) {
+      for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+        int v = graph.getTarget(e);
+        if (v != u) {
+          addOrImprove(u, v, graph.getWeight(e), -1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Priority of a vertex for the contraction order; lower is contracted first.
+   */
+  private double priority(int v) {
+    int shortcuts = processNeighbors(v, false);
+    return shortcuts - degree[v] + contractedNeighbors[v];
+  }
+
+  private void contract(int v) {
+    int count = degree[v];
+    upTargets[v] = Arrays.copyOf(neighbors[v], count);
+    upWeights[v] = Arrays.copyOf(edgeWeights[v], count);
+    upMiddles[v] = Arrays.copyOf(edgeMiddles[v], count);
+
+    processNeighbors(v, true);
+
+    contracted[v] = true;
+    for (int i = 0; i < count; i++) {
+      int u = upTargets[v][i];
+      removeArc(u, v);
+      contractedNeighbors[u]++;
+    }
+    neighbors[v] = null;
+    edgeWeights[v] = null;
+    edgeMiddles[v] = null;
+    degree[v] = 0;
+  }
+
+  /**
+   * Runs the witness searches around {@code v} and counts the shortcuts its
+   * contraction needs, adding them to the remaining graph if asked to.
+   */
+  private int processNeighbors(int v, boolean addShortcuts) {
+    int count = degree[v];
+    // Work on copies, adding shortcuts changes the neighbours' arrays
+    int[] around = Arrays.copyOf(neighbors[v], count);
+    double[] aroundWeights = Arrays.copyOf(edgeWeights[v], count);
+    int shortcuts = 0;
+
+    for (int i = 0; i < count - 1; i++) {
+      int u = around[i];
+      double maxDistance = 0;
+      for (int j = i + 1; j < count; j++) {
+        maxDistance = Math.max(maxDistance, aroundWeights[i] + aroundWeights[j]);
+      }
+
+      witnessSearch(u, v, maxDistance);
+      for (int j = i + 1; j < count; j++) {
+        int w = around[j];
+        double via = aroundWeights[i] + aroundWeights[j];
+        if (witnessDistances[w] > via) {
+          shortcuts++;
+          if (addShortcuts) {
+            addOrImprove(u, w, via, v);
+            addOrImprove(w, u, via, v);
+          }
+        }
+      }
+      clearWitnessSearch();
+    }
+    return shortcuts;
+  }
+
+  /**
+   * Dijkstra from {@code source} in the remaining graph without
+   * {@code excluded}, stopping beyond {@code maxDistance} or after the settle
+   * limit. Distances it did not prove stay as upper bounds, which can only
+   * cause extra shortcuts.
+   */
+  private void witnessSearch(int source, int excluded, double maxDistance) {
+    witnessSearches++;
+    witnessQueue.clear();
+    witnessDistances[source] = 0;
+    touched[numTouched++] = source;
+    witnessQueue.insertOrDecrease(source, 0);
+    int settled = 0;
+
+    while (!witnessQueue.isEmpty()) {
+      int u = witnessQueue.dequeue();
+      double distance = witnessDistances[u];
+      if (distance > maxDistance || ++settled > witnessSettleLimit) {
+        break;
+      }
+      for (int i = 0; i < degree[u]; i++) {
+        int x = neighbors[u][i];
+        if (x == excluded) {
+          continue;
+        }
+        double newDistance = distance + edgeWeights[u][i];
+        if (newDistance < witnessDistances[x]) {
+          if (witnessDistances[x] == Double.MAX_VALUE) {
+            touched[numTouched++] = x;
+          }
+          witnessDistances[x] = newDistance;
+          witnessQueue.insertOrDecrease(x, newDistance);
+        }
+      }
+    }
+  }
+
+  private void clearWitnessSearch() {
+    for (int i = 0; i < numTouched; i++) {
+      witnessDistances[touched[i]] = Double.MAX_VALUE;
+    }
+    numTouched = 0;
+  }
+
+  /**
+   * Adds the arc {@code u -> v}, or lowers its weight if it already exists.
+   */
+  private void addOrImprove(int u, int v, double weight, int middle) {
+    for (int i = 0; i < degree[u]; i++) {
+      if (neighbors[u][i] == v) {
+        if (weight < edgeWeights[u][i]) {
+          edgeWeights[u][i] = weight;
+          edgeMiddles[u][i] = middle;
+        }
+        return;
+      }
+    }
+    if (degree[u] == neighbors[u].length) {
+      int newCapacity = neighbors[u].length * 2;
+      neighbors[u] = Arrays.copyOf(neighbors[u], newCapacity);
+      edgeWeights[u] = Arrays.copyOf(edgeWeights[u], newCapacity);
+      edgeMiddles[u] = Arrays.copyOf(edgeMiddles[u], newCapacity);
+    }
+    neighbors[u][degree[u]] = v;
+    edgeWeights[u][degree[u]] = weight;
+    edgeMiddles[u][degree[u]] = middle;
+    degree[u]++;
+  }
+
+  private void removeArc(int u, int v) {
+    for (int i = 0; i < degree[u]; i++) {
+      if (neighbors[u][i] == v) {
+        int last = --degree[u];
+        neighbors[u][i] = neighbors[u][last];
+        edgeWeights[u][i] = edgeWeights[u][last];
+        edgeMiddles[u][i] = edgeMiddles[u][last];
+        return;
+      }
+    }
+  }
+
+  private ContractionHierarchy pack(int[] ranks) {
+    int numVertices = ranks.length;
+    int[] offsets = new int[numVertices + 1];
+    for (int v = 0; v < numVertices; v++) {
+      offsets[v + 1] = offsets[v] + upTargets[v].length;
+    }
+    int numArcs = offsets[numVertices];
+    int[] targets = new int[numArcs];
+    double[] weights = new double[numArcs];
+    int[] middles = new int[numArcs];
+    for (int v = 0; v < numVertices; v++) {
+      System.arraycopy(upTargets[v], 0, targets, offsets[v], upTargets[v].length);
+      System.arraycopy(upWeights[v], 0, weights, offsets[v], upWeights[v].length);
+      System.arraycopy(upMiddles[v], 0, middles, offsets[v], upMiddles[v].length);
+    }
+    return new ContractionHierarchy(ranks, offsets, targets, weights, middles);
+  }
+
+  private void release() {
+    neighbors = null;
+    edgeWeights = null;
+    edgeMiddles = null;
+    degree = null;
+    contracted = null;
+    contractedNeighbors = null;
+    upTargets = null;
+    upWeights = null;
+    upMiddles = null;
+    witnessDistances = null;
+    touched = null;
+    witnessQueue = null;
+  }
+
+  /**
+   * Builds a hierarchy for a graph file, writes it, and compares random
+   * queries against plain {@link Dijkstra}.
+   *
+   * Usage: {@code ContractionHierarchyBuilder <graph> <output.ch> [queries]}
+   */
+  public static void main(String[] args) {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: ContractionHierarchyBuilder <graph> <output.ch> [queries]");
+      System.exit(2);
+    }
+    int numQueries = args.length == 3 ? Integer.parseInt(args[2]) : 1000;
+
+    try {
+      Graph graph = DataProccessor.loadGraph(args[0]);
+      ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder();
+      ContractionHierarchy hierarchy = builder.build(graph);
+      System.out.println(builder.getLastStatistics());
+      ContractionHierarchyFile.write(hierarchy, args[1]);
+
+      Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+      ContractionHierarchyQuery query = new ContractionHierarchyQuery(hierarchy);
+      Random random = new Random(42);
+      long dijkstraTime = 0;
+      long hierarchyTime = 0;
+      int mismatches = 0;
+      for (int i = 0; i < numQueries; i++) {
+        int source = random.nextInt(graph.getNumVertices());
+        int destination = random.nextInt(graph.getNumVertices());
+
+        long startTime = System.nanoTime();
+        dijkstra.findShortestPath(graph, source, destination);
+        dijkstraTime += System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        query.findShortestPath(graph, source, destination);
+        hierarchyTime += System.nanoTime() - startTime;
+
+        double expected = dijkstra.getDistance(destination);
+        double actual = query.getDistance(destination);
+        if (Math.abs(expected - actual) > 1e-6 * Math.max(1, expected)) {
+          mismatches++;
+        }
+      }
+
+      System.out.printf("Dijkstra: %.3f ms per query\n", dijkstraTime / 1e6 / numQueries);
+      System.out.printf("Contraction hierarchy: %.3f ms per query\n", hierarchyTime / 1e6 / numQueries);
+      System.out.printf("Speed-up: %.1fx, %d mismatches in %d queries\n",
+          dijkstraTime / (double) Math.max(1, hierarchyTime), mismatches, numQueries);
+    } catch (IOException e) {
+      System.err.println("Error building contraction hierarchy: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.data_structures.GenerationStamps;
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.data_structures.List;
+import university.dijkstra.model.ContractionHierarchy;
+import university.dijkstra.model.Graph;
+
+/**
+ * Point-to-point queries on a {@link ContractionHierarchy}.
+ *
+ * Both the forward search from the source and the backward search from the
+ * destination only follow upward arcs, so each one settles a few hundred
+ * vertices instead of a whole region. A side stops once its queue minimum
+ * reaches the best meeting distance found so far.
+ *
+ * The shortcuts on the best path are then unpacked into original edges, and
+ * the real vertex sequence is written to the distance and predecessor arrays.
+ * {@link #getDistance} is therefore only meaningful for vertices on that path,
+ * which includes the destination.
+ */
+public class ContractionHierarchyQuery implements ShortestPathEngine {
+  private final ContractionHierarchy hierarchy;
+
+  private double[] forwardDistances;
+  private int[] forwardArcs; // Upward arc that reached each vertex, -1 at the source
+  private double[] backwardDistances;
+  private int[] backwardArcs;
+  private final GenerationStamps reached; // Vertices whose entries belong to the current query
+  private IndexedMinHeap forwardQueue;
+  private IndexedMinHeap backwardQueue;
+
+  // The unpacked result
+  private double[] distances;
+  private int[] previous;
+
+  private double bestDistance;
+  private int meetingVertex;
+
+  // Work of the current query, published when statistics are on
+  private SearchStatistics statistics; // Null while statistics are off
+  private long settled;
+  private long arcsScanned;
+  private long relaxations;
+  private long inserts;
+  private long decreaseKeys;
+
+  public ContractionHierarchyQuery(ContractionHierarchy hierarchy) {
+    this(hierarchy, new GenerationStamps(hierarchy.getNumVertices()));
+  }
+
+  /**
+   * Creates a query whose workspace is tracked by the given stamps, one per
+   * vertex of the hierarchy, so a test can move their generation on.
+   */
+  ContractionHierarchyQuery(ContractionHierarchy hierarchy, GenerationStamps reached) {
+    this.hierarchy = hierarchy;
+    int numVertices = hierarchy.getNumVertices();
+    forwardDistances = new double[numVertices];
+    forwardArcs = new int[numVertices];
+    backwardDistances = new double[numVertices];
+    backwardArcs = new int[numVertices];
+    this.reached = reached;
+    forwardQueue = new IndexedMinHeap(numVertices);
+    backwardQueue = new IndexedMinHeap(numVertices);
+    distances = new double[numVertices];
+    previous = new int[numVertices];
+  }
+
+  public ContractionHierarchy getHierarchy() {
+    return hierarchy;
+  }
+
+  /**
+   * Finds a shortest path using the hierarchy. The graph must be the one the
+   * hierarchy was built from; only the hierarchy's arcs are read.
+   */
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    SearchStatistics stats = statistics;
+    long phaseStart = stats != null ? System.nanoTime() : 0;
+    // Forget the previous query in O(1)
+    reached.advance();
+    forwardQueue.clear();
+    backwardQueue.clear();
+    bestDistance = Double.MAX_VALUE;
+    meetingVertex = -1;
+    settled = 0;
+    arcsScanned = 0;
+    relaxations = 0;
+    inserts = 2;
+    decreaseKeys = 0;
+    if (stats != null) {
+      long now = System.nanoTime();
+      stats.reset();
+      stats.addPhaseNanos(SearchStatistics.Phase.INITIALIZATION, now - phaseStart);
+      phaseStart = now;
+    }
+
+    reach(source);
+    reach(destination);
+    forwardDistances[source] = 0;
+    backwardDistances[destination] = 0;
+    forwardQueue.insertOrDecrease(source, 0);
+    backwardQueue.insertOrDecrease(destination, 0);
+    if (source == destination) {
+      bestDistance = 0;
+      meetingVertex = source;
+    }
+    if (!graph.getComponents().isConnected(source, destination)) {
+      // Unreachable: the searches would settle a whole component first
+      forwardQueue.clear();
+      backwardQueue.clear();
+    }
+
+    while (true) {
+      boolean forwardDone = forwardQueue.isEmpty() || forwardQueue.peekKey() >= bestDistance;
+      boolean backwardDone = backwardQueue.isEmpty() || backwardQueue.peekKey() >= bestDistance;
+      if (forwardDone && backwardDone) {
+        break;
+      }
+
+      if (backwardDone || (!forwardDone && forwardQueue.peekKey() <= backwardQueue.peekKey())) {
+        scan(forwardQueue, forwardDistances, forwardArcs, backwardDistances);
+      } else {
+        scan(backwardQueue, backwardDistances, backwardArcs, forwardDistances);
+      }
+    }
+
+    if (stats != null) {
+      long now = System.nanoTime();
+      recordQuery(stats);
+      stats.addPhaseNanos(SearchStatistics.Phase.SEARCH, now - phaseStart);
+      phaseStart = now;
+    }
+
+    if (meetingVertex != -1) {
+      unpackPath(source, destination);
+    }
+    if (stats != null) {
+      stats.addPhaseNanos(SearchStatistics.Phase.UNPACKING, System.nanoTime() - phaseStart);
+    }
+  }
+
+  /**
+   * Publishes the work of the current query. Both sides are added up, and
+   * the peak queue size is that of the two queues together at most.
+   */
+  private void recordQuery(SearchStatistics stats) {
+    stats.recordQuery(settled, arcsScanned, relaxations, inserts, decreaseKeys, settled, 0,
+        forwardQueue.getPeakSize() + backwardQueue.getPeakSize());
+  }
+
+  /**
+   * Settles the next vertex of one side and relaxes its upward arcs.
+   */
+  private void scan(IndexedMinHeap pq, double[] sideDistances, int[] sideArcs, double[] otherDistances) {
+    int u = pq.dequeue();
+    settled++;
+
+    int end = hierarchy.getEdgeEnd(u);
+    arcsScanned += end - hierarchy.getEdgeStart(u);
+    for (int e = hierarchy.getEdgeStart(u); e < end; e++) {
+      int v = hierarchy.getTarget(e);
+      reach(v);
+      double newDistance = sideDistances[u] + hierarchy.getWeight(e);
+      if (newDistance < sideDistances[v]) {
+        sideDistances[v] = newDistance;
+        sideArcs[v] = e;
+        countRelaxation(pq, v);
+        pq.insertOrDecrease(v, newDistance);
+
+        if (otherDistances[v] != Double.MAX_VALUE && newDistance + otherDistances[v] < bestDistance) {
+          bestDistance = newDistance + otherDistances[v];
+          meetingVertex = v;
+        }
+      }
+    }
+  }
+
+  /**
+   * Expands the packed path source - meeting vertex - destination into
+   * original edges and records it in {@code distances} and {@code previous}.
+   * The distances are summed edge by edge from the source, the same way
+   * {@link Dijkstra} sums them.
+   */
+  private void unpackPath(int source, int destination) {
+    // Packed forward half, collected from the meeting vertex down to the source
+    List<Integer> forwardHalf = new List<>();
+    int current = meetingVertex;
+    while (current != source) {
+      forwardHalf.add(current);
+      current = arcSource(forwardArcs[current]);
+    }
+
+    distances[source] = 0;
+    int last = source;
+    List.Node<Integer> node = forwardHalf.getTail();
+    while (node != null) {
+      int next = node.getData();
+      last = unpackArc(last, next, forwardArcs[next]);
+      node = node.getPrevious();
+    }
+
+    // Packed backward half, walked from the meeting vertex up to the
+    // destination in path order
+    current = meetingVertex;
+    while (current != destination) {
+      int arc = backwardArcs[current];
+      int next = arcSource(arc);
+      last = unpackArc(last, next, arc);
+      current = next;
+    }
+  }
+
+  /**
+   * Appends the original vertices of the arc between {@code from} and
+   * {@code to}, excluding {@code from}, and returns {@code to}.
+   */
+  private int unpackArc(int from, int to, int arc) {
+    int middle = hierarchy.getMiddle(arc);
+    if (middle == -1) {
+      reach(to); // A shortcut's middle vertices may not have been searched
+      distances[to] = distances[from] + hierarchy.getWeight(arc);
+      previous[to] = from;
+      return to;
+    }
+    // Both halves of a shortcut are upward arcs of its middle vertex
+    unpackArc(from, middle, hierarchy.findArc(middle, from));
+    return unpackArc(middle, to, hierarchy.findArc(middle, to));
+  }
+
+  /**
+   * Returns the vertex that owns the given upward arc. Arc indices are sorted
+   * by owner, so a binary search over the offsets finds it.
+   */
+  private int arcSource(int arc) {
+    int low = 0;
+    int high = hierarchy.getNumVertices() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (hierarchy.getEdgeStart(mid) <= arc) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Counts an improved label, telling inserts from decrease-keys only when
+   * statistics are on.
+   */
+  private void countRelaxation(IndexedMinHeap pq, int v) {
+    relaxations++;
+    if (statistics != null) {
+      if (pq.contains(v)) {
+        decreaseKeys++;
+      } else {
+        inserts++;
+      }
+    }
+  }
+
+  /**
+   * Resets the entries of a vertex the first time the current query reaches
+   * it.
+   */
+  private void reach(int vertexId) {
+    if (reached.stamp(vertexId)) {
+      forwardDistances[vertexId] = Double.MAX_VALUE;
+      forwardArcs[vertexId] = -1;
+      backwardDistances[vertexId] = Double.MAX_VALUE;
+      backwardArcs[vertexId] = -1;
+      distances[vertexId] = Double.MAX_VALUE;
+      previous[vertexId] = -1;
+    }
+  }
+
+  /**
+   * Returns the length of the shortest path as summed over the hierarchy's
+   * arcs, or {@code Double.MAX_VALUE} if the vertices are not connected.
+   */
+  public double getBestDistance() {
+    return bestDistance;
+  }
+
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    statistics = enabled ? new SearchStatistics() : null;
+  }
+
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public double getDistance(int vertexId) {
+    return reached.isStamped(vertexId) ? distances[vertexId] : Double.MAX_VALUE;
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return reached.isStamped(vertexId) ? previous[vertexId] : -1;
+  }
+}
@@ -0,0 +1,515 @@
+package university.dijkstra.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer and
+ * Sanders), for one-to-all searches that would keep a single core busy with
+ * {@link Dijkstra}.
+ *
+ * Vertices are kept in buckets of tentative distance {@code [i * delta,
+ * (i + 1) * delta)}. The lowest bucket is emptied in rounds: its vertices
+ * relax their light arcs, of weight at most delta, in parallel, and vertices
+ * that improve into the same bucket come back for another round. Once the
+ * bucket stays empty, the heavy arcs of all vertices it held are relaxed
+ * once. A small delta does little wasted work but many rounds, a large one
+ * the opposite; {@link #suggestDelta} gives a starting point.
+ *
+ * Distances are lowered with a compare-and-set on their bits, which order
+ * like the values for non-negative doubles. They end up exactly equal to
+ * those of {@link Dijkstra}. Predecessors are picked afterwards in a
+ * parallel pass: of the neighbours whose distance plus the arc gives the
+ * vertex's distance, the closest to the source, which is the one Dijkstra
+ * settles first. Only between neighbours at the very same distance may the
+ * choice differ. A vertex whose closest such neighbour is at its own
+ * distance, over an arc of weight zero between vertices on the same
+ * coordinates, could end up in a cycle of predecessors that way. These
+ * vertices are left to a sequential pass instead, which links them by a
+ * breadth-first search over the zero arcs starting from the vertices whose
+ * predecessors are known. The passes use the arcs leaving a vertex as the
+ * arcs into it, so the graph must store every edge in both directions, as
+ * the loaders do.
+ *
+ * The buckets are a ring of {@code maxWeight / delta + 2} slots, enough for
+ * every tentative distance ahead of the current bucket. Entries are not
+ * removed when a vertex moves to a lower bucket; a stale entry is skipped
+ * when its bucket comes up.
+ */
+public class DeltaStepping implements ShortestPathEngine {
+  private static final long UNREACHED = Double.doubleToRawLongBits(Double.MAX_VALUE);
+  private static final int LEAF_VERTICES = 256; // Frontier vertices per fork-join leaf
+  private static final int TIED = -2; // Predecessor only at the vertex's own distance, not picked yet
+
+  private final ForkJoinPool pool;
+  private final double delta;
+  private final AtomicLongArray distanceBits;
+  private final int[] previous;
+  private final int[] frontierStamps; // Round in which a vertex last joined the frontier
+  private final int[] bucketStamps; // Bucket whose heavy arcs a vertex last joined
+  private int round;
+  private int bucketRound;
+  private volatile boolean tiesFound; // Set by the predecessor pass if any vertex is TIED
+
+  // Ring of buckets, sized for the graph of the last query
+  private Graph ringGraph;
+  private int[][] buckets;
+  private int[] bucketSizes;
+
+  private SearchStatistics statistics; // Null while statistics are off
+
+  /**
+   * Creates a search that runs on the common fork-join pool.
+   */
+  public DeltaStepping(int numVertices, double delta) {
+    this(numVertices, delta, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @throws IllegalArgumentException if delta is not positive
+   */
+  public DeltaStepping(int numVertices, double delta, ForkJoinPool pool) {
+    if (!(delta > 0) || Double.isInfinite(delta)) {
+      throw new IllegalArgumentException("Delta must be positive and finite");
+    }
+    this.pool = pool;
+    this.delta = delta;
+    this.distanceBits = new AtomicLongArray(numVertices);
+    this.previous = new int[numVertices];
+    this.frontierStamps = new int[numVertices];
+    this.bucketStamps = new int[numVertices];
+  }
+
+  /**
+   * Returns a delta for the graph: the average arc weight. On road networks
+   * it keeps the rounds short without much work done twice; try a few
+   * multiples of it.
+   */
+  public static double suggestDelta(Graph graph) {
+    double total = 0;
+    for (int e = 0; e < graph.getNumArcs(); e++) {
+      total += graph.getWeight(e);
+    }
+    double average = graph.getNumArcs() == 0 ? 1 : total / graph.getNumArcs();
+    return average > 0 ? average : 1;
+  }
+
+  public double getDelta() {
+    return delta;
+  }
+
+  /**
+   * Computes the whole shortest path tree of the source, the destination is
+   * ignored: a delta-stepping search has no early exit.
+   */
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    findShortestPathTree(graph, source);
+  }
+
+  /**
+   * Computes the distance and predecessor of every vertex reachable from the
+   * source.
+   */
+  public void findShortestPathTree(Graph graph, int source) {
+    SearchStatistics stats = statistics;
+    long phaseStart = stats != null ? System.nanoTime() : 0;
+    prepareBuckets(graph);
+    pool.invoke(new FillTask(0, previous.length));
+    distanceBits.set(source, 0);
+    if (stats != null) {
+      long now = System.nanoTime();
+      stats.reset();
+      stats.addPhaseNanos(SearchStatistics.Phase.INITIALIZATION, now - phaseStart);
+      phaseStart = now;
+    }
+
+    long numSettledTotal = 0;
+    long arcsScanned = 0; // Only counted with statistics on
+    long relaxations = 0;
+    long pops = 0;
+    long staleEntries = 0;
+    insert(source, 0);
+    int pending = 1; // Entries in the ring, stale ones included
+    int peakPending = 1;
+    int[] frontier = new int[16];
+    int[] settled = new int[16];
+    for (long current = 0; pending > 0; current++) {
+      int slot = (int) (current % buckets.length);
+      if (bucketSizes[slot] == 0) {
+        continue;
+      }
+      bucketRound++;
+      int numSettled = 0;
+
+      // Light arcs, until no vertex improves into this bucket any more
+      while (bucketSizes[slot] > 0) {
+        round++;
+        int[] bucket = buckets[slot];
+        int size = bucketSizes[slot];
+        bucketSizes[slot] = 0;
+        pending -= size;
+        pops += size;
+        if (frontier.length < size) {
+          frontier = new int[Math.max(size, 2 * frontier.length)];
+        }
+        int frontierSize = 0;
+        for (int i = 0; i < size; i++) {
+          int v = bucket[i];
+          if (bucketOf(distance(v)) != current || frontierStamps[v] == round) {
+            staleEntries++;
+            continue;
+          }
+          frontierStamps[v] = round;
+          frontier[frontierSize++] = v;
+          if (bucketStamps[v] != bucketRound) {
+            bucketStamps[v] = bucketRound;
+            if (numSettled == settled.length) {
+              settled = Arrays.copyOf(settled, 2 * numSettled);
+            }
+            settled[numSettled++] = v;
+          }
+        }
+        if (frontierSize > 0) {
+          if (stats != null) {
+            arcsScanned += countArcs(graph, frontier, frontierSize);
+          }
+          int[][] improved = relax(graph, frontier, frontierSize, true);
+          relaxations += count(improved);
+          pending += insertAll(improved);
+          peakPending = Math.max(peakPending, pending);
+        }
+      }
+
+      // Heavy arcs, once for every vertex the bucket settled
+      if (numSettled > 0) {
+        numSettledTotal += numSettled;
+        if (stats != null) {
+          arcsScanned += countArcs(graph, settled, numSettled);
+        }
+        int[][] improved = relax(graph, settled, numSettled, false);
+        relaxations += count(improved);
+        pending += insertAll(improved);
+        peakPending = Math.max(peakPending, pending);
+      }
+    }
+
+    if (stats != null) {
+      long now = System.nanoTime();
+      // Every improvement puts a new entry in a bucket, there is no
+      // decrease-key
+      stats.recordQuery(numSettledTotal, arcsScanned, relaxations, relaxations + 1, 0, pops, staleEntries,
+          peakPending);
+      stats.addPhaseNanos(SearchStatistics.Phase.SEARCH, now - phaseStart);
+      phaseStart = now;
+    }
+    tiesFound = false;
+    pool.invoke(new PredecessorTask(graph, source, 0, previous.length));
+    if (tiesFound) {
+      linkTiedVertices(graph);
+    }
+    if (stats != null) {
+      stats.addPhaseNanos(SearchStatistics.Phase.PREDECESSORS, System.nanoTime() - phaseStart);
+    }
+  }
+
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    statistics = enabled ? new SearchStatistics() : null;
+  }
+
+  /**
+   * The arcs scanned count every arc of the frontier vertices in each round,
+   * light and heavy alike, and every arc again in the heavy pass. Pops are
+   * the bucket entries taken out, stale ones included.
+   */
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public double getDistance(int vertexId) {
+    return distance(vertexId);
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return previous[vertexId];
+  }
+
+  private double distance(int v) {
+    return Double.longBitsToDouble(distanceBits.get(v));
+  }
+
+  private long bucketOf(double distance) {
+    return (long) (distance / delta);
+  }
+
+  /**
+   * Sizes the ring for the heaviest arc of the graph. Kept while the graph
+   * stays the same.
+   */
+  private void prepareBuckets(Graph graph) {
+    if (graph == ringGraph) {
+      return;
+    }
+    double maxWeight = 0;
+    for (int e = 0; e < graph.getNumArcs(); e++) {
+      maxWeight = Math.max(maxWeight, graph.getWeight(e));
+    }
+    double slots = Math.floor(maxWeight / delta) + 2;
+    if (slots > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Delta is too small for the arc weights of the graph");
+    }
+    buckets = new int[(int) slots][];
+    bucketSizes = new int[(int) slots];
+    ringGraph = graph;
+  }
+
+  private void insert(int v, double distance) {
+    int slot = (int) (bucketOf(distance) % buckets.length);
+    int[] bucket = buckets[slot];
+    if (bucket == null) {
+      bucket = buckets[slot] = new int[16];
+    } else if (bucketSizes[slot] == bucket.length) {
+      bucket = buckets[slot] = Arrays.copyOf(bucket, 2 * bucket.length);
+    }
+    bucket[bucketSizes[slot]++] = v;
+  }
+
+  /**
+   * Puts the improved vertices of all leaves into the buckets of their
+   * current distance and returns how many there were.
+   */
+  private int insertAll(int[][] improved) {
+    int total = 0;
+    for (int[] leaf : improved) {
+      // Entry 0 holds the number of vertices that follow
+      for (int i = 1; i <= leaf[0]; i++) {
+        int v = leaf[i];
+        insert(v, distance(v));
+      }
+      total += leaf[0];
+    }
+    return total;
+  }
+
+  private static long countArcs(Graph graph, int[] vertices, int size) {
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      total += graph.getDegree(vertices[i]);
+    }
+    return total;
+  }
+
+  private static long count(int[][] improved) {
+    long total = 0;
+    for (int[] leaf : improved) {
+      total += leaf[0];
+    }
+    return total;
+  }
+
+  /**
+   * Relaxes the light or the heavy arcs of the given vertices and returns
+   * the vertices that improved, one list per leaf. A frontier that fits in
+   * one leaf is relaxed on the calling thread.
+   */
+  private int[][] relax(Graph graph, int[] vertices, int size, boolean light) {
+    int numLeaves = (size + LEAF_VERTICES - 1) / LEAF_VERTICES;
+    int[][] improved = new int[numLeaves][];
+    if (numLeaves == 1) {
+      improved[0] = relaxRange(graph, vertices, 0, size, light);
+    } else {
+      pool.invoke(new RelaxTask(graph, vertices, improved, light, 0, numLeaves, size));
+    }
+    return improved;
+  }
+
+  private int[] relaxRange(Graph graph, int[] vertices, int from, int to, boolean light) {
+    int[] improved = new int[17];
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      int u = vertices[i];
+      double distance = distance(u);
+      for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+        double weight = graph.getWeight(e);
+        if ((weight <= delta) != light) {
+          continue;
+        }
+        int v = graph.getTarget(e);
+        long newBits = Double.doubleToRawLongBits(distance + weight);
+        long oldBits = distanceBits.get(v);
+        while (newBits < oldBits) {
+          if (distanceBits.compareAndSet(v, oldBits, newBits)) {
+            if (count + 1 == improved.length) {
+              improved = Arrays.copyOf(improved, 2 * improved.length);
+            }
+            improved[++count] = v;
+            break;
+          }
+          oldBits = distanceBits.get(v);
+        }
+      }
+    }
+    improved[0] = count;
+    return improved;
+  }
+
+  private class RelaxTask extends RecursiveAction {
+    private final Graph graph;
+    private final int[] vertices;
+    private final int[][] improved;
+    private final boolean light;
+    private final int fromLeaf;
+    private final int toLeaf;
+    private final int size;
+
+    RelaxTask(Graph graph, int[] vertices, int[][] improved, boolean light, int fromLeaf, int toLeaf, int size) {
+      this.graph = graph;
+      this.vertices = vertices;
+      this.improved = improved;
+      this.light = light;
+      this.fromLeaf = fromLeaf;
+      this.toLeaf = toLeaf;
+      this.size = size;
+    }
+
+    @Override
+    protected void compute() {
+      if (toLeaf - fromLeaf > 1) {
+        int mid = (fromLeaf + toLeaf) >>> 1;
+        invokeAll(new RelaxTask(graph, vertices, improved, light, fromLeaf, mid, size),
+            new RelaxTask(graph, vertices, improved, light, mid, toLeaf, size));
+        return;
+      }
+      int from = fromLeaf * LEAF_VERTICES;
+      improved[fromLeaf] = relaxRange(graph, vertices, from, Math.min(size, from + LEAF_VERTICES), light);
+    }
+  }
+
+  /**
+   * Resets the distances of a range of vertices.
+   */
+  private class FillTask extends RecursiveAction {
+    private final int from;
+    private final int to;
+
+    FillTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 64 * LEAF_VERTICES) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new FillTask(from, mid), new FillTask(mid, to));
+        return;
+      }
+      for (int v = from; v < to; v++) {
+        distanceBits.set(v, UNREACHED);
+      }
+    }
+  }
+
+  /**
+   * Picks the predecessors of a range of vertices once the distances are
+   * final.
+   */
+  private class PredecessorTask extends RecursiveAction {
+    private final Graph graph;
+    private final int source;
+    private final int from;
+    private final int to;
+
+    PredecessorTask(Graph graph, int source, int from, int to) {
+      this.graph = graph;
+      this.source = source;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 64 * LEAF_VERTICES) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new PredecessorTask(graph, source, from, mid), new PredecessorTask(graph, source, mid, to));
+        return;
+      }
+      for (int v = from; v < to; v++) {
+        double distance = distance(v);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        if (v != source && distance != Double.MAX_VALUE) {
+          for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+            int u = graph.getTarget(e);
+            double uDistance = distance(u);
+            if (uDistance + graph.getWeight(e) == distance && uDistance < bestDistance) {
+              best = u;
+              bestDistance = uDistance;
+            }
+          }
+          if (bestDistance == distance) {
+            best = TIED;
+            tiesFound = true;
+          }
+        }
+        previous[v] = best;
+      }
+    }
+  }
+
+  /**
+   * Picks the predecessors of the {@link #TIED} vertices by a breadth-first
+   * search over the arcs between vertices at the same distance. It starts
+   * from the tied vertices next to a vertex whose predecessor is known, and
+   * every vertex is linked to one linked before it, so no cycle can form.
+   */
+  private void linkTiedVertices(Graph graph) {
+    int[] queue = new int[16];
+    int[] seedPrevious = new int[16];
+    int numSeeds = 0;
+    for (int v = 0; v < previous.length; v++) {
+      if (previous[v] != TIED) {
+        continue;
+      }
+      for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+        int u = graph.getTarget(e);
+        if (previous[u] != TIED && distance(u) + graph.getWeight(e) == distance(v)) {
+          if (numSeeds == queue.length) {
+            queue = Arrays.copyOf(queue, 2 * numSeeds);
+            seedPrevious = Arrays.copyOf(seedPrevious, 2 * numSeeds);
+          }
+          queue[numSeeds] = v;
+          seedPrevious[numSeeds++] = u;
+          break;
+        }
+      }
+    }
+    // Linked only now, so every seed hangs off a vertex known before the pass
+    for (int i = 0; i < numSeeds; i++) {
+      previous[queue[i]] = seedPrevious[i];
+    }
+
+    int tail = numSeeds;
+    for (int head = 0; head < tail; head++) {
+      int u = queue[head];
+      for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+        int v = graph.getTarget(e);
+        if (previous[v] == TIED && distance(u) + graph.getWeight(e) == distance(v)) {
+          previous[v] = u;
+          if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, 2 * tail);
+          }
+          queue[tail++] = v;
+        }
+      }
+    }
+  }
+}
@@ -1,141 +1,323 @@
 package university.dijkstra.algorithm;
 
 import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 
-import university.dijkstra.data_structures.List;
-import university.dijkstra.data_structures.MinHeap;
-import university.dijkstra.model.*;
+import university.dijkstra.data_structures.GenerationStamps;
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.data_structures.IntPriorityQueue;
+import university.dijkstra.model.ConnectedComponents;
+import university.dijkstra.model.Graph;
 
-public class Dijkstra {
+public class Dijkstra implements ShortestPathEngine {
   private int[] previous; // To reconstruct the path
   private double[] distances; // To store the shortest distances from the source
-  private List<Integer> visitedVertices;
-  private boolean[] known;
+  private final GenerationStamps reached; // Vertices whose entries belong to the current query
+  private IntPriorityQueue queue; // Reused by every query, holds each vertex at most once
+  private boolean[] isTarget; // Marks the destinations of findShortestPaths, allocated on first use
+  private int remainingTargets;
+  private int[] settledOrder; // Vertices settled by findWithinDistance, allocated on first use
+  private int numSettledInOrder;
+  private boolean recordSettled;
+  private Heuristic heuristic; // Guides the search in A* mode, null for plain Dijkstra
+  private BooleanSupplier cancelRequest; // Polled by the running query, null if it cannot be cancelled
+  private boolean cancelled;
+  private SearchStatistics statistics; // Null while statistics are off
+
+  // The cancel request is polled once per this many settled vertices
+  private static final int CANCEL_CHECK_INTERVAL = 1024;
 
   public Dijkstra(int numVertices) {
+    this(numVertices, new IndexedMinHeap(numVertices));
+  }
+
+  /**
+   * Creates a Dijkstra that runs on the given priority queue, for example one
+   * made by {@link QueueType#create}. The queue must hold ids up to
+   * {@code numVertices - 1}.
+   */
+  public Dijkstra(int numVertices, IntPriorityQueue queue) {
+    this(queue, new GenerationStamps(numVertices));
+  }
+
+  /**
+   * Creates a Dijkstra whose workspace is tracked by the given stamps, one
+   * per vertex, so a test can move their generation on.
+   */
+  Dijkstra(IntPriorityQueue queue, GenerationStamps reached) {
+    int numVertices = reached.getCapacity();
     distances = new double[numVertices];
     previous = new int[numVertices];
-    visitedVertices = new List<>();
-    known = new boolean[numVertices];
-
-    initializeArrays();
+    this.reached = reached;
+    this.queue = queue;
   }
 
+  /**
+   * Forgets the last query. Every query starts with this, and it costs O(1):
+   * the distance and predecessor of a vertex only count if the vertex was
+   * reached in the current generation.
+   */
   public void initializeArrays() {
-    for (int i = 0; i < distances.length; i++) {
-      distances[i] = Double.MAX_VALUE;
-      previous[i] = -1;
-      known[i] = false;
-    }
+    reached.advance();
+  }
+
+  /**
+   * Switches between plain Dijkstra and A* for the following queries.
+   * 
+   * In A* mode the queue is ordered by distance plus the straight-line
+   * distance to the destination. Edge weights are exactly those straight-line
+   * distances, so the estimate never overshoots and the result is the same as
+   * plain Dijkstra, but the search expands towards the destination instead of
+   * in a circle around the source.
+   */
+  public void setAStar(boolean aStar) {
+    this.heuristic = aStar ? Heuristic.EUCLIDEAN : null;
   }
 
-  // Simple node class for the priority queue
-  static class QueueNode implements Comparable<QueueNode> {
-    int vertexId;
-    double distance;
+  public boolean isAStar() {
+    return heuristic != null;
+  }
 
-    QueueNode(int vertexId, double distance) {
-      this.vertexId = vertexId;
-      this.distance = distance;
-    }
+  /**
+   * Runs the following queries as A* with the given lower bound, for example
+   * a {@link LandmarkTable}. Null switches back to plain Dijkstra.
+   */
+  public void setHeuristic(Heuristic heuristic) {
+    this.heuristic = heuristic;
+  }
+
+  public Heuristic getHeuristic() {
+    return heuristic;
+  }
 
-    @Override
-    public int compareTo(QueueNode other) {
-      return Double.compare(this.distance, other.distance);
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    search(graph, source, destination, heuristic, false, Double.MAX_VALUE);
+  }
+
+  /**
+   * Like {@link #findShortestPath(Graph, int, int)}, but returns early once
+   * {@code cancelRequest} is true, for example when the caller on another
+   * thread no longer needs the result. The request belongs to this query
+   * alone: it is polled before the first vertex is settled and then every
+   * {@value #CANCEL_CHECK_INTERVAL} settled vertices, so one made before the
+   * search starts is not lost. {@link #wasCancelled} tells whether the
+   * results are incomplete.
+   */
+  public void findShortestPath(Graph graph, int source, int destination, BooleanSupplier cancelRequest) {
+    this.cancelRequest = cancelRequest;
+    try {
+      search(graph, source, destination, heuristic, false, Double.MAX_VALUE);
+    } finally {
+      this.cancelRequest = null;
     }
   }
 
-  public void findShortestPath(Vertex[] graph, Vertex source, Vertex destination) {
-    MinHeap<QueueNode> pq = new MinHeap<QueueNode>();
+  /**
+   * Settles every vertex reachable from {@code source}, leaving the complete
+   * shortest path tree in the getters. The search is plain Dijkstra.
+   */
+  public void findShortestPathTree(Graph graph, int source) {
+    search(graph, source, -1, null, false, Double.MAX_VALUE);
+  }
 
-    // Reset ONLY touched vertices from previous query
-    resetVisitedVertices();
+  /**
+   * Settles every vertex within {@code maxDistance} of the source, the
+   * boundary included, and returns them closest first with their distances
+   * and predecessors. The search stops at the radius, so it costs time in
+   * the size of the result rather than of the graph. The search is plain
+   * Dijkstra.
+   *
+   * @throws IllegalArgumentException if maxDistance is negative or NaN
+   */
+  public ReachableSet findWithinDistance(Graph graph, int source, double maxDistance) {
+    if (!(maxDistance >= 0)) {
+      throw new IllegalArgumentException("The distance must not be negative");
+    }
+    if (settledOrder == null) {
+      settledOrder = new int[64];
+    }
+    numSettledInOrder = 0;
+    recordSettled = true;
+    try {
+      search(graph, source, -1, null, false, maxDistance);
+    } finally {
+      recordSettled = false;
+    }
 
-    distances[source.getId()] = 0;
-    visitedVertices.add(source.getId());
-    pq.insert(new QueueNode(source.getId(), 0));
+    int count = numSettledInOrder;
+    int[] vertices = Arrays.copyOf(settledOrder, count);
+    double[] reachedDistances = new double[count];
+    int[] reachedPrevious = new int[count];
+    for (int i = 0; i < count; i++) {
+      reachedDistances[i] = distances[vertices[i]];
+      reachedPrevious[i] = previous[vertices[i]];
+    }
+    return new ReachableSet(source, maxDistance, vertices, reachedDistances, reachedPrevious);
+  }
 
-    while (!pq.isEmpty()) {
-      QueueNode current = pq.dequeue();
-      // Skip if already visited
-      if (known[current.vertexId]) {
-        continue;
+  /**
+   * Searches from {@code source} until every vertex in {@code destinations}
+   * is settled, so one search answers a whole row of a distance matrix. The
+   * search is plain Dijkstra; a heuristic needs a single destination. If
+   * there are no destinations, or none is reachable, only the source is
+   * settled.
+   */
+  public void findShortestPaths(Graph graph, int source, int[] destinations) {
+    if (isTarget == null) {
+      isTarget = new boolean[distances.length];
+    }
+    // Destinations in another component are never settled, so they are not
+    // waited for
+    ConnectedComponents components = graph.getComponents();
+    remainingTargets = 0;
+    for (int destination : destinations) {
+      if (!isTarget[destination] && components.isConnected(source, destination)) {
+        isTarget[destination] = true;
+        remainingTargets++;
       }
-      known[current.vertexId] = true;
+    }
+    try {
+      if (remainingTargets == 0) {
+        // Nothing to wait for, settling the source is enough
+        search(graph, source, source, null, false, Double.MAX_VALUE);
+      } else {
+        search(graph, source, -1, null, true, Double.MAX_VALUE);
+      }
+    } finally {
+      for (int destination : destinations) {
+        isTarget[destination] = false;
+      }
+    }
+  }
+
+  /**
+   * The search loop. With {@code stopAtTargets} it stops after the last
+   * vertex marked in {@code isTarget} is settled, otherwise at
+   * {@code destination}. It also stops at the first vertex farther than
+   * {@code maxDistance}.
+   */
+  private void search(Graph graph, int source, int destination, Heuristic heuristic, boolean stopAtTargets,
+      double maxDistance) {
+    SearchStatistics stats = statistics;
+    long phaseStart = stats != null ? System.nanoTime() : 0;
+    initializeArrays();
+    queue.clear();
+    cancelled = false;
+    int settled = 0;
+    long arcsScanned = 0;
+    long relaxations = 0;
+    long inserts = 0;
+    long decreaseKeys = 0;
+    if (stats != null) {
+      long now = System.nanoTime();
+      stats.reset();
+      stats.addPhaseNanos(SearchStatistics.Phase.INITIALIZATION, now - phaseStart);
+      phaseStart = now;
+    }
+
+    reached.stamp(source);
+    distances[source] = 0;
+    previous[source] = -1;
+    // A destination in another component would only turn out unreachable
+    // after the whole component of the source is settled
+    if (destination == -1 || graph.getComponents().isConnected(source, destination)) {
+      queue.insertOrDecrease(source, 0);
+      inserts++;
+    }
 
-      List<Edge> edges = graph[current.vertexId].getEdges();
+    while (!queue.isEmpty()) {
+      int u = queue.dequeue();
 
-      if (current.vertexId == destination.getId()) {
+      if (settled++ % CANCEL_CHECK_INTERVAL == 0 && cancelRequest != null && cancelRequest.getAsBoolean()) {
+        cancelled = true;
+        break;
+      }
+      if (distances[u] > maxDistance) {
+        break; // everything within the radius is settled
+      }
+      if (recordSettled) {
+        if (numSettledInOrder == settledOrder.length) {
+          settledOrder = Arrays.copyOf(settledOrder, Math.min(distances.length, 2 * numSettledInOrder));
+        }
+        settledOrder[numSettledInOrder++] = u;
+      }
+      if (u == destination) {
         break; // early termination
       }
+      if (stopAtTargets && isTarget[u] && --remainingTargets == 0) {
+        break; // all targets settled
+      }
 
-      List.Node<Edge> node = edges.getHead();
-      while (node != null) {
-        Edge currentEdge = node.getData();
-
-        if (!known[currentEdge.getDestination().getId()]) {
-          double newDistance = distances[current.vertexId] + currentEdge.getWeight();
-          if (newDistance < distances[currentEdge.getDestination().getId()]) {
-            distances[currentEdge.getDestination().getId()] = newDistance;
-            previous[currentEdge.getDestination().getId()] = current.vertexId;
-            pq.insert(new QueueNode(currentEdge.getDestination().getId(), newDistance));
-            visitedVertices.add(currentEdge.getDestination().getId());
+      int end = graph.getEdgeEnd(u);
+      arcsScanned += end - graph.getEdgeStart(u);
+      for (int e = graph.getEdgeStart(u); e < end; e++) {
+        int v = graph.getTarget(e);
+
+        // A settled vertex never passes this test in plain Dijkstra. In A*
+        // mode rounding or a quantized estimate can settle a vertex a hair
+        // too early, so an improvement reopens it instead of being dropped.
+        double newDistance = distances[u] + graph.getWeight(e);
+        if (newDistance < getDistance(v)) {
+          reached.stamp(v);
+          distances[v] = newDistance;
+          previous[v] = u;
+          double priority = heuristic != null ? newDistance + heuristic.estimate(graph, v, destination) : newDistance;
+          relaxations++;
+          if (stats != null) {
+            if (queue.contains(v)) {
+              decreaseKeys++;
+            } else {
+              inserts++;
+            }
           }
+          // Lowers the key in place if v is already queued
+          queue.insertOrDecrease(v, priority);
         }
-
-        node = node.getNext();
       }
 
     }
-  }
 
-  private void resetVisitedVertices() {
-    // Iterate without destroying the list
-    List.Node<Integer> current = visitedVertices.getHead();
-    while (current != null) {
-      int vertexId = current.getData();
-      distances[vertexId] = Double.MAX_VALUE;
-      previous[vertexId] = -1;
-      current = current.getNext();
-      known[vertexId] = false;
+    if (stats != null) {
+      // Every queue keeps a vertex once, so nothing stale is ever popped
+      stats.recordQuery(settled, arcsScanned, relaxations, inserts, decreaseKeys, settled, 0, queue.getPeakSize());
+      stats.addPhaseNanos(SearchStatistics.Phase.SEARCH, System.nanoTime() - phaseStart);
     }
-    // Now clear for next query
-    visitedVertices.clear();
   }
 
-  public List<Integer> reconstructPath(int source, int destination) {
-    List<Integer> path = new List<>();
-    int current = destination;
-
-    while (current != -1 && current != source) {
-      path.add(current);
-      current = previous[current];
-    }
+  /**
+   * Returns true if the last query stopped early because its cancel request
+   * was true.
+   */
+  public boolean wasCancelled() {
+    return cancelled;
+  }
 
-    if (current == source) {
-      path.add(source);
-      // Reverse the path since we built it backwards
-      return reversePath(path);
-    }
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    statistics = enabled ? new SearchStatistics() : null;
+  }
 
-    return null; // No path found
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statistics;
   }
 
-  public List<Integer> reversePath(List<Integer> path) {
-    List<Integer> reversedPath = new List<>();
-    List.Node<Integer> current = path.getTail();
-    while (current != null) {
-      reversedPath.add(current.getData());
-      current = current.getPrevious();
-    }
-    return reversedPath;
+  /**
+   * Returns the largest number of vertices that were queued at once during
+   * the last query.
+   */
+  public int getPeakQueueSize() {
+    return queue.getPeakSize();
   }
 
+  @Override
   public double getDistance(int vertexId) {
-    return distances[vertexId];
+    return reached.isStamped(vertexId) ? distances[vertexId] : Double.MAX_VALUE;
   }
 
+  @Override
   public int getPrevious(int vertexId) {
-    return previous[vertexId];
+    return reached.isStamped(vertexId) ? previous[vertexId] : -1;
   }
 }
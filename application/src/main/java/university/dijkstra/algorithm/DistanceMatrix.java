@@ -0,0 +1,256 @@
+package university.dijkstra.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.model.ContractionHierarchy;
+import university.dijkstra.model.Graph;
+
+/**
+ * Computes N x M distance tables between a set of sources and a set of
+ * targets.
+ *
+ * Without a hierarchy every source gets one {@link Dijkstra} search that
+ * stops once all targets are settled, instead of one search per pair. With a
+ * {@link ContractionHierarchy} the bucket algorithm is used: an upward search
+ * from every target leaves {@code (target, distance)} entries in buckets at
+ * the vertices it reaches, and an upward search from every source combines
+ * its own distances with the buckets it finds.
+ *
+ * Sources are spread over a fork-join pool, each worker with its own search
+ * workspace. Results go into a flat row-major matrix: the distance from
+ * {@code sources[i]} to {@code targets[j]} is at {@code i * targets.length + j}.
+ * Unreachable pairs hold {@code Double.MAX_VALUE}, or {@code Float.MAX_VALUE}
+ * in the float form.
+ */
+public class DistanceMatrix {
+  private final Graph graph;
+  private final ContractionHierarchy hierarchy;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  /**
+   * Receives one finished row of the matrix.
+   */
+  private interface RowWriter {
+    void write(int sourceIndex, double[] row);
+  }
+
+  public DistanceMatrix(Graph graph) {
+    this(graph, null);
+  }
+
+  /**
+   * @param graph     the graph to compute distances on
+   * @param hierarchy a hierarchy built from the graph, or null to use Dijkstra
+   */
+  public DistanceMatrix(Graph graph, ContractionHierarchy hierarchy) {
+    this.graph = graph;
+    this.hierarchy = hierarchy;
+  }
+
+  /**
+   * Sets the pool the sources are spread over. The common pool is used by
+   * default.
+   */
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public double[] compute(int[] sources, int[] targets) {
+    double[] result = new double[Math.multiplyExact(sources.length, targets.length)];
+    compute(sources, targets, result);
+    return result;
+  }
+
+  /**
+   * Fills {@code result} with the distances, row by row.
+   *
+   * @throws IllegalArgumentException if {@code result} has the wrong length
+   */
+  public void compute(int[] sources, int[] targets, double[] result) {
+    checkLength(sources, targets, result.length);
+    int columns = targets.length;
+    run(sources, targets, (sourceIndex, row) -> System.arraycopy(row, 0, result, sourceIndex * columns, columns));
+  }
+
+  /**
+   * Fills {@code result} with the distances rounded to float, halving the
+   * memory of large tables.
+   *
+   * @throws IllegalArgumentException if {@code result} has the wrong length
+   */
+  public void compute(int[] sources, int[] targets, float[] result) {
+    checkLength(sources, targets, result.length);
+    int columns = targets.length;
+    run(sources, targets, (sourceIndex, row) -> {
+      int base = sourceIndex * columns;
+      for (int j = 0; j < columns; j++) {
+        result[base + j] = row[j] == Double.MAX_VALUE ? Float.MAX_VALUE : (float) row[j];
+      }
+    });
+  }
+
+  private static void checkLength(int[] sources, int[] targets, int length) {
+    if ((long) sources.length * targets.length != length) {
+      throw new IllegalArgumentException("Result must have " + (long) sources.length * targets.length
+          + " entries, got " + length);
+    }
+  }
+
+  private void run(int[] sources, int[] targets, RowWriter writer) {
+    if (sources.length == 0 || targets.length == 0) {
+      return;
+    }
+    if (hierarchy == null) {
+      runDijkstra(sources, targets, writer);
+    } else {
+      runBuckets(sources, targets, writer);
+    }
+  }
+
+  private void runDijkstra(int[] sources, int[] targets, RowWriter writer) {
+    AtomicInteger nextSource = new AtomicInteger();
+    runWorkers(() -> {
+      Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+      double[] row = new double[targets.length];
+      int i;
+      while ((i = nextSource.getAndIncrement()) < sources.length) {
+        dijkstra.findShortestPaths(graph, sources[i], targets);
+        for (int j = 0; j < targets.length; j++) {
+          row[j] = dijkstra.getDistance(targets[j]);
+        }
+        writer.write(i, row);
+      }
+    });
+  }
+
+  private void runBuckets(int[] sources, int[] targets, RowWriter writer) {
+    int numVertices = hierarchy.getNumVertices();
+
+    // Backward phase: every target's upward search space, kept per target
+    // and then sorted into buckets by vertex
+    int[][] reachedVertices = new int[targets.length][];
+    double[][] reachedDistances = new double[targets.length][];
+    AtomicInteger nextTarget = new AtomicInteger();
+    runWorkers(() -> {
+      UpwardSearch search = new UpwardSearch(hierarchy);
+      int j;
+      while ((j = nextTarget.getAndIncrement()) < targets.length) {
+        search.run(targets[j]);
+        reachedVertices[j] = Arrays.copyOf(search.reached, search.numReached);
+        reachedDistances[j] = new double[search.numReached];
+        for (int r = 0; r < search.numReached; r++) {
+          reachedDistances[j][r] = search.distances[search.reached[r]];
+        }
+      }
+    });
+
+    int[] bucketStart = new int[numVertices + 1];
+    for (int[] reached : reachedVertices) {
+      for (int v : reached) {
+        bucketStart[v + 1]++;
+      }
+    }
+    for (int v = 0; v < numVertices; v++) {
+      bucketStart[v + 1] += bucketStart[v];
+    }
+    int[] bucketTargets = new int[bucketStart[numVertices]];
+    double[] bucketDistances = new double[bucketStart[numVertices]];
+    int[] next = Arrays.copyOf(bucketStart, numVertices);
+    for (int j = 0; j < targets.length; j++) {
+      for (int r = 0; r < reachedVertices[j].length; r++) {
+        int slot = next[reachedVertices[j][r]]++;
+        bucketTargets[slot] = j;
+        bucketDistances[slot] = reachedDistances[j][r];
+      }
+    }
+
+    // Forward phase: every source scans the buckets of its search space
+    AtomicInteger nextSource = new AtomicInteger();
+    runWorkers(() -> {
+      UpwardSearch search = new UpwardSearch(hierarchy);
+      double[] row = new double[targets.length];
+      int i;
+      while ((i = nextSource.getAndIncrement()) < sources.length) {
+        Arrays.fill(row, Double.MAX_VALUE);
+        search.run(sources[i]);
+        for (int r = 0; r < search.numReached; r++) {
+          int v = search.reached[r];
+          double distance = search.distances[v];
+          for (int b = bucketStart[v]; b < bucketStart[v + 1]; b++) {
+            double total = distance + bucketDistances[b];
+            if (total < row[bucketTargets[b]]) {
+              row[bucketTargets[b]] = total;
+            }
+          }
+        }
+        writer.write(i, row);
+      }
+    });
+  }
+
+  /**
+   * Runs the same job on every worker of the pool and waits for all of them.
+   */
+  private void runWorkers(Runnable job) {
+    int workers = pool.getParallelism();
+    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+    for (int w = 0; w < workers; w++) {
+      tasks.add(pool.submit(job));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+  }
+
+  /**
+   * A complete Dijkstra over the upward arcs of a hierarchy. After
+   * {@link #run} the first {@code numReached} entries of {@code reached} are
+   * the vertices it reached, with their distances in {@code distances}.
+   */
+  private static class UpwardSearch {
+    private final ContractionHierarchy hierarchy;
+    private final double[] distances;
+    private final int[] reached;
+    private int numReached;
+    private final IndexedMinHeap pq;
+
+    UpwardSearch(ContractionHierarchy hierarchy) {
+      this.hierarchy = hierarchy;
+      this.distances = new double[hierarchy.getNumVertices()];
+      this.reached = new int[hierarchy.getNumVertices()];
+      this.pq = new IndexedMinHeap(hierarchy.getNumVertices());
+      Arrays.fill(distances, Double.MAX_VALUE);
+    }
+
+    void run(int source) {
+      for (int r = 0; r < numReached; r++) {
+        distances[reached[r]] = Double.MAX_VALUE;
+      }
+      numReached = 0;
+      pq.clear();
+
+      distances[source] = 0;
+      reached[numReached++] = source;
+      pq.insertOrDecrease(source, 0);
+      while (!pq.isEmpty()) {
+        int u = pq.dequeue();
+        for (int e = hierarchy.getEdgeStart(u); e < hierarchy.getEdgeEnd(u); e++) {
+          int v = hierarchy.getTarget(e);
+          double newDistance = distances[u] + hierarchy.getWeight(e);
+          if (newDistance < distances[v]) {
+            if (distances[v] == Double.MAX_VALUE) {
+              reached[numReached++] = v;
+            }
+            distances[v] = newDistance;
+            pq.insertOrDecrease(v, newDistance);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * A lower bound on the distance between two vertices, used to order the A*
+ * queue in {@link Dijkstra}.
+ *
+ * The estimate must never exceed the real shortest distance, otherwise A* can
+ * return a longer path.
+ */
+public interface Heuristic {
+
+  /**
+   * Straight-line distance. Every edge weight is the straight-line distance
+   * between its endpoints, so no path can be shorter.
+   */
+  Heuristic EUCLIDEAN = (graph, vertexId, destination) -> graph.euclideanDistance(vertexId, destination);
+
+  double estimate(Graph graph, int vertexId, int destination);
+}
@@ -0,0 +1,220 @@
+package university.dijkstra.algorithm;
+
+import java.util.Arrays;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * Outlines of a {@link ReachableSet}, for drawing a service area on a map.
+ *
+ * Both outlines are polygons given as vertex ids of the set, counter-clockwise
+ * when y grows upwards. The convex hull contains every reached vertex but
+ * also covers bays the area does not reach. The radial hull takes the
+ * reached vertex farthest from the source in each of a number of equal
+ * angular sectors around it, so it follows the inlets of the area that are
+ * visible from the source; it is star-shaped around the source and may cut
+ * off vertices hidden behind others.
+ */
+public class Isochrone {
+  private Isochrone() {
+  }
+
+  /**
+   * Returns the convex hull of the reached vertices by Andrew's monotone
+   * chain in O(k log k). Collinear points on the hull are left out, and
+   * vertices at the same coordinates count once.
+   *
+   * Vertices strictly inside the quadrilateral of the leftmost, lowest,
+   * rightmost and highest vertex cannot be on the hull and are dropped
+   * before sorting (Akl and Toussaint); in a service area that is nearly
+   * all of them.
+   */
+  public static int[] convexHull(Graph graph, ReachableSet area) {
+    int[] vertices = area.getVertices();
+    int left = vertices[0];
+    int bottom = vertices[0];
+    int right = vertices[0];
+    int top = vertices[0];
+    for (int v : vertices) {
+      if (graph.getX(v) < graph.getX(left)) {
+        left = v;
+      }
+      if (graph.getX(v) > graph.getX(right)) {
+        right = v;
+      }
+      if (graph.getY(v) < graph.getY(bottom)) {
+        bottom = v;
+      }
+      if (graph.getY(v) > graph.getY(top)) {
+        top = v;
+      }
+    }
+    long[] corners = { pack(graph.getX(left), graph.getY(left)), pack(graph.getX(bottom), graph.getY(bottom)),
+        pack(graph.getX(right), graph.getY(right)), pack(graph.getX(top), graph.getY(top)) };
+
+    // Coordinates packed into one sortable key, x first
+    long[] points = new long[16];
+    int[] candidates = new int[16];
+    int numCandidates = 0;
+    for (int v : vertices) {
+      long point = pack(graph.getX(v), graph.getY(v));
+      if (isInside(corners, point)) {
+        continue;
+      }
+      if (numCandidates == points.length) {
+        points = Arrays.copyOf(points, 2 * numCandidates);
+        candidates = Arrays.copyOf(candidates, 2 * numCandidates);
+      }
+      points[numCandidates] = point;
+      candidates[numCandidates++] = v;
+    }
+    candidates = Arrays.copyOf(candidates, numCandidates);
+    Arrays.sort(points, 0, numCandidates);
+    int numPoints = 0;
+    for (int i = 0; i < numCandidates; i++) {
+      if (i == 0 || points[i] != points[i - 1]) {
+        points[numPoints++] = points[i];
+      }
+    }
+    if (numPoints <= 2) {
+      return hullVertices(graph, candidates, points, numPoints);
+    }
+
+    // Lower hull left to right, then upper hull right to left
+    long[] hull = new long[2 * numPoints];
+    int size = 0;
+    for (int i = 0; i < numPoints; i++) {
+      while (size >= 2 && turn(hull[size - 2], hull[size - 1], points[i]) <= 0) {
+        size--;
+      }
+      hull[size++] = points[i];
+    }
+    int lowerSize = size + 1;
+    for (int i = numPoints - 2; i >= 0; i--) {
+      while (size >= lowerSize && turn(hull[size - 2], hull[size - 1], points[i]) <= 0) {
+        size--;
+      }
+      hull[size++] = points[i];
+    }
+    // The last point is the first one again
+    return hullVertices(graph, candidates, hull, size - 1);
+  }
+
+  /**
+   * Returns true if the point lies strictly inside the counter-clockwise
+   * quadrilateral. A degenerate quadrilateral has no inside.
+   */
+  private static boolean isInside(long[] corners, long point) {
+    for (int i = 0; i < corners.length; i++) {
+      if (turn(corners[i], corners[(i + 1) % corners.length], point) <= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the radial hull of the reached vertices with the given number of
+   * sectors around the source, in O(k). Sectors the area does not reach are
+   * skipped.
+   *
+   * @throws IllegalArgumentException if there are fewer than 3 sectors
+   */
+  public static int[] radialHull(Graph graph, ReachableSet area, int numSectors) {
+    if (numSectors < 3) {
+      throw new IllegalArgumentException("At least 3 sectors are needed");
+    }
+    int source = area.getSource();
+    double sourceX = graph.getX(source);
+    double sourceY = graph.getY(source);
+    int[] farthest = new int[numSectors];
+    double[] farthestDistances = new double[numSectors];
+    Arrays.fill(farthest, -1);
+    for (int v : area.getVertices()) {
+      double dx = graph.getX(v) - sourceX;
+      double dy = graph.getY(v) - sourceY;
+      double distanceSquared = dx * dx + dy * dy;
+      if (distanceSquared == 0) {
+        continue;
+      }
+      int sector = (int) ((Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI) * numSectors);
+      sector = Math.min(sector, numSectors - 1); // atan2 can return exactly pi
+      if (distanceSquared > farthestDistances[sector]) {
+        farthest[sector] = v;
+        farthestDistances[sector] = distanceSquared;
+      }
+    }
+
+    int count = 0;
+    for (int sector = 0; sector < numSectors; sector++) {
+      if (farthest[sector] != -1) {
+        farthest[count++] = farthest[sector];
+      }
+    }
+    if (count == 0) {
+      return new int[] { source };
+    }
+    return Arrays.copyOf(farthest, count);
+  }
+
+  private static long pack(int x, int y) {
+    // Flipping the sign bit of y makes it sort right as the unsigned low half
+    return ((long) x << 32) | ((y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+  }
+
+  private static long unpackX(long point) {
+    return (int) (point >> 32);
+  }
+
+  private static long unpackY(long point) {
+    return (int) point ^ Integer.MIN_VALUE;
+  }
+
+  /**
+   * Returns the sign of the cross product of {@code a->b} and {@code a->c}:
+   * positive for a left turn, negative for a right turn and 0 if the points
+   * are collinear.
+   *
+   * Differences of int coordinates take up to 33 bits, so the two products
+   * can take 66 and overflow a long. They are compared as 128-bit numbers
+   * instead, high halves from {@link Math#multiplyHigh} first, which keeps
+   * the sign exact over the whole int range.
+   */
+  private static int turn(long a, long b, long c) {
+    long ax = unpackX(a);
+    long ay = unpackY(a);
+    long bx = unpackX(b) - ax;
+    long by = unpackY(b) - ay;
+    long cx = unpackX(c) - ax;
+    long cy = unpackY(c) - ay;
+    long leftHigh = Math.multiplyHigh(bx, cy);
+    long rightHigh = Math.multiplyHigh(by, cx);
+    if (leftHigh != rightHigh) {
+      return leftHigh < rightHigh ? -1 : 1;
+    }
+    return Long.compareUnsigned(bx * cy, by * cx);
+  }
+
+  /**
+   * Maps the hull points back to the first candidate vertex at each of
+   * them. The hull is small, so every candidate is looked up by binary
+   * search in a sorted copy of it.
+   */
+  private static int[] hullVertices(Graph graph, int[] vertices, long[] hull, int size) {
+    long[] sorted = Arrays.copyOf(hull, size);
+    Arrays.sort(sorted);
+    int[] positions = new int[size]; // Hull position of each sorted point
+    for (int i = 0; i < size; i++) {
+      positions[Arrays.binarySearch(sorted, hull[i])] = i;
+    }
+    int[] result = new int[size];
+    Arrays.fill(result, -1);
+    for (int v : vertices) {
+      int found = Arrays.binarySearch(sorted, pack(graph.getX(v), graph.getY(v)));
+      if (found >= 0 && result[positions[found]] == -1) {
+        result[positions[found]] = v;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,366 @@
+package university.dijkstra.algorithm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+
+/**
+ * Picks landmark vertices for a {@link LandmarkTable}.
+ *
+ * Good landmarks lie "behind" many source/destination pairs, which on a road
+ * network means near the border of the graph and spread around it. All three
+ * strategies only consider vertices reachable from their starting vertex, so
+ * on a graph with several components the landmarks cover the component of
+ * that vertex.
+ */
+public class LandmarkSelector {
+  public enum Strategy {
+    /**
+     * Repeatedly takes the vertex farthest from all landmarks chosen so far.
+     */
+    FARTHEST,
+    /**
+     * Grows a shortest path tree from a random root and descends into the
+     * subtree whose vertices get the worst bounds from the current landmarks
+     * (Goldberg and Werneck's "avoid").
+     */
+    AVOID,
+    /**
+     * Splits the plane around a central vertex into equal sectors and takes
+     * the vertex farthest from the center in each.
+     */
+    PLANAR
+  }
+
+  private final Graph graph;
+  private final Random random;
+  private final Dijkstra dijkstra;
+
+  public LandmarkSelector(Graph graph, long seed) {
+    this.graph = graph;
+    this.random = new Random(seed);
+    this.dijkstra = new Dijkstra(graph.getNumVertices());
+  }
+
+  /**
+   * Selects landmarks and builds their distance table.
+   */
+  public static LandmarkTable buildTable(Graph graph, int count, Strategy strategy,
+      LandmarkTable.Encoding encoding) {
+    int[] landmarks = new LandmarkSelector(graph, 42).select(count, strategy);
+    return new LandmarkTable(graph, landmarks, encoding);
+  }
+
+  /**
+   * Selects up to {@code count} distinct landmarks. Fewer are returned only if
+   * the reachable part of the graph is too small.
+   */
+  public int[] select(int count, Strategy strategy) {
+    if (count < 1) {
+      throw new IllegalArgumentException("At least one landmark is needed");
+    }
+    switch (strategy) {
+      case FARTHEST:
+        return selectFarthest(count);
+      case AVOID:
+        return selectAvoid(count);
+      case PLANAR:
+        return selectPlanar(count);
+      default:
+        throw new IllegalArgumentException("Unknown strategy: " + strategy);
+    }
+  }
+
+  private int[] selectFarthest(int count) {
+    int numVertices = graph.getNumVertices();
+    double[] minDistance = fullSearch(random.nextInt(numVertices));
+    int[] landmarks = new int[count];
+    int found = 0;
+
+    while (found < count) {
+      // The first round measures from the random start, later rounds from
+      // the closest landmark
+      int best = argMax(minDistance);
+      if (best == -1 || (found > 0 && minDistance[best] == 0)) {
+        break;
+      }
+      landmarks[found++] = best;
+      double[] fromLandmark = fullSearch(best);
+      for (int v = 0; v < numVertices; v++) {
+        if (found == 1 || fromLandmark[v] < minDistance[v]) {
+          minDistance[v] = fromLandmark[v];
+        }
+      }
+    }
+    return Arrays.copyOf(landmarks, found);
+  }
+
+  private int[] selectAvoid(int count) {
+    int numVertices = graph.getNumVertices();
+    int start = random.nextInt(numVertices);
+    double[] fromStart = fullSearch(start);
+    int first = argMax(fromStart);
+    if (first == -1) {
+      return new int[] { start };
+    }
+
+    int[] landmarks = new int[count];
+    float[][] landmarkDistances = new float[count][];
+    boolean[] isLandmark = new boolean[numVertices];
+    landmarks[0] = first;
+    landmarkDistances[0] = toFloats(fullSearch(first));
+    isLandmark[first] = true;
+    int found = 1;
+
+    // Vertices of the component, to draw roots from
+    int[] component = reachedVertices(fromStart);
+    int attempts = 0;
+    while (found < count && attempts < 4 * count) {
+      attempts++;
+      int root = component[random.nextInt(component.length)];
+      dijkstra.findShortestPath(graph, root, -1);
+
+      int leaf = descendWorstSubtree(root, landmarkDistances, found, isLandmark);
+      if (leaf == -1 || isLandmark[leaf]) {
+        continue;
+      }
+      landmarks[found] = leaf;
+      landmarkDistances[found] = toFloats(fullSearch(leaf));
+      isLandmark[leaf] = true;
+      found++;
+    }
+    return Arrays.copyOf(landmarks, found);
+  }
+
+  /**
+   * Works on the tree of the last search from {@code root}. Every vertex
+   * weighs the gap between its distance from the root and the current lower
+   * bound. A subtree's size is the sum of its weights, or 0 if it holds a
+   * landmark. Starting at the root, follow the largest child down to a leaf.
+   */
+  private int descendWorstSubtree(int root, float[][] landmarkDistances, int numLandmarks, boolean[] isLandmark) {
+    int numVertices = graph.getNumVertices();
+
+    // Children of every vertex in CSR form, from the predecessor pointers
+    int[] childStart = new int[numVertices + 1];
+    for (int v = 0; v < numVertices; v++) {
+      int parent = dijkstra.getPrevious(v);
+      if (parent != -1) {
+        childStart[parent + 1]++;
+      }
+    }
+    for (int v = 0; v < numVertices; v++) {
+      childStart[v + 1] += childStart[v];
+    }
+    int[] children = new int[childStart[numVertices]];
+    int[] next = Arrays.copyOf(childStart, numVertices);
+    for (int v = 0; v < numVertices; v++) {
+      int parent = dijkstra.getPrevious(v);
+      if (parent != -1) {
+        children[next[parent]++] = v;
+      }
+    }
+
+    // Breadth-first order puts parents before children
+    int[] order = new int[children.length + 1];
+    order[0] = root;
+    int orderSize = 1;
+    for (int i = 0; i < orderSize; i++) {
+      int v = order[i];
+      for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+        order[orderSize++] = children[c];
+      }
+    }
+
+    double[] size = new double[numVertices];
+    boolean[] hasLandmark = new boolean[numVertices];
+    for (int i = orderSize - 1; i >= 0; i--) {
+      int v = order[i];
+      double bound = 0;
+      for (int l = 0; l < numLandmarks; l++) {
+        bound = Math.max(bound, Math.abs((double) landmarkDistances[l][v] - landmarkDistances[l][root]));
+      }
+      double total = Math.max(0, dijkstra.getDistance(v) - bound);
+      boolean landmarkBelow = isLandmark[v];
+      for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+        total += size[children[c]];
+        landmarkBelow |= hasLandmark[children[c]];
+      }
+      hasLandmark[v] = landmarkBelow;
+      size[v] = landmarkBelow ? 0 : total;
+    }
+
+    int current = root;
+    while (true) {
+      int bestChild = -1;
+      for (int c = childStart[current]; c < childStart[current + 1]; c++) {
+        int child = children[c];
+        if (size[child] > 0 && (bestChild == -1 || size[child] > size[bestChild])) {
+          bestChild = child;
+        }
+      }
+      if (bestChild == -1) {
+        break;
+      }
+      current = bestChild;
+    }
+    return current == root ? -1 : current;
+  }
+
+  private int[] selectPlanar(int count) {
+    int numVertices = graph.getNumVertices();
+    double sumX = 0;
+    double sumY = 0;
+    for (int v = 0; v < numVertices; v++) {
+      sumX += graph.getX(v);
+      sumY += graph.getY(v);
+    }
+    double centerX = sumX / numVertices;
+    double centerY = sumY / numVertices;
+
+    int center = 0;
+    double bestSquared = Double.MAX_VALUE;
+    for (int v = 0; v < numVertices; v++) {
+      double dx = graph.getX(v) - centerX;
+      double dy = graph.getY(v) - centerY;
+      if (dx * dx + dy * dy < bestSquared) {
+        bestSquared = dx * dx + dy * dy;
+        center = v;
+      }
+    }
+
+    double[] fromCenter = fullSearch(center);
+    int[] farthestInSector = new int[count];
+    Arrays.fill(farthestInSector, -1);
+    for (int v = 0; v < numVertices; v++) {
+      if (fromCenter[v] == Double.MAX_VALUE || v == center) {
+        continue;
+      }
+      double angle = Math.atan2(graph.getY(v) - graph.getY(center), graph.getX(v) - graph.getX(center));
+      int sector = (int) ((angle + Math.PI) / (2 * Math.PI) * count);
+      sector = Math.min(sector, count - 1);
+      if (farthestInSector[sector] == -1 || fromCenter[v] > fromCenter[farthestInSector[sector]]) {
+        farthestInSector[sector] = v;
+      }
+    }
+
+    int[] landmarks = new int[count];
+    int found = 0;
+    for (int sector = 0; sector < count; sector++) {
+      if (farthestInSector[sector] != -1) {
+        landmarks[found++] = farthestInSector[sector];
+      }
+    }
+    return found == 0 ? new int[] { center } : Arrays.copyOf(landmarks, found);
+  }
+
+  /**
+   * Runs a search from {@code source} that reaches every vertex and returns
+   * a copy of the distances.
+   */
+  private double[] fullSearch(int source) {
+    dijkstra.findShortestPath(graph, source, -1);
+    double[] distances = new double[graph.getNumVertices()];
+    for (int v = 0; v < distances.length; v++) {
+      distances[v] = dijkstra.getDistance(v);
+    }
+    return distances;
+  }
+
+  /**
+   * Returns the reachable vertex with the largest distance, or -1 if none
+   * other than the source was reached.
+   */
+  private static int argMax(double[] distances) {
+    int best = -1;
+    for (int v = 0; v < distances.length; v++) {
+      if (distances[v] != Double.MAX_VALUE && distances[v] > 0
+          && (best == -1 || distances[v] > distances[best])) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  private static int[] reachedVertices(double[] distances) {
+    int count = 0;
+    for (double distance : distances) {
+      if (distance != Double.MAX_VALUE) {
+        count++;
+      }
+    }
+    int[] reached = new int[count];
+    int i = 0;
+    for (int v = 0; v < distances.length; v++) {
+      if (distances[v] != Double.MAX_VALUE) {
+        reached[i++] = v;
+      }
+    }
+    return reached;
+  }
+
+  private static float[] toFloats(double[] distances) {
+    float[] result = new float[distances.length];
+    for (int v = 0; v < distances.length; v++) {
+      result[v] = distances[v] == Double.MAX_VALUE ? Float.POSITIVE_INFINITY : (float) distances[v];
+    }
+    return result;
+  }
+
+  /**
+   * Compares ALT against plain Dijkstra and straight-line A* on random
+   * queries, for one landmark count, strategy and encoding.
+   *
+   * Usage:
+   * {@code LandmarkSelector <graph> <landmarks> <farthest|avoid|planar> <float|quantized> [queries]}
+   */
+  public static void main(String[] args) {
+    if (args.length < 4 || args.length > 5) {
+      System.err.println("Usage: LandmarkSelector <graph> <landmarks> <farthest|avoid|planar> <float|quantized>"
+          + " [queries]");
+      System.exit(2);
+    }
+    int count = Integer.parseInt(args[1]);
+    Strategy strategy = Strategy.valueOf(args[2].toUpperCase());
+    LandmarkTable.Encoding encoding = LandmarkTable.Encoding.valueOf(args[3].toUpperCase());
+    int numQueries = args.length == 5 ? Integer.parseInt(args[4]) : 1000;
+
+    try {
+      Graph graph = DataProccessor.loadGraph(args[0]);
+      long startTime = System.nanoTime();
+      LandmarkTable table = buildTable(graph, count, strategy, encoding);
+      long buildTime = System.nanoTime() - startTime;
+      System.out.printf("%d landmarks (%s, %s), %.1f MB, built in %.1f ms\n", table.getNumLandmarks(), strategy,
+          encoding, table.getMemoryBytes() / (1024.0 * 1024.0), buildTime / 1e6);
+
+      Dijkstra plain = new Dijkstra(graph.getNumVertices());
+      Dijkstra aStar = new Dijkstra(graph.getNumVertices());
+      aStar.setAStar(true);
+      Dijkstra alt = new Dijkstra(graph.getNumVertices());
+      alt.setHeuristic(table);
+      Dijkstra[] engines = { plain, aStar, alt };
+      String[] names = { "Dijkstra", "A*", "ALT" };
+      long[] times = new long[engines.length];
+
+      Random random = new Random(7);
+      for (int i = 0; i < numQueries; i++) {
+        int source = random.nextInt(graph.getNumVertices());
+        int destination = random.nextInt(graph.getNumVertices());
+        for (int e = 0; e < engines.length; e++) {
+          long queryStart = System.nanoTime();
+          engines[e].findShortestPath(graph, source, destination);
+          times[e] += System.nanoTime() - queryStart;
+        }
+      }
+      for (int e = 0; e < engines.length; e++) {
+        System.out.printf("%s: %.3f ms per query\n", names[e], times[e] / 1e6 / numQueries);
+      }
+    } catch (IOException e) {
+      System.err.println("Error loading graph: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * Exact shortest distances from a few landmark vertices to every vertex, used
+ * as an A* lower bound (ALT).
+ *
+ * By the triangle inequality {@code |d(L, t) - d(L, v)|} is a lower bound on
+ * {@code d(v, t)} for every landmark {@code L}. The estimate is the largest of
+ * those bounds and the straight-line distance. On road networks with detours
+ * it is much tighter than the straight-line distance alone.
+ *
+ * The distances are stored vertex by vertex, so one estimate reads a single
+ * contiguous run of entries. Two encodings trade memory against precision:
+ * {@link Encoding#FLOAT} uses 4 bytes per entry, {@link Encoding#QUANTIZED}
+ * uses 2 bytes with a step of {@code maxDistance / 65534} per landmark. Both
+ * round down and the estimate subtracts the worst-case rounding error, so it
+ * stays a lower bound.
+ */
+public class LandmarkTable implements Heuristic {
+  public enum Encoding {
+    FLOAT, QUANTIZED
+  }
+
+  private static final char UNREACHABLE = Character.MAX_VALUE;
+  private static final int QUANTIZED_STEPS = Character.MAX_VALUE - 1;
+
+  private final int[] landmarks;
+  private final int numVertices;
+  private final Encoding encoding;
+  private final float[] floatDistances;
+  private final char[] quantizedDistances;
+  private final double[] steps; // Quantization step per landmark
+  private final double[] slacks; // Largest error of a difference of two entries, per landmark
+
+  /**
+   * Builds the table by running a full {@link Dijkstra} from every landmark.
+   *
+   * @param graph     the graph to compute distances on
+   * @param landmarks the landmark vertex ids
+   * @param encoding  how to store the distances
+   * @throws IllegalArgumentException if there are no landmarks or the table
+   *                                  would not fit in one array
+   */
+  public LandmarkTable(Graph graph, int[] landmarks, Encoding encoding) {
+    if (landmarks.length == 0) {
+      throw new IllegalArgumentException("At least one landmark is needed");
+    }
+    if ((long) landmarks.length * graph.getNumVertices() > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many landmarks for a graph of this size");
+    }
+    this.landmarks = landmarks.clone();
+    this.numVertices = graph.getNumVertices();
+    this.encoding = encoding;
+    int k = landmarks.length;
+
+    if (encoding == Encoding.FLOAT) {
+      floatDistances = new float[k * numVertices];
+      quantizedDistances = null;
+    } else {
+      floatDistances = null;
+      quantizedDistances = new char[k * numVertices];
+    }
+    steps = new double[k];
+    slacks = new double[k];
+
+    // One full search per landmark; it reaches every vertex because -1 is
+    // never settled
+    Dijkstra dijkstra = new Dijkstra(numVertices);
+    for (int l = 0; l < k; l++) {
+      dijkstra.findShortestPath(graph, landmarks[l], -1);
+      double maxDistance = 0;
+      for (int v = 0; v < numVertices; v++) {
+        double distance = dijkstra.getDistance(v);
+        if (distance != Double.MAX_VALUE) {
+          maxDistance = Math.max(maxDistance, distance);
+        }
+      }
+
+      if (encoding == Encoding.FLOAT) {
+        // A float rounded down is off by less than one ulp of the largest value
+        slacks[l] = Math.ulp((float) maxDistance);
+        for (int v = 0; v < numVertices; v++) {
+          floatDistances[v * k + l] = roundDown(dijkstra.getDistance(v));
+        }
+      } else {
+        steps[l] = Math.max(maxDistance, 1) / QUANTIZED_STEPS;
+        slacks[l] = steps[l];
+        for (int v = 0; v < numVertices; v++) {
+          double distance = dijkstra.getDistance(v);
+          quantizedDistances[v * k + l] = distance == Double.MAX_VALUE ? UNREACHABLE
+              : (char) Math.min(QUANTIZED_STEPS, (long) Math.floor(distance / steps[l]));
+        }
+      }
+    }
+  }
+
+  private static float roundDown(double distance) {
+    if (distance == Double.MAX_VALUE) {
+      return Float.POSITIVE_INFINITY;
+    }
+    float rounded = (float) distance;
+    return rounded > distance ? Math.nextDown(rounded) : rounded;
+  }
+
+  @Override
+  public double estimate(Graph graph, int vertexId, int destination) {
+    return Math.max(landmarkBound(vertexId, destination), graph.euclideanDistance(vertexId, destination));
+  }
+
+  /**
+   * Returns the best landmark lower bound on the distance between two
+   * vertices. Landmarks that cannot reach one of them do not contribute.
+   */
+  public double landmarkBound(int vertexId, int destination) {
+    int k = landmarks.length;
+    int vertexBase = vertexId * k;
+    int destinationBase = destination * k;
+    double best = 0;
+
+    if (encoding == Encoding.FLOAT) {
+      for (int l = 0; l < k; l++) {
+        float a = floatDistances[vertexBase + l];
+        float b = floatDistances[destinationBase + l];
+        if (a != Float.POSITIVE_INFINITY && b != Float.POSITIVE_INFINITY) {
+          best = Math.max(best, Math.abs(a - (double) b) - slacks[l]);
+        }
+      }
+    } else {
+      for (int l = 0; l < k; l++) {
+        char a = quantizedDistances[vertexBase + l];
+        char b = quantizedDistances[destinationBase + l];
+        if (a != UNREACHABLE && b != UNREACHABLE) {
+          best = Math.max(best, Math.abs(a - b) * steps[l] - slacks[l]);
+        }
+      }
+    }
+    return best;
+  }
+
+  public int getNumLandmarks() {
+    return landmarks.length;
+  }
+
+  public int getLandmark(int index) {
+    return landmarks[index];
+  }
+
+  public Encoding getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * Returns the size of the distance table in bytes.
+   */
+  public long getMemoryBytes() {
+    long entries = (long) landmarks.length * numVertices;
+    return encoding == Encoding.FLOAT ? 4 * entries : 2 * entries;
+  }
+}
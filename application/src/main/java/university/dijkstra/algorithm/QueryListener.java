@@ -0,0 +1,49 @@
+package university.dijkstra.algorithm;
+
+/**
+ * Watches the searches of a {@link BatchQueryRunner} and the workspace pool
+ * of a {@link ConcurrentQueryEngine}, so they can be monitored without the
+ * search code knowing about the monitoring.
+ *
+ * Every method does nothing by default. The methods are called from the
+ * worker threads, so an implementation must be thread-safe.
+ */
+public interface QueryListener {
+  /** A listener that ignores everything. */
+  QueryListener NONE = new QueryListener() {
+  };
+
+  /**
+   * Whether the searches should collect {@link SearchStatistics} for
+   * {@link #searchFinished}. Asked once per worker when it starts.
+   */
+  default boolean wantsStatistics() {
+    return false;
+  }
+
+  /**
+   * Called right before a search. What it returns, null included, is passed
+   * to {@link #searchFinished} for the same search.
+   */
+  default Object searchStarting() {
+    return null;
+  }
+
+  /**
+   * Called after a search from {@code source} that answered all of
+   * {@code destinations}, which must not be modified. The engine still holds
+   * the search's results.
+   */
+  default void searchFinished(Object context, ShortestPathEngine engine, int source, int[] destinations,
+      long nanos) {
+  }
+
+  default void workspaceCreated() {
+  }
+
+  default void workspaceLeased() {
+  }
+
+  default void workspaceReturned() {
+  }
+}
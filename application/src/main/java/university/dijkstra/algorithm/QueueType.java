@@ -0,0 +1,68 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.data_structures.BucketQueue;
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.data_structures.IntPriorityQueue;
+import university.dijkstra.data_structures.PairingHeap;
+import university.dijkstra.data_structures.RadixHeap;
+import university.dijkstra.model.Graph;
+
+/**
+ * The priority queues a {@link Dijkstra} can run on, so a deployment can pick
+ * the fastest one for its graph from the results of the QueueBenchmark in the
+ * benchmarks module.
+ *
+ * The radix heap and the bucket queue group keys at a resolution of 1/64 of
+ * the average arc weight. The exact keys still decide the order inside a
+ * group, so all queues give the same results.
+ */
+public enum QueueType {
+  BINARY_HEAP, FOUR_ARY_HEAP, PAIRING_HEAP, RADIX_HEAP, DIAL;
+
+  private static final double RESOLUTION_PER_AVERAGE_WEIGHT = 1.0 / 64;
+
+  /**
+   * Creates a queue of this type sized for the graph.
+   */
+  public IntPriorityQueue create(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    switch (this) {
+      case BINARY_HEAP:
+        return new IndexedMinHeap(numVertices, 2);
+      case FOUR_ARY_HEAP:
+        return new IndexedMinHeap(numVertices, 4);
+      case PAIRING_HEAP:
+        return new PairingHeap(numVertices);
+      case RADIX_HEAP:
+        return new RadixHeap(numVertices, resolution(graph));
+      case DIAL:
+        return new BucketQueue(numVertices, resolution(graph), maxWeight(graph));
+      default:
+        throw new IllegalArgumentException("Unknown queue type: " + this);
+    }
+  }
+
+  /**
+   * Parses a name such as "radix_heap" or "dial", ignoring case.
+   */
+  public static QueueType fromName(String name) {
+    return valueOf(name.toUpperCase().replace('-', '_'));
+  }
+
+  private static double resolution(Graph graph) {
+    double total = 0;
+    for (int e = 0; e < graph.getNumArcs(); e++) {
+      total += graph.getWeight(e);
+    }
+    double average = graph.getNumArcs() == 0 ? 1 : total / graph.getNumArcs();
+    return average > 0 ? average * RESOLUTION_PER_AVERAGE_WEIGHT : 1;
+  }
+
+  private static double maxWeight(Graph graph) {
+    double max = 0;
+    for (int e = 0; e < graph.getNumArcs(); e++) {
+      max = Math.max(max, graph.getWeight(e));
+    }
+    return max;
+  }
+}
@@ -0,0 +1,71 @@
+package university.dijkstra.algorithm;
+
+/**
+ * The vertices within a distance of a source, as found by
+ * {@link Dijkstra#findWithinDistance}: the service area of the source.
+ *
+ * The vertices are in the order they were settled, closest first, with
+ * their distance and their predecessor on the shortest path at the same
+ * index, so the set is also the shortest path tree of the area. The arrays
+ * belong to the set; the getters return them without copying, and they must
+ * not be modified.
+ */
+public class ReachableSet {
+  private final int source;
+  private final double maxDistance;
+  private final int[] vertices;
+  private final double[] distances;
+  private final int[] previous;
+
+  ReachableSet(int source, double maxDistance, int[] vertices, double[] distances, int[] previous) {
+    this.source = source;
+    this.maxDistance = maxDistance;
+    this.vertices = vertices;
+    this.distances = distances;
+    this.previous = previous;
+  }
+
+  public int getSource() {
+    return source;
+  }
+
+  public double getMaxDistance() {
+    return maxDistance;
+  }
+
+  public int size() {
+    return vertices.length;
+  }
+
+  /**
+   * Returns the reached vertex ids, closest first.
+   */
+  public int[] getVertices() {
+    return vertices;
+  }
+
+  /**
+   * Returns the distances from the source, parallel to
+   * {@link #getVertices}.
+   */
+  public double[] getDistances() {
+    return distances;
+  }
+
+  /**
+   * Returns the predecessor of every vertex on its path from the source,
+   * parallel to {@link #getVertices}; -1 for the source. A predecessor
+   * is always in the set, earlier than the vertex.
+   */
+  public int[] getPrevious() {
+    return previous;
+  }
+
+  /**
+   * Returns the largest distance in the set, 0 if only the source was
+   * reached.
+   */
+  public double getFarthestDistance() {
+    return distances.length == 0 ? 0 : distances[distances.length - 1];
+  }
+}
@@ -0,0 +1,83 @@
+package university.dijkstra.algorithm;
+
+import java.util.function.Function;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.VertexOrder;
+
+/**
+ * Runs an engine on a renumbered copy of a graph while speaking the graph's
+ * own vertex ids, see {@link VertexOrder}.
+ *
+ * Sources and destinations are translated to internal ids on the way in,
+ * and distances and predecessors are looked up and translated back on the
+ * way out, so callers and {@link #reconstructPath} never see internal ids.
+ * The translation costs two array reads per call; the search itself runs on
+ * the renumbered arrays.
+ */
+public class ReorderedEngine implements ShortestPathEngine {
+  private final Graph graph;
+  private final VertexOrder order;
+  private final Graph internalGraph;
+  private final ShortestPathEngine engine;
+
+  /**
+   * Renumbers the graph and creates the engine for the renumbered copy.
+   *
+   * @param graph   the graph with the external ids
+   * @param order   the renumbering
+   * @param factory creates the engine for a graph, here for the renumbered
+   *                one
+   */
+  public ReorderedEngine(Graph graph, VertexOrder order, Function<Graph, ShortestPathEngine> factory) {
+    this.graph = graph;
+    this.order = order;
+    this.internalGraph = order.apply(graph);
+    this.engine = factory.apply(internalGraph);
+  }
+
+  public VertexOrder getOrder() {
+    return order;
+  }
+
+  public Graph getInternalGraph() {
+    return internalGraph;
+  }
+
+  public ShortestPathEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the graph is not the one the engine
+   *                                  was created for
+   */
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    if (graph != this.graph) {
+      throw new IllegalArgumentException("The engine was created for a different graph");
+    }
+    engine.findShortestPath(internalGraph, order.toInternal(source),
+        destination == -1 ? -1 : order.toInternal(destination));
+  }
+
+  @Override
+  public double getDistance(int vertexId) {
+    return engine.getDistance(order.toInternal(vertexId));
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return order.toExternal(engine.getPrevious(order.toInternal(vertexId)));
+  }
+
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    engine.setStatisticsEnabled(enabled);
+  }
+
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return engine.getLastStatistics();
+  }
+}
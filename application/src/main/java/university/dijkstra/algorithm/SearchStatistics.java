@@ -0,0 +1,154 @@
+package university.dijkstra.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Counters of the work a shortest path search did, for one query or added up
+ * over many.
+ *
+ * An engine with statistics switched on fills one instance per query; see
+ * {@link ShortestPathEngine#setStatisticsEnabled}. Switched off, an engine
+ * does not read the clock or touch a statistics object. To compare engines
+ * or queues over a workload, {@link #add} the statistics of every query to a
+ * total.
+ *
+ * Time is split into phases: resetting the workspace, the search itself,
+ * for engines that store a packed path, unpacking it into original edges
+ * and, for {@link DeltaStepping}, picking the predecessors after the
+ * distances are final.
+ */
+public class SearchStatistics {
+  public enum Phase {
+    INITIALIZATION, SEARCH, UNPACKING, PREDECESSORS
+  }
+
+  private long queries;
+  private long settled; // Vertices whose distance became final
+  private long arcsScanned;
+  private long relaxations; // Arcs that improved a label
+  private long inserts;
+  private long decreaseKeys;
+  private long pops;
+  private long stalePops; // Pops of an outdated entry, skipped without expanding
+  private int peakQueueSize;
+  private final long[] phaseNanos = new long[Phase.values().length];
+
+  /**
+   * Clears the counters for the next query.
+   */
+  public void reset() {
+    queries = 0;
+    settled = 0;
+    arcsScanned = 0;
+    relaxations = 0;
+    inserts = 0;
+    decreaseKeys = 0;
+    pops = 0;
+    stalePops = 0;
+    peakQueueSize = 0;
+    Arrays.fill(phaseNanos, 0);
+  }
+
+  /**
+   * Records one query. Engines call this once at the end of a search.
+   */
+  void recordQuery(long settled, long arcsScanned, long relaxations, long inserts, long decreaseKeys, long pops,
+      long stalePops, int peakQueueSize) {
+    this.queries++;
+    this.settled += settled;
+    this.arcsScanned += arcsScanned;
+    this.relaxations += relaxations;
+    this.inserts += inserts;
+    this.decreaseKeys += decreaseKeys;
+    this.pops += pops;
+    this.stalePops += stalePops;
+    this.peakQueueSize = Math.max(this.peakQueueSize, peakQueueSize);
+  }
+
+  void addPhaseNanos(Phase phase, long nanos) {
+    phaseNanos[phase.ordinal()] += nanos;
+  }
+
+  /**
+   * Adds the counters of {@code other} to these. The peak queue size becomes
+   * the larger of the two.
+   */
+  public void add(SearchStatistics other) {
+    queries += other.queries;
+    settled += other.settled;
+    arcsScanned += other.arcsScanned;
+    relaxations += other.relaxations;
+    inserts += other.inserts;
+    decreaseKeys += other.decreaseKeys;
+    pops += other.pops;
+    stalePops += other.stalePops;
+    peakQueueSize = Math.max(peakQueueSize, other.peakQueueSize);
+    for (int i = 0; i < phaseNanos.length; i++) {
+      phaseNanos[i] += other.phaseNanos[i];
+    }
+  }
+
+  public long getQueries() {
+    return queries;
+  }
+
+  public long getSettled() {
+    return settled;
+  }
+
+  public long getArcsScanned() {
+    return arcsScanned;
+  }
+
+  public long getRelaxations() {
+    return relaxations;
+  }
+
+  public long getInserts() {
+    return inserts;
+  }
+
+  public long getDecreaseKeys() {
+    return decreaseKeys;
+  }
+
+  public long getPops() {
+    return pops;
+  }
+
+  public long getStalePops() {
+    return stalePops;
+  }
+
+  public int getPeakQueueSize() {
+    return peakQueueSize;
+  }
+
+  public long getPhaseNanos(Phase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  public long getTotalNanos() {
+    long total = 0;
+    for (long nanos : phaseNanos) {
+      total += nanos;
+    }
+    return total;
+  }
+
+  /**
+   * Prints the counters and times per query.
+   */
+  @Override
+  public String toString() {
+    double n = Math.max(1, queries);
+    return String.format(
+        "%d queries, per query: %.1f settled, %.1f arcs scanned, %.1f relaxations, %.1f inserts, "
+            + "%.1f decrease-keys, %.1f pops (%.1f stale), peak queue %d; "
+            + "initialization %.3f ms, search %.3f ms, unpacking %.3f ms, predecessors %.3f ms",
+        queries, settled / n, arcsScanned / n, relaxations / n, inserts / n, decreaseKeys / n, pops / n,
+        stalePops / n, peakQueueSize, getPhaseNanos(Phase.INITIALIZATION) / 1e6 / n,
+        getPhaseNanos(Phase.SEARCH) / 1e6 / n, getPhaseNanos(Phase.UNPACKING) / 1e6 / n,
+        getPhaseNanos(Phase.PREDECESSORS) / 1e6 / n);
+  }
+}
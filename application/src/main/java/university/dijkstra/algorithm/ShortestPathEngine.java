@@ -0,0 +1,82 @@
+package university.dijkstra.algorithm;
+
+import university.dijkstra.data_structures.List;
+import university.dijkstra.model.Graph;
+
+/**
+ * A point-to-point shortest path search over a {@link Graph}.
+ * 
+ * An engine keeps the result of its last query: after
+ * {@link #findShortestPath} the distance to the destination and the
+ * predecessor chain from the destination back to the source are available
+ * until the next query.
+ */
+public interface ShortestPathEngine {
+
+  /**
+   * Searches for a shortest path and keeps the result for the getters below.
+   */
+  void findShortestPath(Graph graph, int source, int destination);
+
+  /**
+   * Returns the distance of the given vertex from the last source, or
+   * {@code Double.MAX_VALUE} if it was not reached. Always exact for the
+   * destination and the vertices on its path.
+   */
+  double getDistance(int vertexId);
+
+  /**
+   * Returns the vertex before the given one on its path from the last source,
+   * or -1 if there is none.
+   */
+  int getPrevious(int vertexId);
+
+  /**
+   * Switches counting of {@link SearchStatistics} for the following queries
+   * on or off. It is off by default. Engines that do not count ignore it.
+   */
+  default void setStatisticsEnabled(boolean enabled) {
+  }
+
+  /**
+   * Returns the statistics of the last query, or null if they are switched
+   * off. The object is reused by the next query; {@link SearchStatistics#add}
+   * it to a total to keep it.
+   */
+  default SearchStatistics getLastStatistics() {
+    return null;
+  }
+
+  /**
+   * Follows the predecessors from the destination back to the source.
+   * 
+   * @return the path from source to destination, or null if there is none
+   */
+  default List<Integer> reconstructPath(int source, int destination) {
+    List<Integer> path = new List<>();
+    int current = destination;
+
+    while (current != -1 && current != source) {
+      path.add(current);
+      current = getPrevious(current);
+    }
+
+    if (current == source) {
+      path.add(source);
+      // Reverse the path since we built it backwards
+      return reversePath(path);
+    }
+
+    return null; // No path found
+  }
+
+  private static List<Integer> reversePath(List<Integer> path) {
+    List<Integer> reversedPath = new List<>();
+    List.Node<Integer> current = path.getTail();
+    while (current != null) {
+      reversedPath.add(current.getData());
+      current = current.getPrevious();
+    }
+    return reversedPath;
+  }
+}
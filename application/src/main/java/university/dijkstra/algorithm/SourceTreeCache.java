@@ -0,0 +1,329 @@
+package university.dijkstra.algorithm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * A {@link ShortestPathEngine} that keeps complete shortest path trees for
+ * sources that are queried often.
+ *
+ * A tree is stored as one predecessor per vertex, 4 bytes per vertex instead
+ * of the 12 of a distance and predecessor pair. Distances are summed along
+ * the path when asked for, with the lightest arc between two path vertices,
+ * which is exactly how {@link Dijkstra} computed them. A query from a cached
+ * source therefore costs O(path length) and gives the same result as a
+ * search.
+ *
+ * A source is admitted once it has been queried
+ * {@code admissionThreshold} times; admitting it costs one search over the
+ * whole graph instead of a point-to-point one. Trees are kept within a
+ * memory budget. When the budget is used up, LRU evicts the least recently
+ * used tree, and LFU the least frequently queried one, but only for a source
+ * queried more often. Query counts are halved now and then so that old
+ * popularity fades.
+ *
+ * Like the other engines an instance serves one query at a time.
+ */
+public class SourceTreeCache implements ShortestPathEngine {
+  public enum Policy {
+    LRU, LFU
+  }
+
+  public static final int DEFAULT_ADMISSION_THRESHOLD = 2;
+  private static final int TREE_OVERHEAD_BYTES = 64; // Array header and map entry, roughly
+
+  private final Graph graph;
+  private final Dijkstra dijkstra;
+  private final Policy policy;
+  private final long memoryBudget;
+  private final int maxTrees;
+  private final int admissionThreshold;
+  private final LinkedHashMap<Integer, int[]> trees = new LinkedHashMap<>(16, 0.75f, true); // In access order
+  private final HashMap<Integer, Integer> frequencies = new HashMap<>();
+  private final int maxTrackedSources;
+
+  private long hits;
+  private long misses;
+  private long treesBuilt;
+  private long evictions;
+
+  // The last query, answered from a tree or by the Dijkstra
+  private int[] currentTree;
+  private int currentSource;
+  private boolean lastHit;
+  private int[] pathScratch = new int[64];
+  private SearchStatistics statistics; // Null while statistics are off
+
+  /**
+   * Cache statistics since the cache was created.
+   */
+  public static class Statistics {
+    private final long hits;
+    private final long misses;
+    private final long treesBuilt;
+    private final long evictions;
+    private final int cachedTrees;
+    private final long memoryBytes;
+    private final long memoryBudget;
+
+    Statistics(long hits, long misses, long treesBuilt, long evictions, int cachedTrees, long memoryBytes,
+        long memoryBudget) {
+      this.hits = hits;
+      this.misses = misses;
+      this.treesBuilt = treesBuilt;
+      this.evictions = evictions;
+      this.cachedTrees = cachedTrees;
+      this.memoryBytes = memoryBytes;
+      this.memoryBudget = memoryBudget;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public double getHitRatio() {
+      return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public long getTreesBuilt() {
+      return treesBuilt;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    public int getCachedTrees() {
+      return cachedTrees;
+    }
+
+    public long getMemoryBytes() {
+      return memoryBytes;
+    }
+
+    public long getMemoryBudget() {
+      return memoryBudget;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d hits, %d misses (%.1f%% hit ratio), %d trees built, %d evicted, %d cached in %.1f of %.1f MB",
+          hits, misses, 100 * getHitRatio(), treesBuilt, evictions, cachedTrees, memoryBytes / (1024.0 * 1024.0),
+          memoryBudget / (1024.0 * 1024.0));
+    }
+  }
+
+  public SourceTreeCache(Graph graph, long memoryBudget, Policy policy) {
+    this(graph, memoryBudget, policy, DEFAULT_ADMISSION_THRESHOLD);
+  }
+
+  /**
+   * @param graph              the graph all queries run on
+   * @param memoryBudget       bytes the cached trees may take together
+   * @param policy             which tree to evict when the budget is used up
+   * @param admissionThreshold queries from a source before its tree is kept,
+   *                           1 to keep every source
+   * @throws IllegalArgumentException if the budget is negative or the
+   *                                  threshold less than 1
+   */
+  public SourceTreeCache(Graph graph, long memoryBudget, Policy policy, int admissionThreshold) {
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("Memory budget must not be negative");
+    }
+    if (admissionThreshold < 1) {
+      throw new IllegalArgumentException("Admission threshold must be at least 1");
+    }
+    this.graph = graph;
+    this.dijkstra = new Dijkstra(graph.getNumVertices());
+    this.policy = policy;
+    this.memoryBudget = memoryBudget;
+    this.maxTrees = (int) Math.min(Integer.MAX_VALUE, memoryBudget / getTreeBytes());
+    this.admissionThreshold = admissionThreshold;
+    this.maxTrackedSources = (int) Math.min(1 << 20, 4L * maxTrees + 1024);
+  }
+
+  /**
+   * Answers the query from a cached tree if there is one for the source.
+   *
+   * @throws IllegalArgumentException if the graph is not the cache's graph
+   */
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    if (graph != this.graph) {
+      throw new IllegalArgumentException("The cache was created for a different graph");
+    }
+    int frequency = countQuery(source);
+    currentSource = source;
+    currentTree = trees.get(source);
+    lastHit = currentTree != null;
+    if (lastHit) {
+      hits++;
+      if (statistics != null) {
+        // Answered without a search
+        statistics.reset();
+        statistics.recordQuery(0, 0, 0, 0, 0, 0, 0, 0);
+      }
+      return;
+    }
+
+    misses++;
+    if (frequency >= admissionThreshold && makeRoom(frequency)) {
+      dijkstra.findShortestPathTree(graph, source);
+      int[] tree = new int[graph.getNumVertices()];
+      for (int v = 0; v < tree.length; v++) {
+        tree[v] = dijkstra.getPrevious(v);
+      }
+      trees.put(source, tree);
+      treesBuilt++;
+      currentTree = tree;
+    } else {
+      dijkstra.findShortestPath(graph, source, destination);
+    }
+    if (statistics != null) {
+      statistics.reset();
+      statistics.add(dijkstra.getLastStatistics());
+    }
+  }
+
+  /**
+   * Sums the distance along the cached path, so it costs O(path length) when
+   * the query was a hit.
+   */
+  @Override
+  public double getDistance(int vertexId) {
+    if (currentTree == null) {
+      return dijkstra.getDistance(vertexId);
+    }
+    // Collect the path backwards, then add the arcs from the source on, in
+    // the same order as the search did
+    int length = 0;
+    for (int v = vertexId; v != -1; v = currentTree[v]) {
+      if (length == pathScratch.length) {
+        pathScratch = Arrays.copyOf(pathScratch, length * 2);
+      }
+      pathScratch[length++] = v;
+    }
+    if (pathScratch[length - 1] != currentSource) {
+      return Double.MAX_VALUE;
+    }
+    double distance = 0;
+    for (int i = length - 1; i > 0; i--) {
+      distance += graph.findEdgeWeight(pathScratch[i], pathScratch[i - 1]);
+    }
+    return distance;
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return currentTree != null ? currentTree[vertexId] : dijkstra.getPrevious(vertexId);
+  }
+
+  /**
+   * Counts the search behind a miss; a hit counts as a query without work.
+   */
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    dijkstra.setStatisticsEnabled(enabled);
+    statistics = enabled ? new SearchStatistics() : null;
+  }
+
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Returns true if the last query was answered from a cached tree.
+   */
+  public boolean wasHit() {
+    return lastHit;
+  }
+
+  public boolean isCached(int source) {
+    return trees.containsKey(source);
+  }
+
+  /**
+   * Returns the bytes one cached tree takes.
+   */
+  public long getTreeBytes() {
+    return 4L * graph.getNumVertices() + TREE_OVERHEAD_BYTES;
+  }
+
+  public Statistics getStatistics() {
+    return new Statistics(hits, misses, treesBuilt, evictions, trees.size(), trees.size() * getTreeBytes(),
+        memoryBudget);
+  }
+
+  /**
+   * Drops all trees and query counts. The statistics are kept.
+   */
+  public void clear() {
+    trees.clear();
+    frequencies.clear();
+    currentTree = null;
+    lastHit = false;
+  }
+
+  private int countQuery(int source) {
+    if (frequencies.size() >= maxTrackedSources && !frequencies.containsKey(source)) {
+      // Age the counts so that sources that were popular long ago fade out
+      Iterator<Map.Entry<Integer, Integer>> it = frequencies.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Integer, Integer> entry = it.next();
+        int halved = entry.getValue() / 2;
+        if (halved == 0) {
+          it.remove();
+        } else {
+          entry.setValue(halved);
+        }
+      }
+    }
+    return frequencies.merge(source, 1, Integer::sum);
+  }
+
+  /**
+   * Makes room for one more tree whose source was queried
+   * {@code frequency} times, evicting one if the budget is used up.
+   *
+   * @return false if the tree should not be cached
+   */
+  private boolean makeRoom(int frequency) {
+    if (maxTrees == 0) {
+      return false;
+    }
+    if (trees.size() < maxTrees) {
+      return true;
+    }
+
+    Integer victim = null;
+    if (policy == Policy.LRU) {
+      victim = trees.keySet().iterator().next(); // Least recently used comes first
+    } else {
+      int lowest = Integer.MAX_VALUE;
+      for (Integer cached : trees.keySet()) {
+        int cachedFrequency = frequencies.getOrDefault(cached, 0);
+        if (cachedFrequency < lowest) {
+          lowest = cachedFrequency;
+          victim = cached;
+        }
+      }
+      if (lowest >= frequency) {
+        return false;
+      }
+    }
+    trees.remove(victim);
+    evictions++;
+    return true;
+  }
+}
@@ -0,0 +1,232 @@
+package university.dijkstra.data_structures;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue for monotone keys.
+ *
+ * Key {@code k} goes into bucket {@code floor(k / bucketWidth)}. Dijkstra
+ * never has keys further apart than the largest edge weight, so a circular
+ * array of {@code maxEdgeWeight / bucketWidth + 2} buckets covers every
+ * queued key. Extraction walks forward to the next non-empty bucket and takes
+ * the entry with the smallest exact key in it, so the order is exact. If a
+ * key does fall beyond the window, for example with an A* estimate, the
+ * array is doubled.
+ *
+ * A decrease-key that changes the bucket appends a new entry and leaves the
+ * old one behind to be skipped later. Keys below the current bucket are put
+ * into the current bucket.
+ *
+ * The slots that received entries since the last {@link #clear()} are kept
+ * in a list, so clearing costs the slots a search used rather than the whole
+ * array, which can have millions of slots when arcs are long.
+ */
+public class BucketQueue implements IntPriorityQueue {
+  private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+  private final double bucketWidth;
+  private final double[] keys; // Exact key per id
+  private final long[] bucketIndex; // Bucket per id, identifies its live entry
+  private final boolean[] queued;
+  private int[][] bucketIds;
+  private int[] bucketSizes;
+  private int[] usedSlots; // Slots with entries since the last clear
+  private boolean[] isUsed;
+  private int numUsedSlots;
+  private long current; // Bucket of the smallest queued key
+  private int size;
+  private int peakSize;
+
+  /**
+   * @param capacity      number of distinct ids
+   * @param bucketWidth   range of keys per bucket
+   * @param maxEdgeWeight largest edge weight, which sets the number of buckets
+   * @throws IllegalArgumentException if capacity is less than 1 or the width
+   *                                  is not positive
+   */
+  public BucketQueue(int capacity, double bucketWidth, double maxEdgeWeight) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    if (!(bucketWidth > 0)) {
+      throw new IllegalArgumentException("Bucket width must be positive");
+    }
+    this.bucketWidth = bucketWidth;
+    keys = new double[capacity];
+    bucketIndex = new long[capacity];
+    queued = new boolean[capacity];
+    int numBuckets = (int) Math.min(1 << 24, (long) Math.ceil(maxEdgeWeight / bucketWidth) + 2);
+    bucketIds = new int[Math.max(2, numBuckets)][];
+    bucketSizes = new int[bucketIds.length];
+    usedSlots = new int[bucketIds.length];
+    isUsed = new boolean[bucketIds.length];
+  }
+
+  @Override
+  public boolean insertOrDecrease(int id, double key) {
+    long bucket = Math.max(current, (long) Math.floor(key / bucketWidth));
+    if (queued[id]) {
+      if (key >= keys[id]) {
+        return false;
+      }
+      keys[id] = key;
+      if (bucket == bucketIndex[id]) {
+        return true;
+      }
+    } else {
+      queued[id] = true;
+      keys[id] = key;
+      if (size == 0) {
+        current = bucket;
+      }
+      size++;
+      if (size > peakSize) {
+        peakSize = size;
+      }
+    }
+    while (bucket - current >= bucketIds.length) {
+      grow();
+    }
+    bucketIndex[id] = bucket;
+    append(slot(bucket), id);
+    return true;
+  }
+
+  @Override
+  public int dequeue() {
+    int index = findMinimum();
+    int slot = slot(current);
+    int minId = bucketIds[slot][index];
+    removeEntry(slot, index);
+    queued[minId] = false;
+    size--;
+    return minId;
+  }
+
+  @Override
+  public double peekKey() {
+    return keys[bucketIds[slot(current)][findMinimum()]];
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return queued[id];
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getPeakSize() {
+    return peakSize;
+  }
+
+  @Override
+  public void clear() {
+    for (int u = 0; u < numUsedSlots; u++) {
+      int s = usedSlots[u];
+      for (int i = 0; i < bucketSizes[s]; i++) {
+        queued[bucketIds[s][i]] = false;
+      }
+      bucketSizes[s] = 0;
+      isUsed[s] = false;
+    }
+    numUsedSlots = 0;
+    current = 0;
+    size = 0;
+    peakSize = 0;
+  }
+
+  public int getNumBuckets() {
+    return bucketIds.length;
+  }
+
+  private int slot(long bucket) {
+    return (int) (bucket % bucketIds.length);
+  }
+
+  private void append(int slot, int id) {
+    if (!isUsed[slot]) {
+      isUsed[slot] = true;
+      usedSlots[numUsedSlots++] = slot;
+    }
+    if (bucketIds[slot] == null) {
+      bucketIds[slot] = new int[INITIAL_BUCKET_CAPACITY];
+    } else if (bucketSizes[slot] == bucketIds[slot].length) {
+      bucketIds[slot] = Arrays.copyOf(bucketIds[slot], bucketSizes[slot] * 2);
+    }
+    bucketIds[slot][bucketSizes[slot]++] = id;
+  }
+
+  private void removeEntry(int slot, int index) {
+    int lastIndex = --bucketSizes[slot];
+    bucketIds[slot][index] = bucketIds[slot][lastIndex];
+  }
+
+  /**
+   * Advances to the first bucket with a live entry and returns the index of
+   * the entry with the smallest exact key in it.
+   */
+  private int findMinimum() {
+    if (size == 0) {
+      throw new IllegalStateException("Queue is empty");
+    }
+    while (true) {
+      int slot = slot(current);
+      int best = -1;
+      for (int i = 0; i < bucketSizes[slot]; i++) {
+        int id = bucketIds[slot][i];
+        if (!queued[id] || bucketIndex[id] != current) {
+          removeEntry(slot, i--); // Stale entry
+        } else if (best == -1 || keys[id] < keys[bucketIds[slot][best]]) {
+          best = i;
+        }
+      }
+      if (best != -1) {
+        return best;
+      }
+      current++;
+    }
+  }
+
+  /**
+   * Doubles the number of buckets and moves the live entries to their new
+   * slots.
+   */
+  private void grow() {
+    int[][] oldIds = bucketIds;
+    int[] oldSizes = bucketSizes;
+    bucketIds = new int[oldIds.length * 2][];
+    bucketSizes = new int[bucketIds.length];
+    usedSlots = new int[bucketIds.length];
+    isUsed = new boolean[bucketIds.length];
+    numUsedSlots = 0;
+    for (int s = 0; s < oldIds.length; s++) {
+      for (int i = 0; i < oldSizes[s]; i++) {
+        int id = oldIds[s][i];
+        // Stale entries are dropped here. An id can only have two live
+        // entries in one slot if it was reinserted into the same bucket.
+        if (queued[id] && bucketIndex[id] % oldIds.length == s && !isPlaced(id)) {
+          append(slot(bucketIndex[id]), id);
+        }
+      }
+    }
+  }
+
+  private boolean isPlaced(int id) {
+    int slot = slot(bucketIndex[id]);
+    for (int i = 0; i < bucketSizes[slot]; i++) {
+      if (bucketIds[slot][i] == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
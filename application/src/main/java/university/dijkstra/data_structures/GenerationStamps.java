@@ -0,0 +1,70 @@
+package university.dijkstra.data_structures;
+
+import java.util.Arrays;
+
+/**
+ * A set of int ids in {@code [0, capacity)} that is emptied in O(1).
+ *
+ * Every id carries the number of the generation in which it was last
+ * stamped, and only the stamps of the current generation count. Moving to
+ * the next generation therefore empties the set without touching the array.
+ * A search uses it to tell which entries of its per-vertex arrays belong to
+ * the current query, so it never has to restore them between queries or
+ * remember which ones it changed.
+ */
+public class GenerationStamps {
+  private final int[] stamps;
+  private int generation = 1;
+
+  public GenerationStamps(int capacity) {
+    stamps = new int[capacity];
+  }
+
+  /**
+   * Empties the set. Only when the generation counter runs out, once every
+   * two billion calls, the array is cleared in full.
+   */
+  public void advance() {
+    if (generation == Integer.MAX_VALUE) {
+      Arrays.fill(stamps, 0);
+      generation = 0;
+    }
+    generation++;
+  }
+
+  /**
+   * Jumps ahead to the given generation and empties the set, so a test can
+   * reach the end of the counter without billions of calls.
+   *
+   * @throws IllegalArgumentException if the generation is not after the
+   *                                  current one
+   */
+  public void skipTo(int generation) {
+    if (generation <= this.generation) {
+      throw new IllegalArgumentException("Generation " + generation + " is not after " + this.generation);
+    }
+    this.generation = generation;
+  }
+
+  public boolean isStamped(int id) {
+    return stamps[id] == generation;
+  }
+
+  /**
+   * Adds the id to the set.
+   *
+   * @return true if it was not in the set yet, so the caller should reset
+   *         the data it keeps for the id
+   */
+  public boolean stamp(int id) {
+    if (stamps[id] == generation) {
+      return false;
+    }
+    stamps[id] = generation;
+    return true;
+  }
+
+  public int getCapacity() {
+    return stamps.length;
+  }
+}
@@ -0,0 +1,230 @@
+package university.dijkstra.data_structures;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min-heap over int ids in {@code [0, capacity)} with double keys and
+ * a real decrease-key.
+ *
+ * Every id is in the heap at most once. A position array maps ids to heap
+ * slots, so lowering the key of an id that is already queued moves it up in
+ * place instead of inserting a duplicate. All arrays are allocated once, and
+ * {@link #clear()} only touches the ids still queued, so one heap can be
+ * reused across searches without allocating.
+ */
+public class IndexedMinHeap implements IntPriorityQueue {
+  private static final int DEFAULT_ARITY = 4;
+
+  private final int arity;
+  private final int[] heap; // Ids in heap order
+  private final double[] keys; // Key per heap slot, parallel to heap
+  private final int[] positions; // Heap slot per id, -1 if not queued
+  private int size;
+  private int peakSize;
+
+  /**
+   * Creates a 4-ary heap for ids {@code 0} to {@code capacity - 1}.
+   */
+  public IndexedMinHeap(int capacity) {
+    this(capacity, DEFAULT_ARITY);
+  }
+
+  /**
+   * Creates a heap for ids {@code 0} to {@code capacity - 1}.
+   *
+   * @param capacity number of distinct ids
+   * @param arity    children per node, 2 for a binary heap
+   * @throws IllegalArgumentException if capacity is less than 1 or arity less
+   *                                  than 2
+   */
+  public IndexedMinHeap(int capacity, int arity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    if (arity < 2) {
+      throw new IllegalArgumentException("Arity must be at least 2");
+    }
+    this.arity = arity;
+    this.heap = new int[capacity];
+    this.keys = new double[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  /**
+   * Queues the id with the given key, or lowers its key if it is already
+   * queued with a larger one.
+   *
+   * @return true if the heap changed
+   */
+  @Override
+  public boolean insertOrDecrease(int id, double key) {
+    int position = positions[id];
+    if (position == -1) {
+      position = size++;
+      if (size > peakSize) {
+        peakSize = size;
+      }
+    } else if (key >= keys[position]) {
+      return false;
+    }
+    siftUp(position, id, key);
+    return true;
+  }
+
+  /**
+   * Removes and returns the id with the smallest key.
+   *
+   * @throws IllegalStateException if the heap is empty
+   */
+  @Override
+  public int dequeue() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    int minId = heap[0];
+    positions[minId] = -1;
+    size--;
+    if (size > 0) {
+      siftDown(0, heap[size], keys[size]);
+    }
+    return minId;
+  }
+
+  /**
+   * Returns the id with the smallest key without removing it.
+   *
+   * @throws IllegalStateException if the heap is empty
+   */
+  public int peek() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    return heap[0];
+  }
+
+  /**
+   * Returns the smallest key.
+   *
+   * @throws IllegalStateException if the heap is empty
+   */
+  @Override
+  public double peekKey() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    return keys[0];
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return positions[id] != -1;
+  }
+
+  /**
+   * Returns the key of a queued id.
+   *
+   * @throws IllegalArgumentException if the id is not queued
+   */
+  public double getKey(int id) {
+    if (positions[id] == -1) {
+      throw new IllegalArgumentException("Id " + id + " is not in the heap");
+    }
+    return keys[positions[id]];
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the largest size since the last {@link #clear()}.
+   */
+  @Override
+  public int getPeakSize() {
+    return peakSize;
+  }
+
+  public int getCapacity() {
+    return positions.length;
+  }
+
+  /**
+   * Removes all ids. Costs O(size), not O(capacity).
+   */
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = -1;
+    }
+    size = 0;
+    peakSize = 0;
+  }
+
+  /**
+   * Moves a hole at {@code position} up until {@code key} fits, then stores
+   * the id there.
+   */
+  private void siftUp(int position, int id, double key) {
+    while (position > 0) {
+      int parent = (position - 1) / arity;
+      if (keys[parent] <= key) {
+        break;
+      }
+      place(position, heap[parent], keys[parent]);
+      position = parent;
+    }
+    place(position, id, key);
+  }
+
+  /**
+   * Moves a hole at {@code position} down until {@code key} fits, then stores
+   * the id there.
+   */
+  private void siftDown(int position, int id, double key) {
+    while (true) {
+      int firstChild = position * arity + 1;
+      if (firstChild >= size) {
+        break;
+      }
+      int lastChild = Math.min(firstChild + arity, size);
+      int smallest = firstChild;
+      for (int child = firstChild + 1; child < lastChild; child++) {
+        if (keys[child] < keys[smallest]) {
+          smallest = child;
+        }
+      }
+      if (keys[smallest] >= key) {
+        break;
+      }
+      place(position, heap[smallest], keys[smallest]);
+      position = smallest;
+    }
+    place(position, id, key);
+  }
+
+  private void place(int position, int id, double key) {
+    heap[position] = id;
+    keys[position] = key;
+    positions[id] = position;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("IndexedMinHeap[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(heap[i]).append('=').append(keys[i]);
+    }
+    sb.append("]");
+    return sb.toString();
+  }
+}
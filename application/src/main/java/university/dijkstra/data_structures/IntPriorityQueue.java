@@ -0,0 +1,52 @@
+package university.dijkstra.data_structures;
+
+/**
+ * A min-priority queue over int ids in {@code [0, capacity)} with double keys
+ * and decrease-key, as used by the shortest path searches.
+ *
+ * Every id is queued at most once. Implementations differ in how they order
+ * the keys, so the fastest one depends on the graph and its weights:
+ * {@link IndexedMinHeap} is a general d-ary heap, {@link PairingHeap} has
+ * cheap decrease-key, and {@link RadixHeap} and {@link BucketQueue} exploit
+ * that Dijkstra extracts keys in non-decreasing order.
+ */
+public interface IntPriorityQueue {
+
+  /**
+   * Queues the id with the given key, or lowers its key if it is already
+   * queued with a larger one.
+   *
+   * @return true if the queue changed
+   */
+  boolean insertOrDecrease(int id, double key);
+
+  /**
+   * Removes and returns the id with the smallest key.
+   *
+   * @throws IllegalStateException if the queue is empty
+   */
+  int dequeue();
+
+  /**
+   * Returns the smallest key.
+   *
+   * @throws IllegalStateException if the queue is empty
+   */
+  double peekKey();
+
+  boolean contains(int id);
+
+  int getSize();
+
+  boolean isEmpty();
+
+  /**
+   * Returns the largest size since the last {@link #clear()}.
+   */
+  int getPeakSize();
+
+  /**
+   * Removes all ids, ready for the next search.
+   */
+  void clear();
+}
@@ -0,0 +1,206 @@
+package university.dijkstra.data_structures;
+
+/**
+ * A pairing heap over int ids with double keys.
+ *
+ * The tree is stored in arrays indexed by id: the leftmost child, the next
+ * sibling, and a back link that points to the left sibling or, for a leftmost
+ * child, to the parent. Insert and decrease-key are a single link with the
+ * root, which makes this heap attractive when relaxations far outnumber
+ * extractions. Extraction merges the root's children in the usual two
+ * passes.
+ */
+public class PairingHeap implements IntPriorityQueue {
+  private static final int NONE = -1;
+
+  private final double[] keys;
+  private final int[] child;
+  private final int[] sibling;
+  private final int[] back;
+  private final boolean[] queued;
+  private final int[] pairs; // Scratch space for the two-pass merge
+  private int root = NONE;
+  private int size;
+  private int peakSize;
+
+  /**
+   * Creates a heap for ids {@code 0} to {@code capacity - 1}.
+   *
+   * @throws IllegalArgumentException if capacity is less than 1
+   */
+  public PairingHeap(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    keys = new double[capacity];
+    child = new int[capacity];
+    sibling = new int[capacity];
+    back = new int[capacity];
+    queued = new boolean[capacity];
+    pairs = new int[capacity];
+  }
+
+  @Override
+  public boolean insertOrDecrease(int id, double key) {
+    if (!queued[id]) {
+      queued[id] = true;
+      keys[id] = key;
+      child[id] = NONE;
+      sibling[id] = NONE;
+      back[id] = NONE;
+      root = root == NONE ? id : link(root, id);
+      size++;
+      if (size > peakSize) {
+        peakSize = size;
+      }
+      return true;
+    }
+    if (key >= keys[id]) {
+      return false;
+    }
+    keys[id] = key;
+    if (id != root) {
+      // Cut the subtree out and link it with the root again
+      cut(id);
+      root = link(root, id);
+    }
+    return true;
+  }
+
+  @Override
+  public int dequeue() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    int minId = root;
+    queued[minId] = false;
+    size--;
+    root = mergePairs(child[minId]);
+    if (root != NONE) {
+      back[root] = NONE;
+    }
+    return minId;
+  }
+
+  @Override
+  public double peekKey() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    return keys[root];
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return queued[id];
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getPeakSize() {
+    return peakSize;
+  }
+
+  /**
+   * Removes all ids. Walks the remaining tree, so it costs O(size).
+   */
+  @Override
+  public void clear() {
+    if (root != NONE) {
+      int top = 0;
+      pairs[top++] = root;
+      while (top > 0) {
+        int id = pairs[--top];
+        queued[id] = false;
+        for (int c = child[id]; c != NONE; c = sibling[c]) {
+          pairs[top++] = c;
+        }
+      }
+    }
+    root = NONE;
+    size = 0;
+    peakSize = 0;
+  }
+
+  /**
+   * Makes the root with the larger key the leftmost child of the other and
+   * returns the new root. Both must be roots of separate trees.
+   */
+  private int link(int a, int b) {
+    if (keys[b] < keys[a]) {
+      int swap = a;
+      a = b;
+      b = swap;
+    }
+    int firstChild = child[a];
+    sibling[b] = firstChild;
+    if (firstChild != NONE) {
+      back[firstChild] = b;
+    }
+    back[b] = a;
+    child[a] = b;
+    sibling[a] = NONE;
+    return a;
+  }
+
+  /**
+   * Detaches the subtree rooted at {@code id} from its parent.
+   */
+  private void cut(int id) {
+    int previous = back[id];
+    int next = sibling[id];
+    if (child[previous] == id) {
+      child[previous] = next;
+    } else {
+      sibling[previous] = next;
+    }
+    if (next != NONE) {
+      back[next] = previous;
+    }
+    sibling[id] = NONE;
+    back[id] = NONE;
+  }
+
+  /**
+   * Two-pass merge of a sibling list: link neighbours left to right, then
+   * fold the results right to left. Returns the new root.
+   */
+  private int mergePairs(int first) {
+    if (first == NONE) {
+      return NONE;
+    }
+    int count = 0;
+    int current = first;
+    while (current != NONE) {
+      int a = current;
+      int b = sibling[a];
+      if (b == NONE) {
+        sibling[a] = NONE;
+        back[a] = NONE;
+        pairs[count++] = a;
+        break;
+      }
+      current = sibling[b];
+      sibling[a] = NONE;
+      sibling[b] = NONE;
+      back[a] = NONE;
+      back[b] = NONE;
+      pairs[count++] = link(a, b);
+    }
+
+    int merged = pairs[--count];
+    while (count > 0) {
+      merged = link(pairs[--count], merged);
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,213 @@
+package university.dijkstra.data_structures;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap for monotone keys: every key inserted must be at least the key
+ * last extracted, which Dijkstra guarantees.
+ *
+ * Keys are quantized to {@code floor(key / resolution)}. Bucket {@code i > 0}
+ * holds the entries whose quantized key first differs from the last extracted
+ * one in bit {@code i - 1}, bucket 0 the entries equal to it. Extraction
+ * empties the lowest non-empty bucket into lower buckets, so every entry moves
+ * at most 64 times. The exact double keys decide the order among entries with
+ * the same quantized key, so the extraction order is exact.
+ *
+ * A decrease-key appends a new entry and leaves the old one behind; stale
+ * entries are dropped when their bucket is next emptied. Keys smaller than
+ * the last extracted one, which can come from rounding in an A* estimate, are
+ * treated as equal to it.
+ */
+public class RadixHeap implements IntPriorityQueue {
+  private static final int NUM_BUCKETS = 65;
+  private static final int INITIAL_BUCKET_CAPACITY = 16;
+
+  private final double resolution;
+  private final double[] keys; // Exact key per id
+  private final long[] quantized; // Quantized key per id, identifies its live entry
+  private final boolean[] queued;
+  private final int[][] bucketIds = new int[NUM_BUCKETS][];
+  private final long[][] bucketKeys = new long[NUM_BUCKETS][];
+  private final int[] bucketSizes = new int[NUM_BUCKETS];
+  private long last;
+  private int size;
+  private int peakSize;
+
+  /**
+   * @param capacity   number of distinct ids
+   * @param resolution key difference that is still told apart without
+   *                   looking at the exact keys
+   * @throws IllegalArgumentException if capacity is less than 1 or the
+   *                                  resolution is not positive
+   */
+  public RadixHeap(int capacity, double resolution) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    if (!(resolution > 0)) {
+      throw new IllegalArgumentException("Resolution must be positive");
+    }
+    this.resolution = resolution;
+    keys = new double[capacity];
+    quantized = new long[capacity];
+    queued = new boolean[capacity];
+    for (int b = 0; b < NUM_BUCKETS; b++) {
+      bucketIds[b] = new int[INITIAL_BUCKET_CAPACITY];
+      bucketKeys[b] = new long[INITIAL_BUCKET_CAPACITY];
+    }
+  }
+
+  @Override
+  public boolean insertOrDecrease(int id, double key) {
+    long q = Math.max(last, (long) Math.floor(key / resolution));
+    if (queued[id]) {
+      if (key >= keys[id]) {
+        return false;
+      }
+      keys[id] = key;
+      if (q == quantized[id]) {
+        return true; // The live entry still sits in the right bucket
+      }
+    } else {
+      queued[id] = true;
+      keys[id] = key;
+      size++;
+      if (size > peakSize) {
+        peakSize = size;
+      }
+    }
+    quantized[id] = q;
+    append(bucketOf(q), id, q);
+    return true;
+  }
+
+  @Override
+  public int dequeue() {
+    int index = findMinimum();
+    int minId = bucketIds[0][index];
+    removeFromFirstBucket(index);
+    queued[minId] = false;
+    size--;
+    return minId;
+  }
+
+  @Override
+  public double peekKey() {
+    return keys[bucketIds[0][findMinimum()]];
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return queued[id];
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getPeakSize() {
+    return peakSize;
+  }
+
+  @Override
+  public void clear() {
+    for (int b = 0; b < NUM_BUCKETS; b++) {
+      for (int i = 0; i < bucketSizes[b]; i++) {
+        queued[bucketIds[b][i]] = false;
+      }
+      bucketSizes[b] = 0;
+    }
+    last = 0;
+    size = 0;
+    peakSize = 0;
+  }
+
+  private int bucketOf(long q) {
+    return q == last ? 0 : 64 - Long.numberOfLeadingZeros(q ^ last);
+  }
+
+  private boolean isLive(int id, long q) {
+    return queued[id] && quantized[id] == q;
+  }
+
+  private void append(int bucket, int id, long q) {
+    int bucketSize = bucketSizes[bucket];
+    if (bucketSize == bucketIds[bucket].length) {
+      bucketIds[bucket] = Arrays.copyOf(bucketIds[bucket], bucketSize * 2);
+      bucketKeys[bucket] = Arrays.copyOf(bucketKeys[bucket], bucketSize * 2);
+    }
+    bucketIds[bucket][bucketSize] = id;
+    bucketKeys[bucket][bucketSize] = q;
+    bucketSizes[bucket] = bucketSize + 1;
+  }
+
+  /**
+   * Makes sure bucket 0 holds live entries and returns the index of the one
+   * with the smallest exact key.
+   */
+  private int findMinimum() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    while (true) {
+      int best = -1;
+      for (int i = 0; i < bucketSizes[0]; i++) {
+        int id = bucketIds[0][i];
+        if (!isLive(id, bucketKeys[0][i])) {
+          removeFromFirstBucket(i--);
+        } else if (best == -1 || keys[id] < keys[bucketIds[0][best]]) {
+          best = i;
+        }
+      }
+      if (best != -1) {
+        return best;
+      }
+      redistribute();
+    }
+  }
+
+  /**
+   * Empties the lowest non-empty bucket into the lower ones after moving
+   * {@code last} up to its smallest live key.
+   */
+  private void redistribute() {
+    int bucket = 1;
+    long minimum = Long.MAX_VALUE;
+    for (; bucket < NUM_BUCKETS; bucket++) {
+      for (int i = 0; i < bucketSizes[bucket]; i++) {
+        if (isLive(bucketIds[bucket][i], bucketKeys[bucket][i])) {
+          minimum = Math.min(minimum, bucketKeys[bucket][i]);
+        }
+      }
+      if (minimum != Long.MAX_VALUE) {
+        break;
+      }
+      bucketSizes[bucket] = 0; // Only stale entries
+    }
+
+    last = minimum;
+    int count = bucketSizes[bucket];
+    bucketSizes[bucket] = 0;
+    int[] ids = bucketIds[bucket];
+    long[] qs = bucketKeys[bucket];
+    for (int i = 0; i < count; i++) {
+      if (isLive(ids[i], qs[i])) {
+        // Every live entry lands in a lower bucket, never this one
+        append(bucketOf(qs[i]), ids[i], qs[i]);
+      }
+    }
+  }
+
+  private void removeFromFirstBucket(int index) {
+    int lastIndex = --bucketSizes[0];
+    bucketIds[0][index] = bucketIds[0][lastIndex];
+    bucketKeys[0][index] = bucketKeys[0][lastIndex];
+  }
+}
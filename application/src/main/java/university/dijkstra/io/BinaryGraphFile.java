@@ -0,0 +1,298 @@
+package university.dijkstra.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * Reads and writes graphs in a versioned binary format that can be loaded
+ * without any parsing.
+ * 
+ * Layout (little endian):
+ * 
+ * <pre>
+ * int    magic        'DJKG'
+ * int    version
+ * int    numVertices
+ * int    numArcs
+ * int[]  x            numVertices entries
+ * int[]  y            numVertices entries
+ * int[]  offsets      numVertices + 1 entries
+ * int[]  targets      numArcs entries
+ * int    padding      only if needed to align the weights to 8 bytes
+ * double weights      numArcs entries
+ * </pre>
+ * 
+ * A loaded graph reads its blocks straight from read-only memory maps of
+ * the file, so a load costs a few mappings whatever the file size, pages are
+ * read on first touch, and processes that load the same file share its pages
+ * through the page cache instead of each holding a heap copy. Only the
+ * header, the file size and the ends of the offsets block are checked on
+ * load; a file corrupted inside its blocks gives wrong results or
+ * out-of-range errors during queries.
+ */
+public class BinaryGraphFile {
+  public static final int MAGIC = 0x444A4B47; // "DJKG"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 16;
+  // Every mapped region holds at most 1 GB, well below the 2 GB limit of a
+  // MappedByteBuffer
+  private static final int INT_CHUNK_BITS = 28;
+  private static final int INT_CHUNK_MASK = (1 << INT_CHUNK_BITS) - 1;
+  private static final int DOUBLE_CHUNK_BITS = 27;
+  private static final int DOUBLE_CHUNK_MASK = (1 << DOUBLE_CHUNK_BITS) - 1;
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  /**
+   * Returns true if the file starts with the binary graph magic number.
+   */
+  public static boolean isBinaryGraph(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      if (channel.size() < 4) {
+        return false;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(buffer, 0);
+      return buffer.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Loads a graph from a binary graph file.
+   * 
+   * @param filename the file to read
+   * @return the loaded graph
+   * @throws IOException if the file cannot be read or is not a valid graph file
+   */
+  public static Graph read(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_BYTES) {
+        throw new IOException("File is too small to be a binary graph: " + filename);
+      }
+
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a binary graph file: " + filename);
+      }
+      int version = header.getInt(4);
+      if (version != VERSION) {
+        throw new IOException("Unsupported binary graph version " + version + ", expected " + VERSION);
+      }
+      int numVertices = header.getInt(8);
+      int numArcs = header.getInt(12);
+      if (numVertices <= 0 || numArcs < 0) {
+        throw new IOException("Invalid numbers in header: vertices must be positive, arcs non-negative");
+      }
+
+      long weightsPosition = align8(HEADER_BYTES + 4L * (3L * numVertices + 1 + numArcs));
+      if (fileSize != weightsPosition + 8L * numArcs) {
+        throw new IOException("Binary graph file is truncated or has trailing data: " + filename);
+      }
+
+      long xPosition = HEADER_BYTES;
+      long yPosition = xPosition + 4L * numVertices;
+      long offsetsPosition = yPosition + 4L * numVertices;
+      long targetsPosition = offsetsPosition + 4L * (numVertices + 1);
+      MappedStorage storage = new MappedStorage(numVertices, numArcs, mapInts(channel, xPosition, numVertices),
+          mapInts(channel, yPosition, numVertices), mapInts(channel, offsetsPosition, numVertices + 1),
+          mapInts(channel, targetsPosition, numArcs), mapDoubles(channel, weightsPosition, numArcs));
+      try {
+        return new Graph(storage);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Corrupt adjacency offsets in binary graph: " + filename);
+      }
+    }
+  }
+
+  /**
+   * Writes a graph in the binary format.
+   * 
+   * @param graph    the graph to write
+   * @param filename the destination file, replaced if it exists
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Graph graph, String filename) throws IOException {
+    Path path = Paths.get(filename);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      int numVertices = graph.getNumVertices();
+      int numArcs = graph.getNumArcs();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(numVertices).putInt(numArcs);
+      for (int v = 0; v < numVertices; v++) {
+        putInt(channel, buffer, graph.getX(v));
+      }
+      for (int v = 0; v < numVertices; v++) {
+        putInt(channel, buffer, graph.getY(v));
+      }
+      for (int v = 0; v < numVertices; v++) {
+        putInt(channel, buffer, graph.getEdgeStart(v));
+      }
+      putInt(channel, buffer, numArcs);
+      for (int e = 0; e < numArcs; e++) {
+        putInt(channel, buffer, graph.getTarget(e));
+      }
+      long written = HEADER_BYTES + 4L * (3L * numVertices + 1 + numArcs);
+      if (align8(written) != written) {
+        putInt(channel, buffer, 0);
+      }
+      for (int e = 0; e < numArcs; e++) {
+        if (buffer.remaining() < 8) {
+          flush(channel, buffer);
+        }
+        buffer.putDouble(graph.getWeight(e));
+      }
+      flush(channel, buffer);
+    }
+  }
+
+  static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+    if (buffer.remaining() < 4) {
+      flush(channel, buffer);
+    }
+    buffer.putInt(value);
+  }
+
+  static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Copies ints from the file into an array, for readers that keep their
+   * data on the heap.
+   */
+  static long readInts(FileChannel channel, long position, int[] destination) throws IOException {
+    int done = 0;
+    while (done < destination.length) {
+      int count = Math.min(destination.length - done, 1 << INT_CHUNK_BITS);
+      MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+      block.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(destination, done, count);
+      done += count;
+      position += 4L * count;
+    }
+    return position;
+  }
+
+  static long readDoubles(FileChannel channel, long position, double[] destination) throws IOException {
+    int done = 0;
+    while (done < destination.length) {
+      int count = Math.min(destination.length - done, 1 << DOUBLE_CHUNK_BITS);
+      MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * count);
+      block.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(destination, done, count);
+      done += count;
+      position += 8L * count;
+    }
+    return position;
+  }
+
+  /**
+   * Maps {@code count} ints starting at {@code position}, one buffer per
+   * {@code 2^INT_CHUNK_BITS} entries.
+   */
+  static IntBuffer[] mapInts(FileChannel channel, long position, int count) throws IOException {
+    IntBuffer[] chunks = new IntBuffer[Math.max(1, (int) (((long) count + INT_CHUNK_MASK) >>> INT_CHUNK_BITS))];
+    for (int i = 0; i < chunks.length; i++) {
+      long from = (long) i << INT_CHUNK_BITS;
+      long size = Math.min(count - from, 1L << INT_CHUNK_BITS);
+      MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position + 4 * from, 4 * size);
+      chunks[i] = block.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+    return chunks;
+  }
+
+  /**
+   * Maps {@code count} doubles starting at {@code position}, one buffer per
+   * {@code 2^DOUBLE_CHUNK_BITS} entries.
+   */
+  static DoubleBuffer[] mapDoubles(FileChannel channel, long position, int count) throws IOException {
+    DoubleBuffer[] chunks = new DoubleBuffer[Math.max(1, (int) (((long) count + DOUBLE_CHUNK_MASK) >>> DOUBLE_CHUNK_BITS))];
+    for (int i = 0; i < chunks.length; i++) {
+      long from = (long) i << DOUBLE_CHUNK_BITS;
+      long size = Math.min(count - from, 1L << DOUBLE_CHUNK_BITS);
+      MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position + 8 * from, 8 * size);
+      chunks[i] = block.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+    return chunks;
+  }
+
+  /**
+   * The blocks of a binary graph file, read through the maps. The maps stay
+   * valid after the file is closed.
+   */
+  private static final class MappedStorage implements Graph.Storage {
+    private final int numVertices;
+    private final int numArcs;
+    private final IntBuffer[] x;
+    private final IntBuffer[] y;
+    private final IntBuffer[] offsets;
+    private final IntBuffer[] targets;
+    private final DoubleBuffer[] weights;
+
+    MappedStorage(int numVertices, int numArcs, IntBuffer[] x, IntBuffer[] y, IntBuffer[] offsets,
+        IntBuffer[] targets, DoubleBuffer[] weights) {
+      this.numVertices = numVertices;
+      this.numArcs = numArcs;
+      this.x = x;
+      this.y = y;
+      this.offsets = offsets;
+      this.targets = targets;
+      this.weights = weights;
+    }
+
+    @Override
+    public int getNumVertices() {
+      return numVertices;
+    }
+
+    @Override
+    public int getNumArcs() {
+      return numArcs;
+    }
+
+    @Override
+    public int getOffset(int index) {
+      return offsets[index >>> INT_CHUNK_BITS].get(index & INT_CHUNK_MASK);
+    }
+
+    @Override
+    public int getTarget(int arc) {
+      return targets[arc >>> INT_CHUNK_BITS].get(arc & INT_CHUNK_MASK);
+    }
+
+    @Override
+    public double getWeight(int arc) {
+      return weights[arc >>> DOUBLE_CHUNK_BITS].get(arc & DOUBLE_CHUNK_MASK);
+    }
+
+    @Override
+    public int getX(int vertexId) {
+      return x[vertexId >>> INT_CHUNK_BITS].get(vertexId & INT_CHUNK_MASK);
+    }
+
+    @Override
+    public int getY(int vertexId) {
+      return y[vertexId >>> INT_CHUNK_BITS].get(vertexId & INT_CHUNK_MASK);
+    }
+  }
+
+  static long align8(long position) {
+    return (position + 7) & ~7L;
+  }
+}
@@ -0,0 +1,153 @@
+package university.dijkstra.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import university.dijkstra.model.ContractionHierarchy;
+
+/**
+ * Reads and writes a {@link ContractionHierarchy} so preprocessing only has to
+ * run once per graph.
+ *
+ * Layout (little endian), read through memory maps like
+ * {@link BinaryGraphFile}:
+ *
+ * <pre>
+ * int    magic        'DJKC'
+ * int    version
+ * int    numVertices
+ * int    numArcs
+ * int[]  ranks        numVertices entries
+ * int[]  offsets      numVertices + 1 entries
+ * int[]  targets      numArcs entries
+ * int[]  middles      numArcs entries
+ * int    padding      only if needed to align the weights to 8 bytes
+ * double weights      numArcs entries
+ * </pre>
+ */
+public class ContractionHierarchyFile {
+  public static final int MAGIC = 0x444A4B43; // "DJKC"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 16;
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  /**
+   * Loads a hierarchy written by {@link #write}.
+   *
+   * @param filename the file to read
+   * @return the loaded hierarchy
+   * @throws IOException if the file cannot be read or is not a valid
+   *                     hierarchy file
+   */
+  public static ContractionHierarchy read(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_BYTES) {
+        throw new IOException("File is too small to be a contraction hierarchy: " + filename);
+      }
+
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a contraction hierarchy file: " + filename);
+      }
+      int version = header.getInt(4);
+      if (version != VERSION) {
+        throw new IOException("Unsupported contraction hierarchy version " + version + ", expected " + VERSION);
+      }
+      int numVertices = header.getInt(8);
+      int numArcs = header.getInt(12);
+      if (numVertices <= 0 || numArcs < 0) {
+        throw new IOException("Invalid numbers in header: vertices must be positive, arcs non-negative");
+      }
+
+      long position = HEADER_BYTES;
+      long weightsPosition = BinaryGraphFile.align8(position + 4L * (2L * numVertices + 1 + 2L * numArcs));
+      if (fileSize != weightsPosition + 8L * numArcs) {
+        throw new IOException("Contraction hierarchy file is truncated or has trailing data: " + filename);
+      }
+
+      int[] ranks = new int[numVertices];
+      int[] offsets = new int[numVertices + 1];
+      int[] targets = new int[numArcs];
+      int[] middles = new int[numArcs];
+      double[] weights = new double[numArcs];
+
+      position = BinaryGraphFile.readInts(channel, position, ranks);
+      position = BinaryGraphFile.readInts(channel, position, offsets);
+      position = BinaryGraphFile.readInts(channel, position, targets);
+      BinaryGraphFile.readInts(channel, position, middles);
+      BinaryGraphFile.readDoubles(channel, weightsPosition, weights);
+
+      validate(offsets, targets, middles, numVertices);
+      return new ContractionHierarchy(ranks, offsets, targets, weights, middles);
+    }
+  }
+
+  /**
+   * Writes a hierarchy.
+   *
+   * @param hierarchy the hierarchy to write
+   * @param filename  the destination file, replaced if it exists
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(ContractionHierarchy hierarchy, String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      int numVertices = hierarchy.getNumVertices();
+      int numArcs = hierarchy.getNumArcs();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(numVertices).putInt(numArcs);
+      for (int v = 0; v < numVertices; v++) {
+        BinaryGraphFile.putInt(channel, buffer, hierarchy.getRank(v));
+      }
+      for (int v = 0; v < numVertices; v++) {
+        BinaryGraphFile.putInt(channel, buffer, hierarchy.getEdgeStart(v));
+      }
+      BinaryGraphFile.putInt(channel, buffer, numArcs);
+      for (int e = 0; e < numArcs; e++) {
+        BinaryGraphFile.putInt(channel, buffer, hierarchy.getTarget(e));
+      }
+      for (int e = 0; e < numArcs; e++) {
+        BinaryGraphFile.putInt(channel, buffer, hierarchy.getMiddle(e));
+      }
+      long written = HEADER_BYTES + 4L * (2L * numVertices + 1 + 2L * numArcs);
+      if (BinaryGraphFile.align8(written) != written) {
+        BinaryGraphFile.putInt(channel, buffer, 0);
+      }
+      for (int e = 0; e < numArcs; e++) {
+        if (buffer.remaining() < 8) {
+          BinaryGraphFile.flush(channel, buffer);
+        }
+        buffer.putDouble(hierarchy.getWeight(e));
+      }
+      BinaryGraphFile.flush(channel, buffer);
+    }
+  }
+
+  private static void validate(int[] offsets, int[] targets, int[] middles, int numVertices) throws IOException {
+    if (offsets[0] != 0 || offsets[numVertices] != targets.length) {
+      throw new IOException("Corrupt upward arc offsets in contraction hierarchy");
+    }
+    for (int v = 0; v < numVertices; v++) {
+      if (offsets[v] > offsets[v + 1]) {
+        throw new IOException("Corrupt upward arc offsets at vertex " + v);
+      }
+    }
+    for (int e = 0; e < targets.length; e++) {
+      if (targets[e] < 0 || targets[e] >= numVertices) {
+        throw new IOException("Invalid vertex ID in arc " + e + ": " + targets[e]);
+      }
+      if (middles[e] < -1 || middles[e] >= numVertices) {
+        throw new IOException("Invalid middle vertex in arc " + e + ": " + middles[e]);
+      }
+    }
+  }
+}
@@ -4,22 +4,55 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
 import university.dijkstra.model.Vertex;
 
 public class DataProccessor {
-  public static Vertex[] parseFile(String filename) throws IOException {
+  /**
+   * Loads a graph from either the binary format written by
+   * {@link BinaryGraphFile} or the text format, picking by the file's magic
+   * number. Text files go through the {@link ParallelGraphParser}.
+   */
+  public static Graph loadGraph(String filename) throws IOException {
+    if (BinaryGraphFile.isBinaryGraph(filename)) {
+      // Left for the first query, finding them now would read the whole
+      // mapped file
+      return BinaryGraphFile.read(filename);
+    }
+    Graph graph = new ParallelGraphParser().parse(filename);
+    // Found now so that no query pays for them, see Graph#getComponents
+    graph.getComponents();
+    return graph;
+  }
+
+  /**
+   * Loads a graph file into the compact CSR representation used by the search
+   * code.
+   */
+  public static Graph parseGraph(String filename) throws IOException {
     try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
       int[] graphInfo = parseGraphInfo(reader);
       int numVertices = graphInfo[0];
       int numEdges = graphInfo[1];
-      Vertex[] graph = new Vertex[numVertices];
-      readVertices(graph, reader);
-      connectVertices(graph, reader, numEdges);
-      // At this point, the graph is fully constructed with vertices and edges
+      GraphBuilder builder = new GraphBuilder(numVertices, numEdges);
+      readVertices(builder, reader);
+      connectVertices(builder, reader, numEdges);
+      // At this point, every vertex and edge has been collected
+      Graph graph = builder.build();
+      graph.getComponents();
       return graph;
     }
   }
 
+  /**
+   * Loads a graph file as Vertex objects. Only the JavaFX viewer needs this
+   * view; it is built from the CSR graph returned by {@link #parseGraph}.
+   */
+  public static Vertex[] parseFile(String filename) throws IOException {
+    return parseGraph(filename).toVertices();
+  }
+
   private static int[] parseGraphInfo(BufferedReader reader) throws IOException {
     String firstLine = reader.readLine();
     if (firstLine == null) {
@@ -45,8 +78,8 @@ public class DataProccessor {
     }
   }
 
-  private static void readVertices(Vertex[] graph, BufferedReader reader) throws IOException {
-    for (int i = 0; i < graph.length; i++) {
+  private static void readVertices(GraphBuilder builder, BufferedReader reader) throws IOException {
+    for (int i = 0; i < builder.getNumVertices(); i++) {
       String line = reader.readLine();
       if (line == null) {
         throw new IOException("Unexpected end of file while reading vertices");
@@ -61,7 +94,10 @@ public class DataProccessor {
         int x = Integer.parseInt(parts[1]);
         int y = Integer.parseInt(parts[2]);
 
-        graph[vertix_id] = new Vertex(vertix_id, x, y);
+        if (vertix_id < 0 || vertix_id >= builder.getNumVertices()) {
+          throw new IOException("Invalid vertex ID: " + line);
+        }
+        builder.setVertex(vertix_id, x, y);
 
       } catch (NumberFormatException e) {
         throw new IOException("Invalid number format in vertix: " + line);
@@ -69,18 +105,21 @@ public class DataProccessor {
     }
   }
 
-  private static void connectVertices(Vertex[] vertices, BufferedReader reader, int numEdges) throws IOException {
+  private static void connectVertices(GraphBuilder builder, BufferedReader reader, int numEdges) throws IOException {
     // empty line
     String line = reader.readLine();
 
     for (int i = 0; i < numEdges; i++) {
-      // File format is: vertix_id1 vertix_id2 only. Weight can be calcualted by
-      // euclidean distance
+      // File format is: vertix_id1 vertix_id2 only. Weight is calculated by
+      // euclidean distance when the graph is built
       try {
         if (line == null) {
           throw new IOException("Unexpected end of file while reading edges");
         }
         line = reader.readLine();
+        if (line == null) {
+          throw new IOException("Unexpected end of file while reading edges");
+        }
         String[] parts = line.trim().split("\\s+");
         if (parts.length != 2) {
           throw new IOException("Expected Format: vertix_id1 vertix_id2");
@@ -89,41 +128,25 @@ public class DataProccessor {
         int vertixId1 = Integer.parseInt(parts[0]);
         int vertixId2 = Integer.parseInt(parts[1]);
 
-        if (vertixId1 < 0 || vertixId1 >= vertices.length || vertixId2 < 0 || vertixId2 >= vertices.length) {
+        if (vertixId1 < 0 || vertixId1 >= builder.getNumVertices() || vertixId2 < 0
+            || vertixId2 >= builder.getNumVertices()) {
           throw new IOException("Invalid vertex ID in edge: " + line);
         }
-
-        Vertex v1 = vertices[vertixId1];
-        Vertex v2 = vertices[vertixId2];
-
-        double weight = calculateEuclideanDistance(v1, v2);
-        if (weight < 0) {
-          throw new IOException("Negative weight calculated for edge: " + line);
-        }
-        if (v1 == null || v2 == null) {
+        if (!builder.hasVertex(vertixId1) || !builder.hasVertex(vertixId2)) {
           throw new IOException("One of the vertices is null for edge: " + line);
         }
-        if (v1.getId() == v2.getId()) {
-          throw new IOException("Self-loop detected for vertex ID: " + v1.getId());
+        if (vertixId1 == vertixId2) {
+          throw new IOException("Self-loop detected for vertex ID: " + vertixId1);
         }
         // Assuming undirected graph for Dijkstra's algorithm
-        v1.addEdge(v2, weight);
-        v2.addEdge(v1, weight);
+        builder.addEdge(vertixId1, vertixId2);
 
       } catch (NumberFormatException e) {
         throw new IOException("Invalid number format in edge: " + e.getMessage());
       } catch (IOException e) {
         throw new IOException("Error reading edge: " + e.getMessage());
-      } catch (ArrayIndexOutOfBoundsException e) {
-        throw new IOException("Vertex ID out of bounds in edge: " + e.getMessage());
-      } catch (Exception e) {
-        throw new IOException("Unexpected error while processing edge: " + e.getMessage());
       }
     }
   }
 
-  private static double calculateEuclideanDistance(Vertex v1, Vertex v2) {
-    return Math.sqrt(Math.pow(v1.getX() - v2.getX(), 2) + Math.pow(v1.getY() - v2.getY(), 2));
-  }
-
 }
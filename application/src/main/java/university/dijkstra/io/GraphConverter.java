@@ -0,0 +1,43 @@
+package university.dijkstra.io;
+
+import java.io.IOException;
+
+import university.dijkstra.model.Graph;
+
+/**
+ * Command line tool that converts a text graph file
+ * ({@code numVertices numEdges / id x y / id1 id2}) into the binary format of
+ * {@link BinaryGraphFile}.
+ * 
+ * Usage: {@code java university.dijkstra.io.GraphConverter input.txt output.bin}
+ */
+public class GraphConverter {
+  public static void convert(String textFile, String binaryFile) throws IOException {
+    Graph graph = DataProccessor.parseGraph(textFile);
+    BinaryGraphFile.write(graph, binaryFile);
+  }
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.err.println("Usage: GraphConverter <input.txt> <output.bin>");
+      System.exit(2);
+    }
+
+    try {
+      long startTime = System.nanoTime();
+      convert(args[0], args[1]);
+      long convertTime = System.nanoTime() - startTime;
+
+      startTime = System.nanoTime();
+      Graph graph = BinaryGraphFile.read(args[1]);
+      long loadTime = System.nanoTime() - startTime;
+
+      System.out.printf("Converted %d vertices and %d arcs in %.3f ms\n",
+          graph.getNumVertices(), graph.getNumArcs(), convertTime / 1_000_000.0);
+      System.out.printf("Binary load time: %.3f ms\n", loadTime / 1_000_000.0);
+    } catch (IOException e) {
+      System.err.println("Error converting graph: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,646 @@
+package university.dijkstra.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * Parser for the text graph format that works on the raw file bytes and runs
+ * on a fork-join pool.
+ *
+ * The body of the file is cut into chunks at line boundaries. A first
+ * parallel pass counts the lines of every chunk, so each chunk knows the
+ * global number of its first line and therefore whether a line is a vertex,
+ * the separator or an edge. A second parallel pass parses the numbers straight
+ * from a memory map of the chunk and writes them into the final coordinate and
+ * edge arrays. No String is created per line; one is built only to describe a
+ * bad line in an error message.
+ *
+ * Errors are reported with the same messages as {@link DataProccessor}, and
+ * when several lines are bad the first one in the file wins.
+ */
+public class ParallelGraphParser {
+  private static final int CHUNK_BYTES = 8 << 20;
+  private static final int SCAN_BUFFER_BYTES = 4096;
+  private static final int MAX_TOKENS = 4;
+
+  // Kinds of bad line, turned into a message only when reported
+  private static final int NO_ERROR = 0;
+  private static final int VERTEX_FORMAT = 1;
+  private static final int VERTEX_NUMBER = 2;
+  private static final int VERTEX_ID = 3;
+  private static final int EDGE_FORMAT = 4;
+  private static final int EDGE_NUMBER = 5;
+  private static final int EDGE_ID = 6;
+  private static final int SELF_LOOP = 7;
+
+  /**
+   * Receives progress updates while the file is parsed. It is called from the
+   * pool's worker threads, once per finished chunk.
+   */
+  public interface ProgressListener {
+    void onProgress(long bytesParsed, long totalBytes);
+  }
+
+  /**
+   * Timing and throughput of one parse.
+   */
+  public static class Statistics {
+    private final long fileBytes;
+    private final int numVertices;
+    private final int numEdges;
+    private final int chunks;
+    private final int parallelism;
+    private final long countNanos;
+    private final long parseNanos;
+    private final long buildNanos;
+
+    Statistics(long fileBytes, int numVertices, int numEdges, int chunks, int parallelism, long countNanos,
+        long parseNanos, long buildNanos) {
+      this.fileBytes = fileBytes;
+      this.numVertices = numVertices;
+      this.numEdges = numEdges;
+      this.chunks = chunks;
+      this.parallelism = parallelism;
+      this.countNanos = countNanos;
+      this.parseNanos = parseNanos;
+      this.buildNanos = buildNanos;
+    }
+
+    public long getFileBytes() {
+      return fileBytes;
+    }
+
+    public int getNumVertices() {
+      return numVertices;
+    }
+
+    public int getNumEdges() {
+      return numEdges;
+    }
+
+    public int getChunks() {
+      return chunks;
+    }
+
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    public long getCountNanos() {
+      return countNanos;
+    }
+
+    public long getParseNanos() {
+      return parseNanos;
+    }
+
+    public long getBuildNanos() {
+      return buildNanos;
+    }
+
+    public long getTotalNanos() {
+      return countNanos + parseNanos + buildNanos;
+    }
+
+    /**
+     * Bytes of text scanned per second by the two parallel passes.
+     */
+    public double getMegabytesPerSecond() {
+      return (fileBytes / (1024.0 * 1024.0)) / ((countNanos + parseNanos) / 1e9);
+    }
+
+    /**
+     * Edges per second over the whole load, including the CSR build.
+     */
+    public double getEdgesPerSecond() {
+      return numEdges / (getTotalNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d vertices, %d edges, %.1f MB in %d chunks on %d threads: count %.1f ms, parse %.1f ms, build %.1f ms"
+              + " (%.1f MB/s, %.0f edges/s)",
+          numVertices, numEdges, fileBytes / (1024.0 * 1024.0), chunks, parallelism, countNanos / 1e6,
+          parseNanos / 1e6, buildNanos / 1e6, getMegabytesPerSecond(), getEdgesPerSecond());
+    }
+  }
+
+  private final ForkJoinPool pool;
+  private ProgressListener progressListener;
+  private Statistics lastStatistics;
+
+  /**
+   * Creates a parser that runs on the common fork-join pool.
+   */
+  public ParallelGraphParser() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ParallelGraphParser(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public void setProgressListener(ProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  /**
+   * Returns the statistics of the last successful parse, or null.
+   */
+  public Statistics getLastStatistics() {
+    return lastStatistics;
+  }
+
+  /**
+   * Parses a text graph file into a CSR graph.
+   *
+   * @param filename the file to read
+   * @return the parsed graph
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  public Graph parse(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize == 0) {
+        throw new IOException("The file is empty");
+      }
+
+      long bodyStart = findLineEnd(channel, 0, fileSize);
+      String firstLine = readText(channel, 0, bodyStart);
+      int[] graphInfo = parseGraphInfo(firstLine);
+      int numVertices = graphInfo[0];
+      int numEdges = graphInfo[1];
+
+      long startTime = System.nanoTime();
+      Chunk[] chunks = splitIntoChunks(channel, bodyStart, fileSize);
+      try {
+        pool.invoke(new CountTask(channel, chunks, 0, chunks.length));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      long totalLines = 0;
+      for (Chunk chunk : chunks) {
+        chunk.firstLine = totalLines;
+        totalLines += chunk.lineCount;
+      }
+      long countNanos = System.nanoTime() - startTime;
+
+      startTime = System.nanoTime();
+      ParseState state = new ParseState(numVertices, numEdges, fileSize - bodyStart, progressListener);
+      try {
+        pool.invoke(new ParseTask(channel, chunks, state, 0, chunks.length));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      long parseNanos = System.nanoTime() - startTime;
+
+      reportFirstError(chunks);
+      if (totalLines < numVertices) {
+        throw new IOException("Unexpected end of file while reading vertices");
+      }
+      if (numEdges > 0 && totalLines < (long) numVertices + 1 + numEdges) {
+        throw new IOException("Error reading edge: Unexpected end of file while reading edges");
+      }
+      for (int i = 0; i < numEdges; i++) {
+        if (!state.present[state.edgeFrom[i]] || !state.present[state.edgeTo[i]]) {
+          throw new IOException("Error reading edge: One of the vertices is null for edge: "
+              + state.edgeFrom[i] + " " + state.edgeTo[i]);
+        }
+      }
+
+      startTime = System.nanoTime();
+      Graph graph = GraphBuilder.pack(state.x, state.y, state.edgeFrom, state.edgeTo, numEdges);
+      long buildNanos = System.nanoTime() - startTime;
+
+      lastStatistics = new Statistics(fileSize, numVertices, numEdges, chunks.length, pool.getParallelism(),
+          countNanos, parseNanos, buildNanos);
+      return graph;
+    }
+  }
+
+  private static int[] parseGraphInfo(String firstLine) throws IOException {
+    try {
+      String[] parts = firstLine.trim().split("\\s+");
+      if (parts.length != 2) {
+        throw new IOException("First line must contain exactly 2 numbers");
+      }
+
+      int numVertices = Integer.parseInt(parts[0]);
+      int numEdges = Integer.parseInt(parts[1]);
+
+      if (numVertices <= 0 || numEdges < 0) {
+        throw new IOException("Invalid numbers: vertices must be positive, edges non-negative");
+      }
+
+      return new int[] { numVertices, numEdges };
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid format for graph dimensions: " + firstLine);
+    }
+  }
+
+  private static void reportFirstError(Chunk[] chunks) throws IOException {
+    // Chunks are in file order, so the first chunk with an error holds the
+    // first bad line
+    for (Chunk chunk : chunks) {
+      if (chunk.errorMessage != null) {
+        throw new IOException(chunk.errorMessage);
+      }
+    }
+  }
+
+  /**
+   * Cuts [bodyStart, fileSize) into chunks of roughly CHUNK_BYTES that each end
+   * right after a newline (or at the end of the file).
+   */
+  private static Chunk[] splitIntoChunks(FileChannel channel, long bodyStart, long fileSize) throws IOException {
+    int maxChunks = (int) ((fileSize - bodyStart) / CHUNK_BYTES) + 1;
+    Chunk[] chunks = new Chunk[maxChunks];
+    int count = 0;
+    long start = bodyStart;
+    while (start < fileSize) {
+      long end = start + CHUNK_BYTES >= fileSize ? fileSize : findLineEnd(channel, start + CHUNK_BYTES, fileSize);
+      chunks[count++] = new Chunk(start, end, end == fileSize);
+      start = end;
+    }
+    if (count < maxChunks) {
+      Chunk[] trimmed = new Chunk[count];
+      System.arraycopy(chunks, 0, trimmed, 0, count);
+      return trimmed;
+    }
+    return chunks;
+  }
+
+  /**
+   * Returns the position just after the first newline at or after
+   * {@code position}, or the file size if there is none.
+   */
+  private static long findLineEnd(FileChannel channel, long position, long fileSize) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+    while (position < fileSize) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return fileSize;
+  }
+
+  private static String readText(FileChannel channel, long start, long end) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, start + buffer.position()) < 0) {
+        break;
+      }
+    }
+    return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, Chunk chunk) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // A slice of the file body, ending after a newline or at the end of the file
+  private static class Chunk {
+    final long start;
+    final long end;
+    final boolean last;
+    long lineCount;
+    long firstLine;
+    String errorMessage;
+
+    Chunk(long start, long end, boolean last) {
+      this.start = start;
+      this.end = end;
+      this.last = last;
+    }
+  }
+
+  // Output arrays shared by all parse tasks. Every line writes its own slots,
+  // so no locking is needed.
+  private static class ParseState {
+    final int numVertices;
+    final int numEdges;
+    final int[] x;
+    final int[] y;
+    final boolean[] present;
+    final int[] edgeFrom;
+    final int[] edgeTo;
+    final long totalBytes;
+    final AtomicLong bytesParsed = new AtomicLong();
+    final ProgressListener progressListener;
+
+    ParseState(int numVertices, int numEdges, long totalBytes, ProgressListener progressListener) {
+      this.numVertices = numVertices;
+      this.numEdges = numEdges;
+      this.x = new int[numVertices];
+      this.y = new int[numVertices];
+      this.present = new boolean[numVertices];
+      this.edgeFrom = new int[numEdges];
+      this.edgeTo = new int[numEdges];
+      this.totalBytes = totalBytes;
+      this.progressListener = progressListener;
+    }
+  }
+
+  private static class CountTask extends RecursiveAction {
+    private final FileChannel channel;
+    private final Chunk[] chunks;
+    private final int from;
+    private final int to;
+
+    CountTask(FileChannel channel, Chunk[] chunks, int from, int to) {
+      this.channel = channel;
+      this.chunks = chunks;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new CountTask(channel, chunks, from, mid), new CountTask(channel, chunks, mid, to));
+        return;
+      }
+      Chunk chunk = chunks[from];
+      MappedByteBuffer bytes = map(channel, chunk);
+      int length = bytes.limit();
+      long lines = 0;
+      for (int i = 0; i < length; i++) {
+        if (bytes.get(i) == '\n') {
+          lines++;
+        }
+      }
+      // A last line without a trailing newline still counts
+      if (chunk.last && length > 0 && bytes.get(length - 1) != '\n') {
+        lines++;
+      }
+      chunk.lineCount = lines;
+    }
+  }
+
+  private static class ParseTask extends RecursiveAction {
+    private final FileChannel channel;
+    private final Chunk[] chunks;
+    private final ParseState state;
+    private final int from;
+    private final int to;
+
+    ParseTask(FileChannel channel, Chunk[] chunks, ParseState state, int from, int to) {
+      this.channel = channel;
+      this.chunks = chunks;
+      this.state = state;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new ParseTask(channel, chunks, state, from, mid), new ParseTask(channel, chunks, state, mid, to));
+        return;
+      }
+      Chunk chunk = chunks[from];
+      parseChunk(chunk, map(channel, chunk));
+
+      long done = state.bytesParsed.addAndGet(chunk.end - chunk.start);
+      if (state.progressListener != null) {
+        state.progressListener.onProgress(done, state.totalBytes);
+      }
+    }
+
+    private void parseChunk(Chunk chunk, MappedByteBuffer bytes) {
+      int length = bytes.limit();
+      int[] tokenStart = new int[MAX_TOKENS];
+      int[] tokenEnd = new int[MAX_TOKENS];
+      int[] values = new int[MAX_TOKENS];
+      long line = chunk.firstLine;
+      long lastEdgeLine = (long) state.numVertices + state.numEdges;
+      int position = 0;
+
+      while (position < length && line <= lastEdgeLine) {
+        int lineStart = position;
+        int lineEnd = position;
+        while (lineEnd < length && bytes.get(lineEnd) != '\n') {
+          lineEnd++;
+        }
+        position = lineEnd + 1;
+
+        if (line != state.numVertices) { // the line after the vertices is the separator
+          int tokens = tokenize(bytes, lineStart, lineEnd, tokenStart, tokenEnd);
+          int error = line < state.numVertices
+              ? parseVertex(bytes, tokens, tokenStart, tokenEnd, values)
+              : parseEdge(bytes, tokens, tokenStart, tokenEnd, values, (int) (line - state.numVertices - 1));
+          if (error != NO_ERROR) {
+            chunk.errorMessage = errorMessage(error, lineText(bytes, lineStart, lineEnd));
+            return;
+          }
+        }
+        line++;
+      }
+    }
+
+    private int parseVertex(MappedByteBuffer bytes, int tokens, int[] tokenStart, int[] tokenEnd, int[] values) {
+      if (tokens != 3) {
+        return VERTEX_FORMAT;
+      }
+      for (int t = 0; t < 3; t++) {
+        if (!parseInt(bytes, tokenStart[t], tokenEnd[t], values, t)) {
+          return VERTEX_NUMBER;
+        }
+      }
+      int vertexId = values[0];
+      if (vertexId < 0 || vertexId >= state.numVertices) {
+        return VERTEX_ID;
+      }
+      state.x[vertexId] = values[1];
+      state.y[vertexId] = values[2];
+      state.present[vertexId] = true;
+      return NO_ERROR;
+    }
+
+    private int parseEdge(MappedByteBuffer bytes, int tokens, int[] tokenStart, int[] tokenEnd, int[] values,
+        int edgeIndex) {
+      if (tokens != 2) {
+        return EDGE_FORMAT;
+      }
+      for (int t = 0; t < 2; t++) {
+        if (!parseInt(bytes, tokenStart[t], tokenEnd[t], values, t)) {
+          return EDGE_NUMBER;
+        }
+      }
+      int vertexId1 = values[0];
+      int vertexId2 = values[1];
+      if (vertexId1 < 0 || vertexId1 >= state.numVertices || vertexId2 < 0 || vertexId2 >= state.numVertices) {
+        return EDGE_ID;
+      }
+      if (vertexId1 == vertexId2) {
+        return SELF_LOOP;
+      }
+      state.edgeFrom[edgeIndex] = vertexId1;
+      state.edgeTo[edgeIndex] = vertexId2;
+      return NO_ERROR;
+    }
+
+    // Builds the same message DataProccessor reports for a bad line. Only
+    // called for the one line that gets reported, so allocating here is fine.
+    private static String errorMessage(int error, String line) {
+      String[] parts = line.trim().split("\\s+");
+      switch (error) {
+        case VERTEX_FORMAT:
+          return "Expected Format: vertix_id x y";
+        case VERTEX_NUMBER:
+          return "Invalid number format in vertix: " + line;
+        case VERTEX_ID:
+          return "Invalid vertex ID: " + line;
+        case EDGE_FORMAT:
+          return "Error reading edge: Expected Format: vertix_id1 vertix_id2";
+        case EDGE_NUMBER:
+          for (String part : parts) {
+            try {
+              Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+              return "Invalid number format in edge: " + e.getMessage();
+            }
+          }
+          return "Invalid number format in edge: " + line;
+        case EDGE_ID:
+          return "Error reading edge: Invalid vertex ID in edge: " + line;
+        default:
+          return "Error reading edge: Self-loop detected for vertex ID: " + parts[0];
+      }
+    }
+
+    private static String lineText(MappedByteBuffer bytes, int lineStart, int lineEnd) {
+      if (lineEnd > lineStart && bytes.get(lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+      byte[] text = new byte[lineEnd - lineStart];
+      for (int i = 0; i < text.length; i++) {
+        text[i] = bytes.get(lineStart + i);
+      }
+      return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Finds the whitespace separated tokens of a line. Returns the number of
+     * tokens, capped at MAX_TOKENS since any more is already an error.
+     */
+    private static int tokenize(MappedByteBuffer bytes, int start, int end, int[] tokenStart, int[] tokenEnd) {
+      int tokens = 0;
+      int i = start;
+      while (i < end && tokens < MAX_TOKENS) {
+        while (i < end && isWhitespace(bytes.get(i))) {
+          i++;
+        }
+        if (i == end) {
+          break;
+        }
+        tokenStart[tokens] = i;
+        while (i < end && !isWhitespace(bytes.get(i))) {
+          i++;
+        }
+        tokenEnd[tokens++] = i;
+      }
+      return tokens;
+    }
+
+    private static boolean isWhitespace(byte b) {
+      return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Parses a decimal int with the same rules as Integer.parseInt and stores
+     * it in values[slot]. Returns false if the token is not a valid int.
+     */
+    private static boolean parseInt(MappedByteBuffer bytes, int start, int end, int[] values, int slot) {
+      boolean negative = false;
+      int i = start;
+      byte first = bytes.get(i);
+      if (first == '-' || first == '+') {
+        negative = first == '-';
+        i++;
+      }
+      if (i == end) {
+        return false;
+      }
+      long value = 0;
+      for (; i < end; i++) {
+        int digit = bytes.get(i) - '0';
+        if (digit < 0 || digit > 9) {
+          return false;
+        }
+        value = value * 10 + digit;
+        if (value > (long) Integer.MAX_VALUE + 1) {
+          return false;
+        }
+      }
+      if (negative) {
+        value = -value;
+      }
+      if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+        return false;
+      }
+      values[slot] = (int) value;
+      return true;
+    }
+  }
+
+  /**
+   * Parses a file and prints throughput, to see how the parser scales with the
+   * number of threads.
+   *
+   * Usage: {@code ParallelGraphParser <graph.txt> [threads]}
+   */
+  public static void main(String[] args) {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: ParallelGraphParser <graph.txt> [threads]");
+      System.exit(2);
+    }
+    int threads = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      ParallelGraphParser parser = new ParallelGraphParser(pool);
+      AtomicLong lastReported = new AtomicLong();
+      parser.setProgressListener((bytesParsed, totalBytes) -> {
+        long percent = bytesParsed * 100 / totalBytes;
+        long previous = lastReported.get();
+        if (percent >= previous + 10 && lastReported.compareAndSet(previous, percent)) {
+          System.out.printf("Parsed %d%%\n", percent);
+        }
+      });
+      parser.parse(args[0]);
+      System.out.println(parser.getLastStatistics());
+    } catch (IOException e) {
+      System.err.println("Error parsing file: " + e.getMessage());
+      System.exit(1);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
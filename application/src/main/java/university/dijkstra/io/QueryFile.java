@@ -0,0 +1,140 @@
+package university.dijkstra.io;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A list of source/destination queries, read from a text or a binary file.
+ *
+ * The text format has one query per line, the source and the destination id
+ * separated by whitespace. Lines that do not have exactly two fields are
+ * skipped. The binary format is picked by its magic number:
+ *
+ * <pre>
+ * int    magic        'DJKQ'
+ * int    version
+ * int    numQueries
+ * int[]  queries      source, destination per query
+ * </pre>
+ */
+public class QueryFile {
+  public static final int MAGIC = 0x444A4B51; // "DJKQ"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 12;
+
+  private final int[] sources;
+  private final int[] destinations;
+
+  public QueryFile(int[] sources, int[] destinations) {
+    if (sources.length != destinations.length) {
+      throw new IllegalArgumentException("Need one destination per source");
+    }
+    this.sources = sources;
+    this.destinations = destinations;
+  }
+
+  public int size() {
+    return sources.length;
+  }
+
+  public int[] getSources() {
+    return sources;
+  }
+
+  public int[] getDestinations() {
+    return destinations;
+  }
+
+  /**
+   * Reads a query file in either format.
+   *
+   * @throws IOException if the file cannot be read or a binary file is
+   *                     corrupt
+   */
+  public static QueryFile read(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename))) {
+      if (channel.size() >= HEADER_BYTES) {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) == MAGIC) {
+          return readBinary(channel, header, filename);
+        }
+      }
+    }
+    return readText(filename);
+  }
+
+  private static QueryFile readBinary(FileChannel channel, ByteBuffer header, String filename) throws IOException {
+    int version = header.getInt(4);
+    if (version != VERSION) {
+      throw new IOException("Unsupported query file version " + version + ", expected " + VERSION);
+    }
+    int numQueries = header.getInt(8);
+    if (numQueries < 0 || channel.size() != HEADER_BYTES + 8L * numQueries) {
+      throw new IOException("Query file has the wrong size for " + numQueries + " queries: " + filename);
+    }
+    int[] pairs = new int[2 * numQueries];
+    BinaryGraphFile.readInts(channel, HEADER_BYTES, pairs);
+    int[] sources = new int[numQueries];
+    int[] destinations = new int[numQueries];
+    for (int i = 0; i < numQueries; i++) {
+      sources[i] = pairs[2 * i];
+      destinations[i] = pairs[2 * i + 1];
+    }
+    return new QueryFile(sources, destinations);
+  }
+
+  private static QueryFile readText(String filename) throws IOException {
+    int[] sources = new int[1024];
+    int[] destinations = new int[1024];
+    int count = 0;
+    try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 2) {
+          continue;
+        }
+        if (count == sources.length) {
+          sources = Arrays.copyOf(sources, count * 2);
+          destinations = Arrays.copyOf(destinations, count * 2);
+        }
+        try {
+          sources[count] = Integer.parseInt(parts[0]);
+          destinations[count] = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+          throw new IOException("Invalid query in " + filename + ": " + line);
+        }
+        count++;
+      }
+    }
+    return new QueryFile(Arrays.copyOf(sources, count), Arrays.copyOf(destinations, count));
+  }
+
+  /**
+   * Writes the queries in the binary format.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public void write(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(sources.length);
+      for (int i = 0; i < sources.length; i++) {
+        BinaryGraphFile.putInt(channel, buffer, sources[i]);
+        BinaryGraphFile.putInt(channel, buffer, destinations[i]);
+      }
+      BinaryGraphFile.flush(channel, buffer);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package university.dijkstra.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The connected components of a {@link Graph}, one component id per vertex.
+ *
+ * Two vertices are connected exactly if their ids are equal, so a query
+ * whose ends lie in different components can be answered as unreachable in
+ * O(1) instead of by settling the whole component of the source.
+ *
+ * The components are found by a lock-free union-find over the arcs, with the
+ * vertex range split among the threads of a fork-join pool. A union links
+ * the larger root below the smaller one with a compare-and-set, and finds
+ * halve their path as they go, so every root is the smallest vertex of its
+ * set. A last sequential pass numbers the components in the order of their
+ * smallest vertex. The result is immutable and can be shared between
+ * threads.
+ */
+public class ConnectedComponents {
+  private static final int LEAF_VERTICES = 1 << 14; // Vertices per fork-join leaf
+
+  private final int[] componentIds;
+  private final int[] sizes;
+  private final int largestComponent;
+  private final long computeNanos;
+
+  private ConnectedComponents(int[] componentIds, int[] sizes, long computeNanos) {
+    this.componentIds = componentIds;
+    this.sizes = sizes;
+    this.computeNanos = computeNanos;
+    int largest = sizes.length > 0 ? 0 : -1;
+    for (int c = 1; c < sizes.length; c++) {
+      if (sizes[c] > sizes[largest]) {
+        largest = c;
+      }
+    }
+    this.largestComponent = largest;
+  }
+
+  /**
+   * Finds the components on the common fork-join pool.
+   */
+  public static ConnectedComponents compute(Graph graph) {
+    return compute(graph, ForkJoinPool.commonPool());
+  }
+
+  public static ConnectedComponents compute(Graph graph, ForkJoinPool pool) {
+    long startTime = System.nanoTime();
+    int numVertices = graph.getNumVertices();
+    AtomicIntegerArray parents = new AtomicIntegerArray(numVertices);
+    for (int v = 0; v < numVertices; v++) {
+      parents.set(v, v);
+    }
+    pool.invoke(new UnionTask(graph, parents, 0, numVertices));
+
+    // Every vertex gets its root, which is never larger than the vertex
+    int[] componentIds = new int[numVertices];
+    pool.invoke(new FindTask(parents, componentIds, 0, numVertices));
+
+    // Roots come first in their component, so a root is numbered before any
+    // vertex that refers to it
+    int numComponents = 0;
+    int[] sizes = new int[16];
+    for (int v = 0; v < numVertices; v++) {
+      int root = componentIds[v];
+      int component;
+      if (root == v) {
+        component = numComponents++;
+        if (component == sizes.length) {
+          sizes = Arrays.copyOf(sizes, sizes.length * 2);
+        }
+      } else {
+        component = componentIds[root];
+      }
+      componentIds[v] = component;
+      sizes[component]++;
+    }
+    return new ConnectedComponents(componentIds, Arrays.copyOf(sizes, numComponents),
+        System.nanoTime() - startTime);
+  }
+
+  /**
+   * Returns the root of the set holding {@code v}, halving the path on the
+   * way. A halving step that loses a race is simply skipped.
+   */
+  private static int find(AtomicIntegerArray parents, int v) {
+    while (true) {
+      int parent = parents.get(v);
+      if (parent == v) {
+        return v;
+      }
+      int grandparent = parents.get(parent);
+      if (grandparent != parent) {
+        parents.compareAndSet(v, parent, grandparent);
+      }
+      v = grandparent;
+    }
+  }
+
+  private static void union(AtomicIntegerArray parents, int a, int b) {
+    while (true) {
+      a = find(parents, a);
+      b = find(parents, b);
+      if (a == b) {
+        return;
+      }
+      int low = Math.min(a, b);
+      int high = Math.max(a, b);
+      // Fails if another thread linked high in the meantime, then retry from
+      // the new roots
+      if (parents.compareAndSet(high, high, low)) {
+        return;
+      }
+    }
+  }
+
+  private static class UnionTask extends RecursiveAction {
+    private final Graph graph;
+    private final AtomicIntegerArray parents;
+    private final int from;
+    private final int to;
+
+    UnionTask(Graph graph, AtomicIntegerArray parents, int from, int to) {
+      this.graph = graph;
+      this.parents = parents;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_VERTICES) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new UnionTask(graph, parents, from, mid), new UnionTask(graph, parents, mid, to));
+        return;
+      }
+      for (int v = from; v < to; v++) {
+        for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+          int w = graph.getTarget(e);
+          // Every edge is stored in both directions, one arc is enough
+          if (w > v) {
+            union(parents, v, w);
+          }
+        }
+      }
+    }
+  }
+
+  private static class FindTask extends RecursiveAction {
+    private final AtomicIntegerArray parents;
+    private final int[] roots;
+    private final int from;
+    private final int to;
+
+    FindTask(AtomicIntegerArray parents, int[] roots, int from, int to) {
+      this.parents = parents;
+      this.roots = roots;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_VERTICES) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new FindTask(parents, roots, from, mid), new FindTask(parents, roots, mid, to));
+        return;
+      }
+      for (int v = from; v < to; v++) {
+        roots[v] = find(parents, v);
+      }
+    }
+  }
+
+  public int getNumComponents() {
+    return sizes.length;
+  }
+
+  /**
+   * Returns the id of the component holding the vertex, from 0 to
+   * {@code getNumComponents() - 1}.
+   */
+  public int getComponent(int vertexId) {
+    return componentIds[vertexId];
+  }
+
+  public boolean isConnected(int v1, int v2) {
+    return componentIds[v1] == componentIds[v2];
+  }
+
+  /**
+   * Returns the number of vertices in the component.
+   */
+  public int getSize(int component) {
+    return sizes[component];
+  }
+
+  /**
+   * Returns the component with the most vertices, or -1 if the graph is
+   * empty.
+   */
+  public int getLargestComponent() {
+    return largestComponent;
+  }
+
+  public long getComputeNanos() {
+    return computeNanos;
+  }
+
+  /**
+   * Prints the number of components, the largest ones and how many vertices
+   * lie outside the largest.
+   */
+  @Override
+  public String toString() {
+    int numVertices = componentIds.length;
+    int[] sorted = sizes.clone();
+    Arrays.sort(sorted);
+    int isolated = 0;
+    while (isolated < sorted.length && sorted[isolated] == 1) {
+      isolated++;
+    }
+    StringBuilder largest = new StringBuilder();
+    for (int i = sorted.length - 1; i >= Math.max(0, sorted.length - 5); i--) {
+      largest.append(i < sorted.length - 1 ? ", " : "").append(sorted[i]);
+    }
+    int outside = largestComponent != -1 ? numVertices - sizes[largestComponent] : 0;
+    return String.format("%d components, largest sizes [%s], %d vertices (%.2f%%) outside the largest, "
+        + "%d isolated vertices; found in %.1f ms", sizes.length, largest, outside,
+        100.0 * outside / Math.max(1, numVertices), isolated, computeNanos / 1e6);
+  }
+}
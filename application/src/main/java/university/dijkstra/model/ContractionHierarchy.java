@@ -0,0 +1,110 @@
+package university.dijkstra.model;
+
+/**
+ * The result of contracting a {@link Graph}: a rank per vertex and the upward
+ * arcs of every vertex, in compressed sparse row form.
+ *
+ * The arcs of vertex {@code v} occupy {@code [offsets[v], offsets[v + 1])} and
+ * all lead to vertices of higher rank. Since the road graph is undirected, the
+ * same upward arcs serve both the forward and the backward search. An arc is
+ * either an original edge ({@code middle == -1}) or a shortcut that replaces
+ * the two arcs {@code from - middle} and {@code middle - to}; both of those are
+ * stored at {@code middle}, which was contracted first.
+ */
+public class ContractionHierarchy {
+  private final int[] ranks;
+  private final int[] offsets;
+  private final int[] targets;
+  private final double[] weights;
+  private final int[] middles;
+
+  /**
+   * Creates a hierarchy from already built arrays. The arrays are used as-is
+   * and must not be modified afterwards.
+   *
+   * @param ranks   contraction order per vertex, 0 is contracted first
+   * @param offsets upward arc start index per vertex, with one extra trailing
+   *                entry
+   * @param targets upward arc target vertex ids
+   * @param weights arc weights, parallel to {@code targets}
+   * @param middles contracted middle vertex of each shortcut, -1 for original
+   *                edges
+   * @throws IllegalArgumentException if the array lengths are inconsistent
+   */
+  public ContractionHierarchy(int[] ranks, int[] offsets, int[] targets, double[] weights, int[] middles) {
+    if (offsets.length != ranks.length + 1) {
+      throw new IllegalArgumentException("Offsets must have one entry per vertex plus one");
+    }
+    if (targets.length != weights.length || targets.length != middles.length
+        || offsets[offsets.length - 1] != targets.length) {
+      throw new IllegalArgumentException("Arc arrays do not match the offsets");
+    }
+    this.ranks = ranks;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.middles = middles;
+  }
+
+  public int getNumVertices() {
+    return ranks.length;
+  }
+
+  public int getNumArcs() {
+    return targets.length;
+  }
+
+  /**
+   * Returns the number of upward arcs that are shortcuts.
+   */
+  public int getNumShortcuts() {
+    int count = 0;
+    for (int middle : middles) {
+      if (middle != -1) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public int getRank(int vertexId) {
+    return ranks[vertexId];
+  }
+
+  public int getEdgeStart(int vertexId) {
+    return offsets[vertexId];
+  }
+
+  public int getEdgeEnd(int vertexId) {
+    return offsets[vertexId + 1];
+  }
+
+  public int getTarget(int arcIndex) {
+    return targets[arcIndex];
+  }
+
+  public double getWeight(int arcIndex) {
+    return weights[arcIndex];
+  }
+
+  public int getMiddle(int arcIndex) {
+    return middles[arcIndex];
+  }
+
+  public boolean isShortcut(int arcIndex) {
+    return middles[arcIndex] != -1;
+  }
+
+  /**
+   * Returns the index of the upward arc from {@code from} to {@code to}, or -1
+   * if there is none. There is at most one arc per pair of vertices.
+   */
+  public int findArc(int from, int to) {
+    for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+      if (targets[e] == to) {
+        return e;
+      }
+    }
+    return -1;
+  }
+}
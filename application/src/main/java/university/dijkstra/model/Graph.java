@@ -0,0 +1,247 @@
+package university.dijkstra.model;
+
+/**
+ * An immutable road graph stored in compressed sparse row (CSR) form.
+ * 
+ * The arcs leaving vertex {@code v} occupy the index range
+ * {@code [offsets[v], offsets[v + 1])} of the {@code targets} and
+ * {@code weights} arrays. Coordinates are kept in parallel {@code x}/{@code y}
+ * arrays indexed by vertex id, so a search touches a handful of primitive
+ * arrays instead of chasing Vertex/Edge/Node objects.
+ *
+ * The arrays live behind a {@link Storage}: plain heap arrays for graphs
+ * that are built or parsed, or views of a memory-mapped file for graphs
+ * loaded by {@code BinaryGraphFile}, which several processes can then share
+ * through the page cache.
+ *
+ * The {@link ConnectedComponents} are found on first use and kept with the
+ * graph; the text loaders in {@code DataProccessor} find them right away,
+ * so no query pays for them. A mapped graph leaves them to the first query.
+ */
+public class Graph {
+  private final Storage storage;
+  private final int numVertices;
+  private final int numArcs;
+  private volatile ConnectedComponents components; // Found on first use
+
+  /**
+   * The CSR arrays of a graph, read one entry at a time. Entries must not
+   * change once the graph is created.
+   */
+  public interface Storage {
+    int getNumVertices();
+
+    int getNumArcs();
+
+    /**
+     * Returns entry {@code index} of the offsets, which have one extra
+     * trailing entry.
+     */
+    int getOffset(int index);
+
+    int getTarget(int arc);
+
+    double getWeight(int arc);
+
+    int getX(int vertexId);
+
+    int getY(int vertexId);
+  }
+
+  private static final class ArrayStorage implements Storage {
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] x;
+    private final int[] y;
+
+    ArrayStorage(int[] offsets, int[] targets, double[] weights, int[] x, int[] y) {
+      this.offsets = offsets;
+      this.targets = targets;
+      this.weights = weights;
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public int getNumVertices() {
+      return x.length;
+    }
+
+    @Override
+    public int getNumArcs() {
+      return targets.length;
+    }
+
+    @Override
+    public int getOffset(int index) {
+      return offsets[index];
+    }
+
+    @Override
+    public int getTarget(int arc) {
+      return targets[arc];
+    }
+
+    @Override
+    public double getWeight(int arc) {
+      return weights[arc];
+    }
+
+    @Override
+    public int getX(int vertexId) {
+      return x[vertexId];
+    }
+
+    @Override
+    public int getY(int vertexId) {
+      return y[vertexId];
+    }
+  }
+
+  /**
+   * Creates a graph from already built CSR arrays. The arrays are used as-is
+   * and must not be modified afterwards.
+   * 
+   * @param offsets arc start index per vertex, with one extra trailing entry
+   * @param targets arc target vertex ids
+   * @param weights arc weights, parallel to {@code targets}
+   * @param x       x coordinate per vertex
+   * @param y       y coordinate per vertex
+   * @throws IllegalArgumentException if the array lengths are inconsistent
+   */
+  public Graph(int[] offsets, int[] targets, double[] weights, int[] x, int[] y) {
+    if (offsets.length == 0 || x.length != offsets.length - 1 || y.length != x.length) {
+      throw new IllegalArgumentException("Coordinate arrays must have one entry per vertex");
+    }
+    if (targets.length != weights.length || offsets[offsets.length - 1] != targets.length) {
+      throw new IllegalArgumentException("Arc arrays do not match the offsets");
+    }
+    this.storage = new ArrayStorage(offsets, targets, weights, x, y);
+    this.numVertices = x.length;
+    this.numArcs = targets.length;
+  }
+
+  /**
+   * Creates a graph on storage that is already filled in, such as a mapped
+   * file. Only the ends of the offsets are checked, so a storage that is
+   * corrupt inside gives wrong results or out-of-range errors later.
+   *
+   * @throws IllegalArgumentException if the offsets do not span the arcs
+   */
+  public Graph(Storage storage) {
+    this.storage = storage;
+    this.numVertices = storage.getNumVertices();
+    this.numArcs = storage.getNumArcs();
+    if (numVertices <= 0 || storage.getOffset(0) != 0 || storage.getOffset(numVertices) != numArcs) {
+      throw new IllegalArgumentException("Offsets do not span the arcs");
+    }
+  }
+
+  public int getNumVertices() {
+    return numVertices;
+  }
+
+  /**
+   * Returns the number of arcs. Every undirected edge is stored twice.
+   */
+  public int getNumArcs() {
+    return numArcs;
+  }
+
+  public int getX(int vertexId) {
+    return storage.getX(vertexId);
+  }
+
+  public int getY(int vertexId) {
+    return storage.getY(vertexId);
+  }
+
+  /**
+   * Returns the index of the first arc leaving the given vertex.
+   */
+  public int getEdgeStart(int vertexId) {
+    return storage.getOffset(vertexId);
+  }
+
+  /**
+   * Returns the index one past the last arc leaving the given vertex.
+   */
+  public int getEdgeEnd(int vertexId) {
+    return storage.getOffset(vertexId + 1);
+  }
+
+  public int getDegree(int vertexId) {
+    return storage.getOffset(vertexId + 1) - storage.getOffset(vertexId);
+  }
+
+  public int getTarget(int edgeIndex) {
+    return storage.getTarget(edgeIndex);
+  }
+
+  public double getWeight(int edgeIndex) {
+    return storage.getWeight(edgeIndex);
+  }
+
+  /**
+   * Returns the weight of the lightest arc from {@code from} to {@code to}, or
+   * -1 if the vertices are not adjacent.
+   */
+  public double findEdgeWeight(int from, int to) {
+    double best = -1;
+    int end = getEdgeEnd(from);
+    for (int e = getEdgeStart(from); e < end; e++) {
+      if (getTarget(e) == to && (best < 0 || getWeight(e) < best)) {
+        best = getWeight(e);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the connected components, finding them on the first call.
+   */
+  public ConnectedComponents getComponents() {
+    ConnectedComponents result = components;
+    if (result == null) {
+      synchronized (this) {
+        result = components;
+        if (result == null) {
+          result = ConnectedComponents.compute(this);
+          components = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Straight-line distance between two vertices, computed the same way the
+   * loader computes edge weights.
+   */
+  public double euclideanDistance(int v1, int v2) {
+    double dx = getX(v1) - getX(v2);
+    double dy = getY(v1) - getY(v2);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * Builds the object view of this graph, one {@link Vertex} per id with its
+   * edges in the same order as the CSR arcs. Meant for the JavaFX viewer only;
+   * the search code works directly on the CSR arrays.
+   * 
+   * @return a new array of vertices indexed by id
+   */
+  public Vertex[] toVertices() {
+    Vertex[] vertices = new Vertex[numVertices];
+    for (int v = 0; v < vertices.length; v++) {
+      vertices[v] = new Vertex(v, getX(v), getY(v));
+    }
+    for (int v = 0; v < vertices.length; v++) {
+      for (int e = getEdgeStart(v); e < getEdgeEnd(v); e++) {
+        vertices[v].addEdge(vertices[getTarget(e)], getWeight(e));
+      }
+    }
+    return vertices;
+  }
+}
@@ -0,0 +1,127 @@
+package university.dijkstra.model;
+
+import java.util.Arrays;
+
+/**
+ * Collects vertices and undirected edges and packs them into a {@link Graph}.
+ * 
+ * Edges are buffered as two flat int arrays and turned into CSR form with a
+ * counting sort, so building never allocates per-edge objects. The arcs of
+ * each vertex keep the order in which their edges were added.
+ */
+public class GraphBuilder {
+  private final int[] x;
+  private final int[] y;
+  private final boolean[] present;
+  private int[] edgeFrom;
+  private int[] edgeTo;
+  private int numEdges;
+
+  /**
+   * @param numVertices   number of vertices, ids run from 0 to numVertices - 1
+   * @param expectedEdges number of undirected edges to reserve room for
+   */
+  public GraphBuilder(int numVertices, int expectedEdges) {
+    if (numVertices <= 0) {
+      throw new IllegalArgumentException("Number of vertices must be positive");
+    }
+    this.x = new int[numVertices];
+    this.y = new int[numVertices];
+    this.present = new boolean[numVertices];
+    this.edgeFrom = new int[Math.max(1, expectedEdges)];
+    this.edgeTo = new int[Math.max(1, expectedEdges)];
+  }
+
+  public int getNumVertices() {
+    return x.length;
+  }
+
+  public int getNumEdges() {
+    return numEdges;
+  }
+
+  public void setVertex(int vertexId, int x, int y) {
+    this.x[vertexId] = x;
+    this.y[vertexId] = y;
+    this.present[vertexId] = true;
+  }
+
+  public boolean hasVertex(int vertexId) {
+    return vertexId >= 0 && vertexId < present.length && present[vertexId];
+  }
+
+  /**
+   * Adds an undirected edge. Its weight is the Euclidean distance between the
+   * endpoints and is computed when the graph is built.
+   */
+  public void addEdge(int vertexId1, int vertexId2) {
+    if (numEdges == edgeFrom.length) {
+      int newCapacity = edgeFrom.length * 2;
+      edgeFrom = Arrays.copyOf(edgeFrom, newCapacity);
+      edgeTo = Arrays.copyOf(edgeTo, newCapacity);
+    }
+    edgeFrom[numEdges] = vertexId1;
+    edgeTo[numEdges] = vertexId2;
+    numEdges++;
+  }
+
+  /**
+   * Packs the collected data into CSR arrays. Every edge becomes two arcs,
+   * one in each direction.
+   * 
+   * @return the finished graph
+   */
+  public Graph build() {
+    return pack(x, y, edgeFrom, edgeTo, numEdges);
+  }
+
+  /**
+   * Packs coordinates and an edge list into CSR arrays. Every edge becomes two
+   * arcs, one in each direction. The arrays are taken over by the graph.
+   * 
+   * @param x        x coordinate per vertex
+   * @param y        y coordinate per vertex
+   * @param edgeFrom first endpoint of each edge
+   * @param edgeTo   second endpoint of each edge
+   * @param numEdges number of valid entries in the edge arrays
+   * @return the finished graph
+   */
+  public static Graph pack(int[] x, int[] y, int[] edgeFrom, int[] edgeTo, int numEdges) {
+    int numVertices = x.length;
+    int[] offsets = new int[numVertices + 1];
+
+    // Count the degree of every vertex, shifted by one so the prefix sum
+    // below turns the counts into start offsets
+    for (int i = 0; i < numEdges; i++) {
+      offsets[edgeFrom[i] + 1]++;
+      offsets[edgeTo[i] + 1]++;
+    }
+    for (int v = 0; v < numVertices; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+
+    int numArcs = offsets[numVertices];
+    int[] targets = new int[numArcs];
+    double[] weights = new double[numArcs];
+    int[] next = new int[numVertices];
+    System.arraycopy(offsets, 0, next, 0, numVertices);
+
+    for (int i = 0; i < numEdges; i++) {
+      int u = edgeFrom[i];
+      int v = edgeTo[i];
+      double weight = calculateEuclideanDistance(x, y, u, v);
+      targets[next[u]] = v;
+      weights[next[u]++] = weight;
+      targets[next[v]] = u;
+      weights[next[v]++] = weight;
+    }
+
+    return new Graph(offsets, targets, weights, x, y);
+  }
+
+  private static double calculateEuclideanDistance(int[] x, int[] y, int v1, int v2) {
+    double dx = x[v1] - x[v2];
+    double dy = y[v1] - y[v2];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
@@ -0,0 +1,325 @@
+package university.dijkstra.model;
+
+import java.util.Arrays;
+
+/**
+ * A k-d tree over the vertex coordinates of a {@link Graph}, for snapping a
+ * point to the graph: nearest vertex, k nearest vertices and all vertices
+ * within a radius. Rectangle queries find the vertices in view.
+ *
+ * The tree is implicit. The vertex ids are permuted so that every range
+ * {@code [low, high)} is split at its middle element, alternating between x
+ * and y, with smaller coordinates on the left. The coordinates are copied
+ * into tree order next to the ids, so a query walks three flat arrays. Ties
+ * in distance go to the smaller vertex id. An index is immutable once built
+ * and can be shared between threads.
+ */
+public class SpatialIndex {
+  private final int[] ids; // Vertex ids in tree order
+  private final int[] xs; // Coordinates in tree order, parallel to ids
+  private final int[] ys;
+
+  // Best candidate of the running nearest query, kept in a small holder so
+  // the recursion does not allocate
+  private static final class Nearest {
+    int id = -1;
+    double distanceSquared;
+
+    Nearest(double limitSquared) {
+      this.distanceSquared = limitSquared;
+    }
+  }
+
+  /**
+   * Builds the index in O(n log n).
+   */
+  public SpatialIndex(Graph graph) {
+    int n = graph.getNumVertices();
+    ids = new int[n];
+    xs = new int[n];
+    ys = new int[n];
+    for (int v = 0; v < n; v++) {
+      ids[v] = v;
+      xs[v] = graph.getX(v);
+      ys[v] = graph.getY(v);
+    }
+    build(0, n, 0);
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the vertex closest to the point, or -1 if the graph is empty.
+   */
+  public int nearest(double x, double y) {
+    return nearest(x, y, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Returns the vertex closest to the point if it is closer than
+   * {@code maxDistance}, otherwise -1.
+   */
+  public int nearest(double x, double y, double maxDistance) {
+    Nearest best = new Nearest(maxDistance == Double.POSITIVE_INFINITY ? maxDistance : maxDistance * maxDistance);
+    searchNearest(0, ids.length, 0, x, y, best);
+    return best.id;
+  }
+
+  /**
+   * Returns the {@code k} vertices closest to the point, closest first. Fewer
+   * are returned if the graph is smaller.
+   *
+   * @throws IllegalArgumentException if k is negative
+   */
+  public int[] kNearest(double x, double y, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative");
+    }
+    k = Math.min(k, ids.length);
+    if (k == 0) {
+      return new int[0];
+    }
+    // Max-heap of the k best candidates, worst on top
+    int[] heapIds = new int[k];
+    double[] heapDistances = new double[k];
+    int size = searchKNearest(0, ids.length, 0, x, y, heapIds, heapDistances, 0);
+
+    // Take the worst off the top until the heap is empty
+    int[] result = new int[size];
+    while (size > 0) {
+      result[size - 1] = heapIds[0];
+      size--;
+      siftDown(heapIds, heapDistances, size, heapIds[size], heapDistances[size]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns every vertex within {@code radius} of the point, the boundary
+   * included, in no particular order.
+   */
+  public int[] withinRadius(double x, double y, double radius) {
+    int[][] result = { new int[16] };
+    int count = searchRadius(0, ids.length, 0, x, y, radius * radius, result, 0);
+    return Arrays.copyOf(result[0], count);
+  }
+
+  /**
+   * Returns every vertex inside the axis-aligned rectangle, the boundary
+   * included, in no particular order.
+   */
+  public int[] withinRectangle(double minX, double minY, double maxX, double maxY) {
+    int[][] result = { new int[16] };
+    int count = searchRectangle(0, ids.length, 0, minX, minY, maxX, maxY, result, 0);
+    return Arrays.copyOf(result[0], count);
+  }
+
+  private void build(int low, int high, int depth) {
+    if (high - low <= 1) {
+      return;
+    }
+    int middle = (low + high) >>> 1;
+    select(low, high - 1, middle, depth % 2 == 0 ? xs : ys);
+    build(low, middle, depth + 1);
+    build(middle + 1, high, depth + 1);
+  }
+
+  /**
+   * Quickselect: puts the element of rank {@code k} by the given coordinate
+   * at index {@code k}, smaller ones before it and larger ones after.
+   */
+  private void select(int left, int right, int k, int[] keys) {
+    while (left < right) {
+      int pivot = keys[(left + right) >>> 1];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (keys[i] < pivot) {
+          i++;
+        }
+        while (keys[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(i++, j--);
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private void swap(int i, int j) {
+    int id = ids[i];
+    ids[i] = ids[j];
+    ids[j] = id;
+    int x = xs[i];
+    xs[i] = xs[j];
+    xs[j] = x;
+    int y = ys[i];
+    ys[i] = ys[j];
+    ys[j] = y;
+  }
+
+  private double distanceSquared(int index, double x, double y) {
+    double dx = xs[index] - x;
+    double dy = ys[index] - y;
+    return dx * dx + dy * dy;
+  }
+
+  private void searchNearest(int low, int high, int depth, double x, double y, Nearest best) {
+    if (low >= high) {
+      return;
+    }
+    int middle = (low + high) >>> 1;
+    double d = distanceSquared(middle, x, y);
+    if (d < best.distanceSquared || (d == best.distanceSquared && best.id != -1 && ids[middle] < best.id)) {
+      best.distanceSquared = d;
+      best.id = ids[middle];
+    }
+
+    double delta = depth % 2 == 0 ? x - xs[middle] : y - ys[middle];
+    // Search the side of the point first, the other one only if the
+    // splitting line is close enough to hold something better
+    if (delta < 0) {
+      searchNearest(low, middle, depth + 1, x, y, best);
+      if (delta * delta <= best.distanceSquared) {
+        searchNearest(middle + 1, high, depth + 1, x, y, best);
+      }
+    } else {
+      searchNearest(middle + 1, high, depth + 1, x, y, best);
+      if (delta * delta <= best.distanceSquared) {
+        searchNearest(low, middle, depth + 1, x, y, best);
+      }
+    }
+  }
+
+  private int searchKNearest(int low, int high, int depth, double x, double y, int[] heapIds,
+      double[] heapDistances, int size) {
+    if (low >= high) {
+      return size;
+    }
+    int middle = (low + high) >>> 1;
+    double d = distanceSquared(middle, x, y);
+    int id = ids[middle];
+    if (size < heapIds.length) {
+      siftUp(heapIds, heapDistances, size++, id, d);
+    } else if (isCloser(d, id, heapDistances[0], heapIds[0])) {
+      siftDown(heapIds, heapDistances, size, id, d);
+    }
+
+    double delta = depth % 2 == 0 ? x - xs[middle] : y - ys[middle];
+    int nearLow = delta < 0 ? low : middle + 1;
+    int nearHigh = delta < 0 ? middle : high;
+    int farLow = delta < 0 ? middle + 1 : low;
+    int farHigh = delta < 0 ? high : middle;
+    size = searchKNearest(nearLow, nearHigh, depth + 1, x, y, heapIds, heapDistances, size);
+    if (size < heapIds.length || delta * delta <= heapDistances[0]) {
+      size = searchKNearest(farLow, farHigh, depth + 1, x, y, heapIds, heapDistances, size);
+    }
+    return size;
+  }
+
+  private int searchRadius(int low, int high, int depth, double x, double y, double radiusSquared, int[][] result,
+      int count) {
+    if (low >= high) {
+      return count;
+    }
+    int middle = (low + high) >>> 1;
+    if (distanceSquared(middle, x, y) <= radiusSquared) {
+      if (count == result[0].length) {
+        result[0] = Arrays.copyOf(result[0], count * 2);
+      }
+      result[0][count++] = ids[middle];
+    }
+
+    double delta = depth % 2 == 0 ? x - xs[middle] : y - ys[middle];
+    if (delta < 0 || delta * delta <= radiusSquared) {
+      count = searchRadius(low, middle, depth + 1, x, y, radiusSquared, result, count);
+    }
+    if (delta >= 0 || delta * delta <= radiusSquared) {
+      count = searchRadius(middle + 1, high, depth + 1, x, y, radiusSquared, result, count);
+    }
+    return count;
+  }
+
+  private int searchRectangle(int low, int high, int depth, double minX, double minY, double maxX, double maxY,
+      int[][] result, int count) {
+    if (low >= high) {
+      return count;
+    }
+    int middle = (low + high) >>> 1;
+    int x = xs[middle];
+    int y = ys[middle];
+    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+      if (count == result[0].length) {
+        result[0] = Arrays.copyOf(result[0], count * 2);
+      }
+      result[0][count++] = ids[middle];
+    }
+
+    int split = depth % 2 == 0 ? x : y;
+    if ((depth % 2 == 0 ? minX : minY) <= split) {
+      count = searchRectangle(low, middle, depth + 1, minX, minY, maxX, maxY, result, count);
+    }
+    if ((depth % 2 == 0 ? maxX : maxY) >= split) {
+      count = searchRectangle(middle + 1, high, depth + 1, minX, minY, maxX, maxY, result, count);
+    }
+    return count;
+  }
+
+  /**
+   * Orders candidates by distance, then by id.
+   */
+  private static boolean isCloser(double distance, int id, double otherDistance, int otherId) {
+    return distance < otherDistance || (distance == otherDistance && id < otherId);
+  }
+
+  private static void siftUp(int[] heapIds, double[] heapDistances, int position, int id, double distance) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (!isCloser(heapDistances[parent], heapIds[parent], distance, id)) {
+        break;
+      }
+      heapIds[position] = heapIds[parent];
+      heapDistances[position] = heapDistances[parent];
+      position = parent;
+    }
+    heapIds[position] = id;
+    heapDistances[position] = distance;
+  }
+
+  /**
+   * Replaces the top of a heap of the given size and restores the order.
+   */
+  private static void siftDown(int[] heapIds, double[] heapDistances, int size, int id, double distance) {
+    int position = 0;
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && isCloser(heapDistances[child], heapIds[child], heapDistances[child + 1],
+          heapIds[child + 1])) {
+        child++;
+      }
+      if (!isCloser(distance, id, heapDistances[child], heapIds[child])) {
+        break;
+      }
+      heapIds[position] = heapIds[child];
+      heapDistances[position] = heapDistances[child];
+      position = child;
+    }
+    if (size > 0) {
+      heapIds[position] = id;
+      heapDistances[position] = distance;
+    }
+  }
+}
@@ -0,0 +1,302 @@
+package university.dijkstra.model;
+
+import java.util.Arrays;
+
+/**
+ * A renumbering of the vertices of a {@link Graph} that puts vertices close
+ * in the graph close in memory.
+ *
+ * The ids of the input files follow no particular order, so the neighbours
+ * of a vertex are scattered over the distance and predecessor arrays of a
+ * search and almost every relaxation misses the cache. {@link #apply}
+ * rewrites a graph with the vertices in the new order, and the id mapping
+ * translates between the original, external ids and the internal ones of
+ * the rewritten graph. An order is immutable and can be shared between
+ * threads.
+ */
+public class VertexOrder {
+  public enum Strategy {
+    /**
+     * Sorts the vertices along a Hilbert curve over their coordinates, so
+     * vertices close in the plane get close ids.
+     */
+    HILBERT,
+    /**
+     * Numbers the vertices in breadth-first order, one component after the
+     * other.
+     */
+    BREADTH_FIRST,
+    /**
+     * Reverse Cuthill-McKee: breadth-first from a vertex at the far end of
+     * its component, neighbours by increasing degree, all reversed. Keeps
+     * the ids of every arc's ends close together.
+     */
+    REVERSE_CUTHILL_MCKEE;
+
+    /**
+     * Parses a name such as "hilbert" or "reverse-cuthill-mckee", ignoring
+     * case. "bfs" and "rcm" are accepted as short forms.
+     */
+    public static Strategy fromName(String name) {
+      switch (name.toLowerCase()) {
+        case "bfs":
+          return BREADTH_FIRST;
+        case "rcm":
+          return REVERSE_CUTHILL_MCKEE;
+        default:
+          return valueOf(name.toUpperCase().replace('-', '_'));
+      }
+    }
+  }
+
+  // Grid of 2^15 x 2^15 cells, so a curve index fits in 30 bits and the
+  // sort keys built from it stay positive
+  private static final int HILBERT_BITS = 15;
+
+  private final int[] toInternal;
+  private final int[] toExternal;
+
+  /**
+   * Creates an order from the list of external ids in their new order, so
+   * the vertex with external id {@code order[i]} gets internal id
+   * {@code i}.
+   *
+   * @throws IllegalArgumentException if the array is not a permutation
+   */
+  public VertexOrder(int[] order) {
+    toExternal = order.clone();
+    toInternal = new int[order.length];
+    Arrays.fill(toInternal, -1);
+    for (int i = 0; i < order.length; i++) {
+      int v = order[i];
+      if (v < 0 || v >= order.length || toInternal[v] != -1) {
+        throw new IllegalArgumentException("The order is not a permutation of the vertex ids");
+      }
+      toInternal[v] = i;
+    }
+  }
+
+  /**
+   * Computes the order of the given strategy for the graph in O(n log n)
+   * for the Hilbert curve and O(n + m) otherwise.
+   */
+  public static VertexOrder compute(Graph graph, Strategy strategy) {
+    switch (strategy) {
+      case HILBERT:
+        return new VertexOrder(hilbertOrder(graph));
+      case BREADTH_FIRST:
+        return new VertexOrder(breadthFirstOrder(graph));
+      case REVERSE_CUTHILL_MCKEE:
+        return new VertexOrder(reverseCuthillMcKeeOrder(graph));
+      default:
+        throw new IllegalArgumentException("Unknown strategy: " + strategy);
+    }
+  }
+
+  public int size() {
+    return toInternal.length;
+  }
+
+  public int toInternal(int externalId) {
+    return toInternal[externalId];
+  }
+
+  /**
+   * Returns the external id of an internal one. -1, the "no vertex" of the
+   * engines, stays -1.
+   */
+  public int toExternal(int internalId) {
+    return internalId == -1 ? -1 : toExternal[internalId];
+  }
+
+  /**
+   * Builds the graph with the vertices renumbered. The arcs of every vertex
+   * keep their order and weights.
+   *
+   * @throws IllegalArgumentException if the graph has another number of
+   *                                  vertices than the order
+   */
+  public Graph apply(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    if (numVertices != toInternal.length) {
+      throw new IllegalArgumentException("The order is for a graph with " + toInternal.length + " vertices");
+    }
+    int[] offsets = new int[numVertices + 1];
+    int[] targets = new int[graph.getNumArcs()];
+    double[] weights = new double[graph.getNumArcs()];
+    int[] x = new int[numVertices];
+    int[] y = new int[numVertices];
+    int arc = 0;
+    for (int i = 0; i < numVertices; i++) {
+      int v = toExternal[i];
+      for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+        targets[arc] = toInternal[graph.getTarget(e)];
+        weights[arc] = graph.getWeight(e);
+        arc++;
+      }
+      offsets[i + 1] = arc;
+      x[i] = graph.getX(v);
+      y[i] = graph.getY(v);
+    }
+    return new Graph(offsets, targets, weights, x, y);
+  }
+
+  /**
+   * Returns the mean difference between the internal ids of the two ends of
+   * an arc, a rough measure of how far apart in memory a relaxation reaches.
+   */
+  public static double averageArcSpan(Graph graph) {
+    long total = 0;
+    for (int v = 0; v < graph.getNumVertices(); v++) {
+      for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+        total += Math.abs(graph.getTarget(e) - v);
+      }
+    }
+    return graph.getNumArcs() == 0 ? 0 : (double) total / graph.getNumArcs();
+  }
+
+  private static int[] hilbertOrder(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (int v = 0; v < numVertices; v++) {
+      minX = Math.min(minX, graph.getX(v));
+      maxX = Math.max(maxX, graph.getX(v));
+      minY = Math.min(minY, graph.getY(v));
+      maxY = Math.max(maxY, graph.getY(v));
+    }
+    // One scale for both axes, so the curve's cells stay square
+    long range = Math.max(1, Math.max((long) maxX - minX, (long) maxY - minY));
+    int cells = (1 << HILBERT_BITS) - 1;
+
+    // Curve index in the high half, vertex id in the low half
+    long[] keys = new long[numVertices];
+    for (int v = 0; v < numVertices; v++) {
+      int cellX = (int) ((graph.getX(v) - (long) minX) * cells / range);
+      int cellY = (int) ((graph.getY(v) - (long) minY) * cells / range);
+      keys[v] = hilbertIndex(cellX, cellY) << 32 | v;
+    }
+    Arrays.parallelSort(keys);
+    int[] order = new int[numVertices];
+    for (int i = 0; i < numVertices; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+
+  /**
+   * Position of a cell on the Hilbert curve through the
+   * {@code 2^HILBERT_BITS} square grid.
+   */
+  private static long hilbertIndex(int x, int y) {
+    int n = 1 << HILBERT_BITS;
+    long index = 0;
+    for (int s = n >>> 1; s > 0; s >>>= 1) {
+      int rx = (x & s) != 0 ? 1 : 0;
+      int ry = (y & s) != 0 ? 1 : 0;
+      index += (long) s * s * ((3 * rx) ^ ry);
+      // Rotate the quadrant so the curve inside it starts at its corner
+      if (ry == 0) {
+        if (rx == 1) {
+          x = n - 1 - x;
+          y = n - 1 - y;
+        }
+        int swap = x;
+        x = y;
+        y = swap;
+      }
+    }
+    return index;
+  }
+
+  private static int[] breadthFirstOrder(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    int[] order = new int[numVertices]; // Doubles as the queue
+    boolean[] placed = new boolean[numVertices];
+    int count = 0;
+    for (int root = 0; root < numVertices; root++) {
+      if (placed[root]) {
+        continue;
+      }
+      placed[root] = true;
+      order[count++] = root;
+      for (int head = count - 1; head < count; head++) {
+        int u = order[head];
+        for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+          int v = graph.getTarget(e);
+          if (!placed[v]) {
+            placed[v] = true;
+            order[count++] = v;
+          }
+        }
+      }
+    }
+    return order;
+  }
+
+  private static int[] reverseCuthillMcKeeOrder(Graph graph) {
+    int numVertices = graph.getNumVertices();
+    int[] order = new int[numVertices]; // Doubles as the queue
+    boolean[] placed = new boolean[numVertices];
+    int[] probeQueue = new int[numVertices];
+    int[] probeStamps = new int[numVertices];
+    int count = 0;
+    int probe = 0;
+    for (int root = 0; root < numVertices; root++) {
+      if (placed[root]) {
+        continue;
+      }
+      // Start from the vertex a breadth-first search from the root reaches
+      // last, it lies at the far end of the component
+      probe++;
+      int probeCount = 0;
+      probeStamps[root] = probe;
+      probeQueue[probeCount++] = root;
+      for (int head = 0; head < probeCount; head++) {
+        int u = probeQueue[head];
+        for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+          int v = graph.getTarget(e);
+          if (probeStamps[v] != probe) {
+            probeStamps[v] = probe;
+            probeQueue[probeCount++] = v;
+          }
+        }
+      }
+      int start = probeQueue[probeCount - 1];
+
+      placed[start] = true;
+      order[count++] = start;
+      for (int head = count - 1; head < count; head++) {
+        int u = order[head];
+        int first = count;
+        for (int e = graph.getEdgeStart(u); e < graph.getEdgeEnd(u); e++) {
+          int v = graph.getTarget(e);
+          if (!placed[v]) {
+            placed[v] = true;
+            order[count++] = v;
+          }
+        }
+        // Neighbours by increasing degree; there are only a few, so
+        // insertion sort
+        for (int i = first + 1; i < count; i++) {
+          int v = order[i];
+          int degree = graph.getDegree(v);
+          int j = i - 1;
+          while (j >= first && graph.getDegree(order[j]) > degree) {
+            order[j + 1] = order[j];
+            j--;
+          }
+          order[j + 1] = v;
+        }
+      }
+    }
+    for (int i = 0, j = numVertices - 1; i < j; i++, j--) {
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+    return order;
+  }
+}
@@ -0,0 +1,36 @@
+package university.dijkstra.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for loading a graph file. Its duration is the time
+ * from opening the file to the finished graph.
+ */
+@Name("university.dijkstra.GraphLoad")
+@Label("Graph Load")
+@Category("Dijkstra")
+@Description("A graph file was loaded")
+@StackTrace(false)
+public class GraphLoadEvent extends jdk.jfr.Event {
+  @Label("File")
+  public String filename;
+
+  @Label("Format")
+  @Description("binary or text")
+  public String format;
+
+  @Label("File Size")
+  @DataAmount
+  public long fileBytes;
+
+  @Label("Vertices")
+  public int vertices;
+
+  @Label("Arcs")
+  public int arcs;
+}
@@ -0,0 +1,161 @@
+package university.dijkstra.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies over a rolling time window, safe to record into
+ * from many threads.
+ *
+ * Latencies fall into power-of-two buckets of microseconds: bucket 0 holds
+ * everything under 1 us and bucket i the range {@code [2^(i-1), 2^i)} us, so
+ * a percentile is known to within a factor of two. The window is a ring of
+ * slots of equal length. A slot is cleared when the clock comes round to it
+ * again, so the histogram always covers the last {@code numSlots} slots
+ * without ever being reset as a whole. Recording is a few atomic increments;
+ * a latency recorded at the very moment its slot is cleared may be lost.
+ */
+public class LatencyHistogram {
+  public static final int NUM_BUCKETS = 40;
+
+  private final int numSlots;
+  private final long slotNanos;
+  private final AtomicLongArray counts; // NUM_BUCKETS per slot
+  private final AtomicLongArray maxima; // Largest latency per slot
+  private final AtomicLongArray slotEpochs; // Which slot length each slot currently holds
+
+  /**
+   * @param numSlots   slots in the window
+   * @param slotMillis length of one slot
+   * @throws IllegalArgumentException if an argument is not positive
+   */
+  public LatencyHistogram(int numSlots, long slotMillis) {
+    if (numSlots < 1 || slotMillis < 1) {
+      throw new IllegalArgumentException("Slots and slot length must be positive");
+    }
+    this.numSlots = numSlots;
+    this.slotNanos = slotMillis * 1_000_000;
+    this.counts = new AtomicLongArray(numSlots * NUM_BUCKETS);
+    this.maxima = new AtomicLongArray(numSlots);
+    this.slotEpochs = new AtomicLongArray(numSlots);
+    for (int slot = 0; slot < numSlots; slot++) {
+      slotEpochs.set(slot, Long.MIN_VALUE);
+    }
+  }
+
+  public void record(long nanos) {
+    long epoch = System.nanoTime() / slotNanos;
+    int slot = (int) Math.floorMod(epoch, (long) numSlots);
+    if (slotEpochs.get(slot) != epoch) {
+      claim(slot, epoch);
+    }
+    counts.incrementAndGet(slot * NUM_BUCKETS + bucket(nanos));
+    long max;
+    while (nanos > (max = maxima.get(slot)) && !maxima.compareAndSet(slot, max, nanos)) {
+      // Another thread raised the maximum, compare again
+    }
+  }
+
+  /**
+   * Clears a slot that still holds an old time and gives it to the current
+   * one.
+   */
+  private synchronized void claim(int slot, long epoch) {
+    if (slotEpochs.get(slot) == epoch) {
+      return; // Another thread got here first
+    }
+    for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+      counts.set(slot * NUM_BUCKETS + bucket, 0);
+    }
+    maxima.set(slot, 0);
+    slotEpochs.set(slot, epoch);
+  }
+
+  /**
+   * Returns the bucket a latency falls into.
+   */
+  public static int bucket(long nanos) {
+    long micros = nanos / 1000;
+    if (micros <= 0) {
+      return 0;
+    }
+    return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+  }
+
+  /**
+   * Returns the latencies below which bucket i's fall, in microseconds.
+   */
+  public static long bucketLimitMicros(int bucket) {
+    return 1L << bucket;
+  }
+
+  /**
+   * Returns the counts per bucket over the window.
+   */
+  public long[] snapshot() {
+    long current = System.nanoTime() / slotNanos;
+    long[] total = new long[NUM_BUCKETS];
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (isLive(slot, current)) {
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+          total[bucket] += counts.get(slot * NUM_BUCKETS + bucket);
+        }
+      }
+    }
+    return total;
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (long bucketCount : snapshot()) {
+      count += bucketCount;
+    }
+    return count;
+  }
+
+  public long getMaxNanos() {
+    long current = System.nanoTime() / slotNanos;
+    long max = 0;
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (isLive(slot, current)) {
+        max = Math.max(max, maxima.get(slot));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns the upper limit, in microseconds, of the bucket that holds the
+   * given fraction of the latencies in the window, or 0 if it is empty. The
+   * limit is capped at the largest latency, so a high percentile does not
+   * overshoot it by almost a factor of two.
+   */
+  public long getPercentileMicros(double fraction) {
+    long[] buckets = snapshot();
+    long count = 0;
+    for (long bucketCount : buckets) {
+      count += bucketCount;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * count));
+    long maxMicros = getMaxNanos() / 1000;
+    long seen = 0;
+    for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+      seen += buckets[bucket];
+      if (seen >= rank) {
+        return Math.min(bucketLimitMicros(bucket), maxMicros);
+      }
+    }
+    return maxMicros;
+  }
+
+  public long getWindowNanos() {
+    return numSlots * slotNanos;
+  }
+
+  private boolean isLive(int slot, long currentEpoch) {
+    long epoch = slotEpochs.get(slot);
+    return epoch != Long.MIN_VALUE && epoch > currentEpoch - numSlots && epoch <= currentEpoch;
+  }
+}
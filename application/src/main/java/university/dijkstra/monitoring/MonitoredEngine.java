@@ -0,0 +1,91 @@
+package university.dijkstra.monitoring;
+
+import university.dijkstra.algorithm.SearchStatistics;
+import university.dijkstra.algorithm.ShortestPathEngine;
+import university.dijkstra.model.Graph;
+
+/**
+ * A {@link ShortestPathEngine} that reports every query of the engine it
+ * wraps as a {@link QueryEvent} and to the {@link RoutingMonitor}.
+ *
+ * While neither a flight recording with the event nor the monitor is on, a
+ * query costs one allocation that escape analysis removes and two flag
+ * reads. While the event is recorded, the engine's statistics are switched
+ * on so the event can carry the number of settled vertices; they are
+ * switched off again when the recording stops, unless the caller asked for
+ * them.
+ */
+public class MonitoredEngine implements ShortestPathEngine {
+  private final ShortestPathEngine engine;
+  private final String engineName;
+  private final RoutingMonitor monitor = RoutingMonitor.get();
+  private boolean statisticsRequested; // By the caller
+  private boolean statisticsForEvents; // By us, for the settled count
+
+  public MonitoredEngine(ShortestPathEngine engine) {
+    this.engine = engine;
+    this.engineName = engine.getClass().getSimpleName();
+  }
+
+  public ShortestPathEngine getEngine() {
+    return engine;
+  }
+
+  @Override
+  public void findShortestPath(Graph graph, int source, int destination) {
+    QueryEvent event = new QueryEvent();
+    boolean recordEvent = event.isEnabled();
+    if (recordEvent != statisticsForEvents) {
+      statisticsForEvents = recordEvent;
+      engine.setStatisticsEnabled(statisticsRequested || statisticsForEvents);
+    }
+    if (!recordEvent && !monitor.isEnabled()) {
+      engine.findShortestPath(graph, source, destination);
+      return;
+    }
+
+    long startTime = System.nanoTime();
+    event.begin();
+    engine.findShortestPath(graph, source, destination);
+    event.end();
+    long duration = System.nanoTime() - startTime;
+
+    double distance = engine.getDistance(destination);
+    monitor.recordQuery(duration, distance != Double.MAX_VALUE);
+    if (event.shouldCommit()) {
+      SearchStatistics statistics = engine.getLastStatistics();
+      event.engine = engineName;
+      event.source = source;
+      event.destination = destination;
+      event.destinations = 1;
+      event.settled = statistics != null ? statistics.getSettled() : -1;
+      event.distance = distance != Double.MAX_VALUE ? distance : -1;
+      event.commit();
+    }
+  }
+
+  @Override
+  public double getDistance(int vertexId) {
+    return engine.getDistance(vertexId);
+  }
+
+  @Override
+  public int getPrevious(int vertexId) {
+    return engine.getPrevious(vertexId);
+  }
+
+  @Override
+  public void setStatisticsEnabled(boolean enabled) {
+    statisticsRequested = enabled;
+    engine.setStatisticsEnabled(statisticsRequested || statisticsForEvents);
+  }
+
+  /**
+   * Returns null unless the caller switched statistics on, even while they
+   * are on for the flight recorder.
+   */
+  @Override
+  public SearchStatistics getLastStatistics() {
+    return statisticsRequested ? engine.getLastStatistics() : null;
+  }
+}
@@ -0,0 +1,32 @@
+package university.dijkstra.monitoring;
+
+import java.io.File;
+import java.io.IOException;
+
+import university.dijkstra.io.BinaryGraphFile;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+
+/**
+ * Loads graphs through {@link DataProccessor#loadGraph} and reports every
+ * load as a {@link GraphLoadEvent} and to the {@link RoutingMonitor}.
+ */
+public class MonitoredLoader {
+  public static Graph loadGraph(String filename) throws IOException {
+    GraphLoadEvent event = new GraphLoadEvent();
+    long startTime = System.nanoTime();
+    event.begin();
+    Graph graph = DataProccessor.loadGraph(filename);
+    event.end();
+    RoutingMonitor.get().recordGraphLoad(System.nanoTime() - startTime, graph.getNumVertices());
+    if (event.shouldCommit()) {
+      event.filename = filename;
+      event.format = BinaryGraphFile.isBinaryGraph(filename) ? "binary" : "text";
+      event.fileBytes = new File(filename).length();
+      event.vertices = graph.getNumVertices();
+      event.arcs = graph.getNumArcs();
+      event.commit();
+    }
+    return graph;
+  }
+}
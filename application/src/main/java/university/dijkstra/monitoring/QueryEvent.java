@@ -0,0 +1,39 @@
+package university.dijkstra.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one shortest path search. A search that answers
+ * several destinations at once, as in a batch, has destination -1.
+ */
+@Name("university.dijkstra.Query")
+@Label("Shortest Path Query")
+@Category("Dijkstra")
+@Description("A shortest path search")
+@StackTrace(false)
+public class QueryEvent extends jdk.jfr.Event {
+  @Label("Engine")
+  public String engine;
+
+  @Label("Source")
+  public int source;
+
+  @Label("Destination")
+  public int destination;
+
+  @Label("Destinations")
+  @Description("Destinations answered by the search")
+  public int destinations;
+
+  @Label("Settled Vertices")
+  @Description("-1 if the engine does not count them")
+  public long settled;
+
+  @Label("Distance")
+  @Description("Distance to the destination, -1 if unreachable or several destinations")
+  public double distance;
+}
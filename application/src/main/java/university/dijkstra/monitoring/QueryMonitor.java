@@ -0,0 +1,75 @@
+package university.dijkstra.monitoring;
+
+import university.dijkstra.algorithm.QueryListener;
+import university.dijkstra.algorithm.SearchStatistics;
+import university.dijkstra.algorithm.ShortestPathEngine;
+
+/**
+ * A {@link QueryListener} that reports every search as a {@link QueryEvent}
+ * and every query and workspace to the {@link RoutingMonitor}, for the
+ * batch runner and the concurrent query engine. The engine recorded in the
+ * event is the listener's name, since the engine itself does not tell the
+ * callers apart.
+ */
+public class QueryMonitor implements QueryListener {
+  private final String name;
+  private final RoutingMonitor monitor = RoutingMonitor.get();
+
+  public QueryMonitor(String name) {
+    this.name = name;
+  }
+
+  /**
+   * True while the flight recorder records queries, for their settled
+   * counts.
+   */
+  @Override
+  public boolean wantsStatistics() {
+    return new QueryEvent().isEnabled();
+  }
+
+  @Override
+  public Object searchStarting() {
+    QueryEvent event = new QueryEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void searchFinished(Object context, ShortestPathEngine engine, int source, int[] destinations,
+      long nanos) {
+    QueryEvent event = (QueryEvent) context;
+    event.end();
+    for (int destination : destinations) {
+      monitor.recordQuery(nanos, engine.getDistance(destination) != Double.MAX_VALUE);
+    }
+    if (event.shouldCommit()) {
+      SearchStatistics statistics = engine.getLastStatistics();
+      int destination = destinations.length == 1 ? destinations[0] : -1;
+      event.engine = name;
+      event.source = source;
+      event.destination = destination;
+      event.destinations = destinations.length;
+      event.settled = statistics != null ? statistics.getSettled() : -1;
+      event.distance = destination != -1 && engine.getDistance(destination) != Double.MAX_VALUE
+          ? engine.getDistance(destination)
+          : -1;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void workspaceCreated() {
+    monitor.recordWorkspaceCreated();
+  }
+
+  @Override
+  public void workspaceLeased() {
+    monitor.recordWorkspaceLeased();
+  }
+
+  @Override
+  public void workspaceReturned() {
+    monitor.recordWorkspaceReturned();
+  }
+}
@@ -0,0 +1,196 @@
+package university.dijkstra.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the routing code, published as a JMX
+ * MBean.
+ *
+ * There is one monitor per JVM. It records nothing until {@link #register}
+ * is called, so the record methods cost one volatile read when monitoring
+ * is off. The engines report to it through {@link MonitoredEngine}, the
+ * loads through {@link MonitoredLoader}, and the batch runner and the
+ * workspace pool through a {@link QueryMonitor}.
+ */
+public class RoutingMonitor implements RoutingMonitorMBean {
+  public static final String OBJECT_NAME = "university.dijkstra:type=RoutingMonitor";
+
+  private static final RoutingMonitor INSTANCE = new RoutingMonitor();
+  private static final int WINDOW_SLOTS = 60;
+  private static final long SLOT_MILLIS = 1000;
+
+  private volatile boolean enabled;
+
+  private final LatencyHistogram latencies = new LatencyHistogram(WINDOW_SLOTS, SLOT_MILLIS);
+  private final AtomicLong queries = new AtomicLong();
+  private final AtomicLong unreachableQueries = new AtomicLong();
+  private final AtomicLong graphLoads = new AtomicLong();
+  private volatile long lastGraphLoadNanos;
+  private volatile int lastGraphVertices;
+  private final AtomicLong workspacesCreated = new AtomicLong();
+  private final AtomicLong workspacesInUse = new AtomicLong();
+  private final AtomicLong peakWorkspacesInUse = new AtomicLong();
+
+  RoutingMonitor() {
+  }
+
+  public static RoutingMonitor get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers the monitor with the platform MBean server under
+   * {@value #OBJECT_NAME} and starts recording. Registering twice is
+   * harmless.
+   *
+   * @throws IllegalStateException if the MBean server refuses the monitor
+   */
+  public static RoutingMonitor register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+    } catch (InstanceAlreadyExistsException e) {
+      // Already registered
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot register the routing monitor", e);
+    }
+    INSTANCE.enabled = true;
+    return INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void recordQuery(long nanos, boolean reachable) {
+    if (!enabled) {
+      return;
+    }
+    queries.incrementAndGet();
+    if (!reachable) {
+      unreachableQueries.incrementAndGet();
+    }
+    latencies.record(nanos);
+  }
+
+  public void recordGraphLoad(long nanos, int vertices) {
+    if (!enabled) {
+      return;
+    }
+    graphLoads.incrementAndGet();
+    lastGraphLoadNanos = nanos;
+    lastGraphVertices = vertices;
+  }
+
+  public void recordWorkspaceCreated() {
+    if (enabled) {
+      workspacesCreated.incrementAndGet();
+    }
+  }
+
+  /**
+   * Leases and returns are counted even while monitoring is off, so the
+   * number in use stays right when it is switched on.
+   */
+  public void recordWorkspaceLeased() {
+    long inUse = workspacesInUse.incrementAndGet();
+    peakWorkspacesInUse.accumulateAndGet(inUse, Math::max);
+  }
+
+  public void recordWorkspaceReturned() {
+    workspacesInUse.decrementAndGet();
+  }
+
+  @Override
+  public long getQueryCount() {
+    return queries.get();
+  }
+
+  @Override
+  public long getUnreachableQueryCount() {
+    return unreachableQueries.get();
+  }
+
+  @Override
+  public double getQueriesPerSecond() {
+    return latencies.getCount() / (latencies.getWindowNanos() / 1e9);
+  }
+
+  @Override
+  public long getLatencyP50Micros() {
+    return latencies.getPercentileMicros(0.5);
+  }
+
+  @Override
+  public long getLatencyP90Micros() {
+    return latencies.getPercentileMicros(0.9);
+  }
+
+  @Override
+  public long getLatencyP99Micros() {
+    return latencies.getPercentileMicros(0.99);
+  }
+
+  @Override
+  public long getLatencyP999Micros() {
+    return latencies.getPercentileMicros(0.999);
+  }
+
+  @Override
+  public long getMaxLatencyMicros() {
+    return latencies.getMaxNanos() / 1000;
+  }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    return latencies.snapshot();
+  }
+
+  @Override
+  public long getGraphLoadCount() {
+    return graphLoads.get();
+  }
+
+  @Override
+  public long getLastGraphLoadMillis() {
+    return lastGraphLoadNanos / 1_000_000;
+  }
+
+  @Override
+  public int getLastGraphVertices() {
+    return lastGraphVertices;
+  }
+
+  @Override
+  public long getWorkspacesCreated() {
+    return workspacesCreated.get();
+  }
+
+  @Override
+  public long getWorkspacesInUse() {
+    return workspacesInUse.get();
+  }
+
+  @Override
+  public long getPeakWorkspacesInUse() {
+    return peakWorkspacesInUse.get();
+  }
+
+  /**
+   * Leaves the workspaces in use alone, they are still leased.
+   */
+  @Override
+  public void resetCounters() {
+    queries.set(0);
+    unreachableQueries.set(0);
+    graphLoads.set(0);
+    workspacesCreated.set(0);
+    peakWorkspacesInUse.set(workspacesInUse.get());
+  }
+}
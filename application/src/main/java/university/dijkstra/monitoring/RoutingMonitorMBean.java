@@ -0,0 +1,45 @@
+package university.dijkstra.monitoring;
+
+/**
+ * The JMX view of the {@link RoutingMonitor}. Latency attributes cover the
+ * last minute; counters run since start or the last reset.
+ */
+public interface RoutingMonitorMBean {
+  long getQueryCount();
+
+  long getUnreachableQueryCount();
+
+  /** Queries per second over the last minute. */
+  double getQueriesPerSecond();
+
+  long getLatencyP50Micros();
+
+  long getLatencyP90Micros();
+
+  long getLatencyP99Micros();
+
+  long getLatencyP999Micros();
+
+  long getMaxLatencyMicros();
+
+  /**
+   * Queries of the last minute per latency bucket; bucket i counts latencies
+   * under 2^i microseconds that do not fit the bucket before.
+   */
+  long[] getLatencyHistogram();
+
+  long getGraphLoadCount();
+
+  long getLastGraphLoadMillis();
+
+  int getLastGraphVertices();
+
+  long getWorkspacesCreated();
+
+  long getWorkspacesInUse();
+
+  long getPeakWorkspacesInUse();
+
+  /** Sets the counters back to zero; the latency window keeps rolling. */
+  void resetCounters();
+}
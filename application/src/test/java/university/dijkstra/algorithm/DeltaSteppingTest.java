@@ -0,0 +1,157 @@
+package university.dijkstra.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * Delta-stepping must give Dijkstra's distances and a predecessor tree
+ * without cycles, also when vertices on the same coordinates are joined by
+ * arcs of weight zero.
+ */
+class DeltaSteppingTest {
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void startPool() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterAll
+  static void stopPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  void zeroWeightArcsGiveNoPredecessorCycle() {
+    // 2, 3 and 4 share one coordinate
+    GraphBuilder builder = new GraphBuilder(5, 5);
+    builder.setVertex(0, 0, 0);
+    builder.setVertex(1, 100, 0);
+    builder.setVertex(2, 200, 0);
+    builder.setVertex(3, 200, 0);
+    builder.setVertex(4, 200, 0);
+    builder.addEdge(0, 1);
+    builder.addEdge(1, 2);
+    builder.addEdge(3, 4);
+    builder.addEdge(2, 3);
+    builder.addEdge(2, 4);
+    Graph graph = builder.build();
+
+    DeltaStepping search = new DeltaStepping(graph.getNumVertices(), DeltaStepping.suggestDelta(graph), pool);
+    search.findShortestPathTree(graph, 0);
+    checkTree(graph, search, 0);
+    assertEquals(2, search.getPrevious(3));
+    assertEquals(2, search.getPrevious(4));
+    assertEquals(4, search.reconstructPath(0, 3).size());
+  }
+
+  @Test
+  void clustersOfDuplicateCoordinatesGiveNoPredecessorCycle() {
+    Graph graph = gridWithClusters(60, 3);
+    Random random = new Random(11);
+    for (double delta : new double[] { 10, 100, 1000 }) {
+      DeltaStepping search = new DeltaStepping(graph.getNumVertices(), delta, pool);
+      for (int q = 0; q < 5; q++) {
+        int source = random.nextInt(graph.getNumVertices());
+        search.findShortestPathTree(graph, source);
+        checkTree(graph, search, source);
+      }
+    }
+  }
+
+  @Test
+  void statisticsCountTheLastSearch() {
+    Graph graph = gridWithClusters(30, 2);
+    DeltaStepping search = new DeltaStepping(graph.getNumVertices(), 100, pool);
+    search.findShortestPathTree(graph, 0);
+    assertNull(search.getLastStatistics());
+
+    search.setStatisticsEnabled(true);
+    for (int source : new int[] { 0, 7 }) {
+      search.findShortestPathTree(graph, source);
+      SearchStatistics statistics = search.getLastStatistics();
+      assertEquals(1, statistics.getQueries(), "queries");
+      assertEquals(graph.getNumVertices(), statistics.getSettled(), "settled");
+      assertEquals(statistics.getRelaxations() + 1, statistics.getPops(), "pops");
+      assertTrue(statistics.getStalePops() <= statistics.getPops(), "stale pops");
+      assertTrue(statistics.getPhaseNanos(SearchStatistics.Phase.PREDECESSORS) > 0, "predecessor time");
+    }
+  }
+
+  /**
+   * Checks the distances against Dijkstra's and that every reached vertex's
+   * predecessors lead back to the source over arcs that add up to its
+   * distance.
+   */
+  private static void checkTree(Graph graph, DeltaStepping search, int source) {
+    int numVertices = graph.getNumVertices();
+    Dijkstra dijkstra = new Dijkstra(numVertices);
+    dijkstra.findShortestPathTree(graph, source);
+    for (int v = 0; v < numVertices; v++) {
+      assertEquals(dijkstra.getDistance(v), search.getDistance(v), "distance of " + v);
+      if (v == source || search.getDistance(v) == Double.MAX_VALUE) {
+        assertEquals(-1, search.getPrevious(v), "predecessor of " + v);
+        continue;
+      }
+      int steps = 0;
+      for (int u = v; u != source; u = search.getPrevious(u)) {
+        int previous = search.getPrevious(u);
+        assertTrue(previous >= 0, "vertex " + u + " on the path of " + v + " has no predecessor");
+        assertEquals(search.getDistance(u), search.getDistance(previous) + arcWeight(graph, previous, u),
+            "arc " + previous + " -> " + u);
+        assertTrue(++steps < numVertices, "the predecessors of " + v + " run in a cycle");
+      }
+    }
+  }
+
+  private static double arcWeight(Graph graph, int from, int to) {
+    for (int e = graph.getEdgeStart(from); e < graph.getEdgeEnd(from); e++) {
+      if (graph.getTarget(e) == to) {
+        return graph.getWeight(e);
+      }
+    }
+    throw new AssertionError("No arc " + from + " -> " + to);
+  }
+
+  /**
+   * A grid whose every point holds {@code copies} vertices on the same
+   * coordinates, joined to each other by zero arcs, with each copy joined to
+   * a random copy of the neighbouring points.
+   */
+  private static Graph gridWithClusters(int side, int copies) {
+    Random random = new Random(3);
+    int numPoints = side * side;
+    GraphBuilder builder = new GraphBuilder(numPoints * copies, 4 * numPoints * copies);
+    for (int p = 0; p < numPoints; p++) {
+      for (int c = 0; c < copies; c++) {
+        builder.setVertex(p * copies + c, (p / side) * 100, (p % side) * 100);
+      }
+      for (int c = 1; c < copies; c++) {
+        builder.addEdge(p * copies + random.nextInt(c), p * copies + c);
+      }
+    }
+    for (int p = 0; p < numPoints; p++) {
+      for (int c = 0; c < copies; c++) {
+        int v = p * copies + c;
+        if (p / side + 1 < side) {
+          builder.addEdge(v, (p + side) * copies + random.nextInt(copies));
+        }
+        if (p % side + 1 < side) {
+          builder.addEdge(v, (p + 1) * copies + random.nextInt(copies));
+        }
+      }
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,322 @@
+package university.dijkstra.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * The service area of {@link Dijkstra#findWithinDistance} must be the part
+ * of the full shortest path tree within the radius, and the outlines of
+ * {@link Isochrone} must be proper polygons around it, also for degenerate
+ * areas: a single point, points on a line and vertices sharing coordinates.
+ */
+class IsochroneTest {
+  private static final int SECTORS = 16;
+
+  @Test
+  void singlePointIsItsOwnOutline() {
+    GraphBuilder builder = new GraphBuilder(2, 1);
+    builder.setVertex(0, 0, 0);
+    builder.setVertex(1, 100, 0);
+    builder.addEdge(0, 1);
+    Graph graph = builder.build();
+
+    ReachableSet area = new Dijkstra(2).findWithinDistance(graph, 0, 50);
+    assertArrayEquals(new int[] { 0 }, area.getVertices());
+    assertArrayEquals(new int[] { 0 }, Isochrone.convexHull(graph, area));
+    assertArrayEquals(new int[] { 0 }, Isochrone.radialHull(graph, area, SECTORS));
+  }
+
+  @Test
+  void duplicateCoordinatesCountOnce() {
+    // 0, 1 and 2 share one coordinate, as do 3 and 4
+    GraphBuilder builder = new GraphBuilder(5, 4);
+    builder.setVertex(0, 0, 0);
+    builder.setVertex(1, 0, 0);
+    builder.setVertex(2, 0, 0);
+    builder.setVertex(3, 100, 0);
+    builder.setVertex(4, 100, 0);
+    builder.addEdge(0, 1);
+    builder.addEdge(1, 2);
+    builder.addEdge(2, 3);
+    builder.addEdge(3, 4);
+    Graph graph = builder.build();
+    Dijkstra dijkstra = new Dijkstra(5);
+
+    ReachableSet point = dijkstra.findWithinDistance(graph, 1, 0);
+    assertEquals(3, point.size());
+    assertArrayEquals(new int[] { 1 }, Isochrone.convexHull(graph, point));
+    assertArrayEquals(new int[] { 1 }, Isochrone.radialHull(graph, point, SECTORS));
+
+    ReachableSet segment = dijkstra.findWithinDistance(graph, 1, 100);
+    assertEquals(5, segment.size());
+    int[] hull = Isochrone.convexHull(graph, segment);
+    assertEquals(2, hull.length);
+    assertEquals(0, graph.getX(hull[0]));
+    assertEquals(100, graph.getX(hull[1]));
+    assertEquals(1, Isochrone.radialHull(graph, segment, SECTORS).length);
+  }
+
+  @Test
+  void collinearPointsGiveTheEndsOfTheLine() {
+    // A diagonal line, with the source in the middle
+    GraphBuilder builder = new GraphBuilder(5, 4);
+    for (int v = 0; v < 5; v++) {
+      builder.setVertex(v, 100 * v, 50 * v);
+      if (v > 0) {
+        builder.addEdge(v - 1, v);
+      }
+    }
+    Graph graph = builder.build();
+
+    ReachableSet area = new Dijkstra(5).findWithinDistance(graph, 2, Double.MAX_VALUE);
+    assertEquals(5, area.size());
+    assertArrayEquals(new int[] { 0, 4 }, Isochrone.convexHull(graph, area));
+    int[] radial = Isochrone.radialHull(graph, area, SECTORS);
+    Arrays.sort(radial);
+    assertArrayEquals(new int[] { 0, 4 }, radial);
+  }
+
+  @Test
+  void convexHullIsExactAtTheEndsOfTheIntRange() {
+    // The corner differences are 2^32 - 1, whose products overflow a long
+    int min = Integer.MIN_VALUE;
+    int max = Integer.MAX_VALUE;
+    GraphBuilder builder = new GraphBuilder(6, 5);
+    builder.setVertex(0, 0, 0);
+    builder.setVertex(1, min, min);
+    builder.setVertex(2, max, min);
+    builder.setVertex(3, max, max);
+    builder.setVertex(4, min, max);
+    builder.setVertex(5, max, max - 1);
+    for (int v = 1; v < 6; v++) {
+      builder.addEdge(0, v);
+    }
+    Graph graph = builder.build();
+
+    ReachableSet area = new Dijkstra(6).findWithinDistance(graph, 0, Double.MAX_VALUE);
+    assertArrayEquals(new int[] { 1, 2, 3, 4 }, Isochrone.convexHull(graph, area));
+  }
+
+  @Test
+  void convexHullIsCounterClockwiseAndContainsTheArea() {
+    Graph graph = gridWithDuplicates(40, 200);
+    Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+    Random random = new Random(5);
+    for (double radius : new double[] { 150, 800, 2500, Double.MAX_VALUE }) {
+      for (int q = 0; q < 5; q++) {
+        ReachableSet area = dijkstra.findWithinDistance(graph, random.nextInt(graph.getNumVertices()), radius);
+        checkConvexHull(graph, area, Isochrone.convexHull(graph, area));
+      }
+    }
+  }
+
+  @Test
+  void radialHullGoesAroundTheSourceAndKeepsTheFarthestVertex() {
+    Graph graph = gridWithDuplicates(40, 200);
+    Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+    Random random = new Random(6);
+    for (double radius : new double[] { 150, 800, 2500, Double.MAX_VALUE }) {
+      for (int q = 0; q < 5; q++) {
+        ReachableSet area = dijkstra.findWithinDistance(graph, random.nextInt(graph.getNumVertices()), radius);
+        checkRadialHull(graph, area, Isochrone.radialHull(graph, area, SECTORS));
+      }
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> Isochrone.radialHull(graph, dijkstra.findWithinDistance(graph, 0, 100), 2));
+  }
+
+  @Test
+  void areaIsTheFullTreeWithinTheRadius() {
+    Graph graph = gridWithDuplicates(30, 100);
+    int numVertices = graph.getNumVertices();
+    Dijkstra tree = new Dijkstra(numVertices);
+    Dijkstra dijkstra = new Dijkstra(numVertices);
+    Random random = new Random(7);
+    for (int q = 0; q < 10; q++) {
+      int source = random.nextInt(numVertices);
+      tree.findShortestPathTree(graph, source);
+      // Radius 0, and radii that fall exactly on a reached vertex
+      int boundaryVertex = random.nextInt(numVertices);
+      double boundary = tree.getDistance(boundaryVertex) != Double.MAX_VALUE ? tree.getDistance(boundaryVertex)
+          : 1000;
+      for (double radius : new double[] { 0, boundary, 1000, Double.MAX_VALUE }) {
+        ReachableSet area = dijkstra.findWithinDistance(graph, source, radius);
+        checkArea(graph, tree, area, source, radius);
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> dijkstra.findWithinDistance(graph, 0, -1));
+  }
+
+  /**
+   * Checks that the area holds exactly the vertices the tree reaches within
+   * the radius, closest first, with the tree's distances and predecessors
+   * that lead back to the source inside the area.
+   */
+  private static void checkArea(Graph graph, Dijkstra tree, ReachableSet area, int source, double radius) {
+    Set<Integer> expected = new HashSet<>();
+    for (int v = 0; v < graph.getNumVertices(); v++) {
+      if (tree.getDistance(v) != Double.MAX_VALUE && tree.getDistance(v) <= radius) {
+        expected.add(v);
+      }
+    }
+    int[] vertices = area.getVertices();
+    double[] distances = area.getDistances();
+    int[] previous = area.getPrevious();
+    assertEquals(source, area.getSource());
+    assertEquals(expected.size(), area.size(), "vertices within " + radius);
+    assertEquals(source, vertices[0], "first vertex");
+    assertEquals(-1, previous[0], "predecessor of the source");
+    Set<Integer> seen = new HashSet<>();
+    for (int i = 0; i < vertices.length; i++) {
+      int v = vertices[i];
+      assertTrue(expected.contains(v), "vertex " + v + " is not within " + radius);
+      assertTrue(seen.add(v), "vertex " + v + " is in the area twice");
+      assertEquals(tree.getDistance(v), distances[i], "distance of " + v);
+      assertTrue(i == 0 || distances[i - 1] <= distances[i], "vertex " + v + " is out of order");
+      if (i > 0) {
+        assertTrue(seen.contains(previous[i]), "predecessor of " + v + " comes later");
+        assertEquals(distances[i], tree.getDistance(previous[i]) + arcWeight(graph, previous[i], v),
+            "arc " + previous[i] + " -> " + v);
+      }
+    }
+  }
+
+  /**
+   * Checks that the hull is made of distinct reached vertices at distinct
+   * coordinates, turns strictly left at every corner and has every reached
+   * vertex on or to the left of every side.
+   */
+  private static void checkConvexHull(Graph graph, ReachableSet area, int[] hull) {
+    Set<Integer> reached = toSet(area.getVertices());
+    Set<Long> corners = new HashSet<>();
+    for (int v : hull) {
+      assertTrue(reached.contains(v), "hull vertex " + v + " is not reached");
+      assertTrue(corners.add(((long) graph.getX(v) << 32) | (graph.getY(v) & 0xFFFFFFFFL)),
+          "two hull vertices on the coordinates of " + v);
+    }
+    int size = hull.length;
+    if (size < 3) {
+      return;
+    }
+    for (int i = 0; i < size; i++) {
+      int a = hull[i];
+      int b = hull[(i + 1) % size];
+      assertTrue(cross(graph, a, b, hull[(i + 2) % size]) > 0, "no left turn at " + b);
+      for (int v : area.getVertices()) {
+        assertTrue(cross(graph, a, b, v) >= 0, "vertex " + v + " is outside the side " + a + " -> " + b);
+      }
+    }
+  }
+
+  /**
+   * Checks that the radial hull is made of distinct reached vertices in
+   * counter-clockwise order around the source, and has the reached vertex
+   * farthest from the source.
+   */
+  private static void checkRadialHull(Graph graph, ReachableSet area, int[] hull) {
+    int source = area.getSource();
+    Set<Integer> reached = toSet(area.getVertices());
+    assertTrue(hull.length <= SECTORS, "more vertices than sectors");
+    assertEquals(hull.length, toSet(hull).size(), "a vertex is on the hull twice");
+    double previousAngle = Double.NEGATIVE_INFINITY;
+    for (int v : hull) {
+      assertTrue(reached.contains(v), "hull vertex " + v + " is not reached");
+      if (v != source) {
+        double angle = Math.atan2(graph.getY(v) - graph.getY(source), graph.getX(v) - graph.getX(source));
+        assertTrue(angle >= previousAngle, "hull vertex " + v + " is out of order");
+        previousAngle = angle;
+      }
+    }
+
+    double farthest = 0;
+    for (int v : area.getVertices()) {
+      farthest = Math.max(farthest, squaredDistance(graph, source, v));
+    }
+    double farthestOnHull = 0;
+    for (int v : hull) {
+      farthestOnHull = Math.max(farthestOnHull, squaredDistance(graph, source, v));
+    }
+    assertEquals(farthest, farthestOnHull, "farthest vertex");
+  }
+
+  private static long cross(Graph graph, int a, int b, int c) {
+    long abx = (long) graph.getX(b) - graph.getX(a);
+    long aby = (long) graph.getY(b) - graph.getY(a);
+    long acx = (long) graph.getX(c) - graph.getX(a);
+    long acy = (long) graph.getY(c) - graph.getY(a);
+    return abx * acy - aby * acx;
+  }
+
+  private static double squaredDistance(Graph graph, int u, int v) {
+    double dx = graph.getX(v) - graph.getX(u);
+    double dy = graph.getY(v) - graph.getY(u);
+    return dx * dx + dy * dy;
+  }
+
+  private static double arcWeight(Graph graph, int from, int to) {
+    double weight = Double.MAX_VALUE;
+    for (int e = graph.getEdgeStart(from); e < graph.getEdgeEnd(from); e++) {
+      if (graph.getTarget(e) == to) {
+        weight = Math.min(weight, graph.getWeight(e));
+      }
+    }
+    if (weight == Double.MAX_VALUE) {
+      throw new AssertionError("No arc " + from + " -> " + to);
+    }
+    return weight;
+  }
+
+  private static Set<Integer> toSet(int[] vertices) {
+    Set<Integer> set = new HashSet<>();
+    for (int v : vertices) {
+      set.add(v);
+    }
+    return set;
+  }
+
+  /**
+   * A grid with a spacing of 100 and some jitter, missing a fifth of its
+   * streets, plus {@code numDuplicates} vertices on the coordinates of a
+   * random grid vertex, joined to it and to one of its neighbours.
+   */
+  private static Graph gridWithDuplicates(int side, int numDuplicates) {
+    Random random = new Random(3);
+    int numPoints = side * side;
+    int[] x = new int[numPoints];
+    int[] y = new int[numPoints];
+    GraphBuilder builder = new GraphBuilder(numPoints + numDuplicates, 2 * numPoints + 2 * numDuplicates);
+    for (int p = 0; p < numPoints; p++) {
+      x[p] = (p % side) * 100 + random.nextInt(41) - 20;
+      y[p] = (p / side) * 100 + random.nextInt(41) - 20;
+      builder.setVertex(p, x[p], y[p]);
+    }
+    for (int p = 0; p < numPoints; p++) {
+      if (p % side + 1 < side && random.nextDouble() < 0.8) {
+        builder.addEdge(p, p + 1);
+      }
+      if (p / side + 1 < side && random.nextDouble() < 0.8) {
+        builder.addEdge(p, p + side);
+      }
+    }
+    for (int d = 0; d < numDuplicates; d++) {
+      int v = numPoints + d;
+      int p = random.nextInt(numPoints);
+      builder.setVertex(v, x[p], y[p]);
+      builder.addEdge(p, v);
+      builder.addEdge(v, p % side + 1 < side ? p + 1 : p - 1);
+    }
+    return builder.build();
+  }
+}
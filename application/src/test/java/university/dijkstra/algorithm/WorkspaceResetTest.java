@@ -0,0 +1,166 @@
+package university.dijkstra.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import university.dijkstra.data_structures.GenerationStamps;
+import university.dijkstra.data_structures.IndexedMinHeap;
+import university.dijkstra.model.ConnectedComponents;
+import university.dijkstra.model.ContractionHierarchy;
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * Back-to-back queries on one reused engine must give exactly what a fresh
+ * engine gives for each query, for every vertex, also when the generation
+ * counter of the workspace runs out and the stamps are cleared in full.
+ */
+class WorkspaceResetTest {
+  private static final int NUM_QUERIES = 3000;
+  private static final int WRAP_QUERIES = 200;
+
+  private static Graph graph;
+  private static ContractionHierarchy hierarchy;
+
+  @BeforeAll
+  static void buildGraph() {
+    graph = randomGrid(40, 1);
+    hierarchy = new ContractionHierarchyBuilder().build(graph);
+  }
+
+  @Test
+  void dijkstraMatchesFreshInstance() {
+    checkBackToBack(stamps -> new Dijkstra(new IndexedMinHeap(stamps.getCapacity()), stamps), false);
+  }
+
+  @Test
+  void aStarMatchesFreshInstance() {
+    checkBackToBack(stamps -> {
+      Dijkstra aStar = new Dijkstra(new IndexedMinHeap(stamps.getCapacity()), stamps);
+      aStar.setAStar(true);
+      return aStar;
+    }, false);
+  }
+
+  @Test
+  void bidirectionalDijkstraMatchesFreshInstance() {
+    checkBackToBack(BidirectionalDijkstra::new, false);
+  }
+
+  @Test
+  void contractionHierarchyQueryMatchesFreshInstance() {
+    checkBackToBack(stamps -> new ContractionHierarchyQuery(hierarchy, stamps), false);
+  }
+
+  @Test
+  void dijkstraMatchesFreshInstanceAcrossGenerationWrap() {
+    checkBackToBack(stamps -> new Dijkstra(new IndexedMinHeap(stamps.getCapacity()), stamps), true);
+  }
+
+  @Test
+  void bidirectionalDijkstraMatchesFreshInstanceAcrossGenerationWrap() {
+    checkBackToBack(BidirectionalDijkstra::new, true);
+  }
+
+  @Test
+  void contractionHierarchyQueryMatchesFreshInstanceAcrossGenerationWrap() {
+    checkBackToBack(stamps -> new ContractionHierarchyQuery(hierarchy, stamps), true);
+  }
+
+  @Test
+  void multiTargetDijkstraMatchesFreshInstance() {
+    int numVertices = graph.getNumVertices();
+    Dijkstra reused = new Dijkstra(numVertices);
+    Random random = new Random(5);
+    for (int q = 0; q < NUM_QUERIES; q++) {
+      int source = random.nextInt(numVertices);
+      int[] destinations = { random.nextInt(numVertices), random.nextInt(numVertices), random.nextInt(numVertices) };
+      reused.findShortestPaths(graph, source, destinations);
+      Dijkstra fresh = new Dijkstra(numVertices);
+      fresh.findShortestPaths(graph, source, destinations);
+      assertSameResult(fresh, reused, q);
+    }
+  }
+
+  /**
+   * Runs the queries on one reused engine and on a fresh engine each, both
+   * made by the factory around the stamps they are given. With
+   * {@code wrap}, the generation counter of the reused engine runs out at
+   * the first query.
+   */
+  private static void checkBackToBack(Function<GenerationStamps, ShortestPathEngine> factory, boolean wrap) {
+    int numVertices = graph.getNumVertices();
+    GenerationStamps reusedStamps = new GenerationStamps(numVertices);
+    ShortestPathEngine reused = factory.apply(reusedStamps);
+    int numQueries = NUM_QUERIES;
+    if (wrap) {
+      // Leave stamps of the first generation behind, which comes round again
+      // right after the wrap, then let the next query run the counter out.
+      // The first query below goes nowhere, so the second one meets nearly
+      // all of these stamps if the wrap left them in place.
+      ConnectedComponents components = graph.getComponents();
+      int source = 0;
+      while (components.getComponent(source) != components.getLargestComponent()) {
+        source++;
+      }
+      int destination = numVertices - 1;
+      while (components.getComponent(destination) != components.getLargestComponent()) {
+        destination--;
+      }
+      reused.findShortestPath(graph, source, destination);
+      reusedStamps.skipTo(Integer.MAX_VALUE);
+      numQueries = WRAP_QUERIES;
+    }
+
+    Random random = new Random(9);
+    for (int q = 0; q < numQueries; q++) {
+      int source = random.nextInt(numVertices);
+      int destination = q % 40 == 0 ? source : random.nextInt(numVertices);
+      reused.findShortestPath(graph, source, destination);
+      ShortestPathEngine fresh = factory.apply(new GenerationStamps(numVertices));
+      fresh.findShortestPath(graph, source, destination);
+      assertSameResult(fresh, reused, q);
+    }
+  }
+
+  private static void assertSameResult(ShortestPathEngine expected, ShortestPathEngine actual, int query) {
+    for (int v = 0; v < graph.getNumVertices(); v++) {
+      assertEquals(expected.getDistance(v), actual.getDistance(v), "distance of " + v + " in query " + query);
+      assertEquals(expected.getPrevious(v), actual.getPrevious(v), "predecessor of " + v + " in query " + query);
+    }
+  }
+
+  /**
+   * A grid with jittered coordinates, some of its edges left out and a few
+   * diagonals, so it has dead ends, unequal weights and small components.
+   */
+  private static Graph randomGrid(int side, long seed) {
+    Random random = new Random(seed);
+    GraphBuilder builder = new GraphBuilder(side * side, 4 * side * side);
+    for (int i = 0; i < side; i++) {
+      for (int j = 0; j < side; j++) {
+        builder.setVertex(i * side + j, i * 100 + random.nextInt(60), j * 100 + random.nextInt(60));
+      }
+    }
+    for (int i = 0; i < side; i++) {
+      for (int j = 0; j < side; j++) {
+        int v = i * side + j;
+        if (i + 1 < side && random.nextInt(10) < 7) {
+          builder.addEdge(v, v + side);
+        }
+        if (j + 1 < side && random.nextInt(10) < 7) {
+          builder.addEdge(v, v + 1);
+        }
+        if (i + 1 < side && j + 1 < side && random.nextInt(10) < 2) {
+          builder.addEdge(v, v + side + 1);
+        }
+      }
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,90 @@
+package university.dijkstra.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * A graph served from the mapped file must read back exactly as written, and
+ * damaged files must be refused on load.
+ */
+class BinaryGraphFileTest {
+
+  @Test
+  void mappedGraphMatchesWrittenGraph() throws IOException {
+    Graph graph = randomGraph(500, 1);
+    Path file = Files.createTempFile("graph", ".bin");
+    try {
+      BinaryGraphFile.write(graph, file.toString());
+      Graph mapped = BinaryGraphFile.read(file.toString());
+      assertEquals(graph.getNumVertices(), mapped.getNumVertices());
+      assertEquals(graph.getNumArcs(), mapped.getNumArcs());
+      for (int v = 0; v < graph.getNumVertices(); v++) {
+        assertEquals(graph.getX(v), mapped.getX(v), "x of " + v);
+        assertEquals(graph.getY(v), mapped.getY(v), "y of " + v);
+        assertEquals(graph.getEdgeStart(v), mapped.getEdgeStart(v), "first arc of " + v);
+        assertEquals(graph.getEdgeEnd(v), mapped.getEdgeEnd(v), "end of the arcs of " + v);
+      }
+      for (int e = 0; e < graph.getNumArcs(); e++) {
+        assertEquals(graph.getTarget(e), mapped.getTarget(e), "target of arc " + e);
+        assertEquals(graph.getWeight(e), mapped.getWeight(e), "weight of arc " + e);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void truncatedFileIsRefused() throws IOException {
+    Path file = Files.createTempFile("graph", ".bin");
+    try {
+      BinaryGraphFile.write(randomGraph(50, 2), file.toString());
+      try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+        raf.setLength(raf.length() - 8);
+      }
+      assertThrows(IOException.class, () -> BinaryGraphFile.read(file.toString()));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void offsetsThatDoNotSpanTheArcsAreRefused() throws IOException {
+    Graph graph = randomGraph(50, 3);
+    Path file = Files.createTempFile("graph", ".bin");
+    try {
+      BinaryGraphFile.write(graph, file.toString());
+      // The last offset, right after the header and the coordinates
+      long lastOffset = 16 + 4L * (3L * graph.getNumVertices());
+      try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+        raf.seek(lastOffset);
+        raf.write(new byte[] { 1, 0, 0, 0 });
+      }
+      assertThrows(IOException.class, () -> BinaryGraphFile.read(file.toString()));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static Graph randomGraph(int numVertices, long seed) {
+    Random random = new Random(seed);
+    GraphBuilder builder = new GraphBuilder(numVertices, 3 * numVertices);
+    for (int v = 0; v < numVertices; v++) {
+      builder.setVertex(v, random.nextInt(10_000), random.nextInt(10_000));
+    }
+    for (int i = 0; i < 3 * numVertices / 2; i++) {
+      builder.addEdge(random.nextInt(numVertices), random.nextInt(numVertices));
+    }
+    return builder.build();
+  }
+}
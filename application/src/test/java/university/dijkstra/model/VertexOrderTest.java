@@ -0,0 +1,49 @@
+package university.dijkstra.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The Hilbert order must follow the curve through all four quadrants of the
+ * bounding square, the last one included.
+ */
+class VertexOrderTest {
+
+  @Test
+  void hilbertOrderFollowsTheCurve() {
+    // The curve runs (0, 0), (0, max), (max, max), (max, 0); the ids are
+    // given out in another order
+    int[][] corners = { { 1000, 1000 }, { 1000, 0 }, { 0, 0 }, { 0, 1000 } };
+    int[] expected = { 2, 3, 0, 1 };
+    GraphBuilder builder = new GraphBuilder(corners.length, 0);
+    for (int v = 0; v < corners.length; v++) {
+      builder.setVertex(v, corners[v][0], corners[v][1]);
+    }
+    VertexOrder order = VertexOrder.compute(builder.build(), VertexOrder.Strategy.HILBERT);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], order.toExternal(i), "vertex at position " + i);
+    }
+  }
+
+  @Test
+  void hilbertOrderVisitsQuadrantsOneAfterAnother() {
+    // A 64 x 64 grid: every quarter of the curve covers one quadrant, so
+    // each quadrant's vertices must be consecutive
+    int side = 64;
+    GraphBuilder builder = new GraphBuilder(side * side, 0);
+    for (int x = 0; x < side; x++) {
+      for (int y = 0; y < side; y++) {
+        builder.setVertex(x * side + y, x, y);
+      }
+    }
+    VertexOrder order = VertexOrder.compute(builder.build(), VertexOrder.Strategy.HILBERT);
+    int quarter = side * side / 4;
+    int[] quadrantOrder = { 0, 1, 3, 2 }; // Quadrant number 2 * (x half) + (y half)
+    for (int i = 0; i < side * side; i++) {
+      int v = order.toExternal(i);
+      int quadrant = 2 * (v / side >= side / 2 ? 1 : 0) + (v % side >= side / 2 ? 1 : 0);
+      assertEquals(quadrantOrder[i / quarter], quadrant, "quadrant of vertex at position " + i);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package university.dijkstra.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.algorithm.DeltaStepping;
+import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.ConnectedComponents;
+import university.dijkstra.model.Graph;
+
+/**
+ * Full shortest path trees from random sources, by delta-stepping on a pool
+ * of {@code threads} threads. {@code threads = 0} runs the sequential
+ * {@link Dijkstra} instead, as the baseline for the speed-up.
+ *
+ * The sources are in the largest component. Before a trial, the distances
+ * of one tree are checked against Dijkstra's. The statistics of the last
+ * search are printed when the trial ends. Set {@code graphFile} to run on a
+ * real graph instead of the generated one, and {@code delta} to something
+ * other than 0 to override {@link DeltaStepping#suggestDelta}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DeltaSteppingBenchmark {
+  private static final int NUM_SOURCES = 8;
+
+  /** Side length of the grid graph, if no graph file is given. */
+  @Param({ "1000" })
+  public int size;
+
+  /** A graph file to load instead of generating one. */
+  @Param({ "" })
+  public String graphFile;
+
+  @Param({ "0", "1", "2", "4", "8" })
+  public int threads;
+
+  @Param({ "0" })
+  public double delta;
+
+  private Graph graph;
+  private ForkJoinPool pool;
+  private DeltaStepping deltaStepping;
+  private Dijkstra dijkstra;
+  private final int[] sources = new int[NUM_SOURCES];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    graph = graphFile.isEmpty() ? SyntheticGraphGenerator.roadNetwork(size, size, 42)
+        : DataProccessor.loadGraph(graphFile);
+    ConnectedComponents components = graph.getComponents();
+    Random random = new Random(7);
+    for (int i = 0; i < NUM_SOURCES; i++) {
+      int source;
+      do {
+        source = random.nextInt(graph.getNumVertices());
+      } while (components.getComponent(source) != components.getLargestComponent());
+      sources[i] = source;
+    }
+
+    dijkstra = new Dijkstra(graph.getNumVertices());
+    if (threads > 0) {
+      pool = new ForkJoinPool(threads);
+      deltaStepping = new DeltaStepping(graph.getNumVertices(),
+          delta > 0 ? delta : DeltaStepping.suggestDelta(graph), pool);
+      deltaStepping.setStatisticsEnabled(true);
+      checkDistances();
+    }
+  }
+
+  @Benchmark
+  public double shortestPathTree() {
+    int source = sources[next];
+    next = (next + 1) % NUM_SOURCES;
+    if (deltaStepping == null) {
+      dijkstra.findShortestPathTree(graph, source);
+      return dijkstra.getDistance(sources[next]);
+    }
+    deltaStepping.findShortestPathTree(graph, source);
+    return deltaStepping.getDistance(sources[next]);
+  }
+
+  @TearDown(Level.Trial)
+  public void shutDown() {
+    if (pool != null) {
+      System.out.printf("%n%d threads: %s%n", threads, deltaStepping.getLastStatistics());
+      pool.shutdown();
+    }
+  }
+
+  private void checkDistances() {
+    dijkstra.findShortestPathTree(graph, sources[0]);
+    deltaStepping.findShortestPathTree(graph, sources[0]);
+    for (int v = 0; v < graph.getNumVertices(); v++) {
+      if (deltaStepping.getDistance(v) != dijkstra.getDistance(v)) {
+        throw new IllegalStateException("Delta-stepping gives " + deltaStepping.getDistance(v) + " for vertex "
+            + v + ", Dijkstra " + dijkstra.getDistance(v));
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package university.dijkstra.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import university.dijkstra.data_structures.MinHeap;
+
+/**
+ * {@link MinHeap} inserts and dequeues. Each call handles all {@code size}
+ * keys, so the time per operation is the score divided by the size.
+ *
+ * {@code insertThenDequeue} fills an empty heap and empties it again.
+ * {@code hold} keeps the heap at its size and replaces the minimum by a
+ * slightly larger key, the way a Dijkstra search uses its queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeapBenchmark {
+  @Param({ "1000", "100000" })
+  public int size;
+
+  private Entry[] entries;
+  private double[] increments;
+
+  static final class Entry implements Comparable<Entry> {
+    final double key;
+
+    Entry(double key) {
+      this.key = key;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      return Double.compare(key, other.key);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createKeys() {
+    Random random = new Random(42);
+    entries = new Entry[size];
+    increments = new double[size];
+    for (int i = 0; i < size; i++) {
+      entries[i] = new Entry(random.nextDouble() * size);
+      increments[i] = random.nextDouble() * 10;
+    }
+  }
+
+  /**
+   * One insert and one dequeue per element.
+   */
+  @Benchmark
+  public void insertThenDequeue(Blackhole blackhole) {
+    MinHeap<Entry> heap = new MinHeap<>();
+    for (Entry entry : entries) {
+      heap.insert(entry);
+    }
+    while (!heap.isEmpty()) {
+      blackhole.consume(heap.dequeue());
+    }
+  }
+
+  /**
+   * Fills the heap, then does one dequeue and one insert per element.
+   */
+  @Benchmark
+  public void hold(Blackhole blackhole) {
+    MinHeap<Entry> heap = new MinHeap<>(size);
+    for (Entry entry : entries) {
+      heap.insert(entry);
+    }
+    for (double increment : increments) {
+      Entry minimum = heap.dequeue();
+      heap.insert(new Entry(minimum.key + increment));
+    }
+    blackhole.consume(heap.peek());
+  }
+}
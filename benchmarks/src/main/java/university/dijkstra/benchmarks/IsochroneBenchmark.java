@@ -0,0 +1,97 @@
+package university.dijkstra.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.algorithm.Isochrone;
+import university.dijkstra.algorithm.ReachableSet;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+
+/**
+ * Service areas around random sources: the search for the vertices within
+ * {@code maxDistance}, and the convex and radial hulls drawn around them.
+ *
+ * The areas for the hull benchmarks are searched once per trial, so those
+ * time only the hulls. Every call takes the next of {@code NUM_SOURCES}
+ * sources. Set {@code graphFile} to run on a real graph instead of the
+ * generated one; {@code maxDistance} is in the graph's weight units.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsochroneBenchmark {
+  private static final int NUM_SOURCES = 64;
+
+  /** Side length of the grid graph, if no graph file is given. */
+  @Param({ "1000" })
+  public int size;
+
+  /** A graph file to load instead of generating one. */
+  @Param({ "" })
+  public String graphFile;
+
+  @Param({ "2000", "10000" })
+  public double maxDistance;
+
+  @Param({ "64" })
+  public int numSectors;
+
+  private Graph graph;
+  private Dijkstra dijkstra;
+  private final int[] sources = new int[NUM_SOURCES];
+  private final ReachableSet[] areas = new ReachableSet[NUM_SOURCES];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    graph = graphFile.isEmpty() ? SyntheticGraphGenerator.roadNetwork(size, size, 42)
+        : DataProccessor.loadGraph(graphFile);
+    dijkstra = new Dijkstra(graph.getNumVertices());
+    Random random = new Random(42);
+    for (int i = 0; i < NUM_SOURCES; i++) {
+      sources[i] = random.nextInt(graph.getNumVertices());
+      areas[i] = dijkstra.findWithinDistance(graph, sources[i], maxDistance);
+    }
+  }
+
+  @Benchmark
+  public ReachableSet search() {
+    int i = advance();
+    return dijkstra.findWithinDistance(graph, sources[i], maxDistance);
+  }
+
+  @Benchmark
+  public int[] convexHull() {
+    return Isochrone.convexHull(graph, areas[advance()]);
+  }
+
+  @Benchmark
+  public int[] radialHull() {
+    return Isochrone.radialHull(graph, areas[advance()], numSectors);
+  }
+
+  private int advance() {
+    int i = next;
+    next = (next + 1) % NUM_SOURCES;
+    return i;
+  }
+}
@@ -0,0 +1,73 @@
+package university.dijkstra.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.data_structures.List;
+
+/**
+ * Building and walking the linked {@link List} that paths are returned in,
+ * next to an int array of the same values as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+  @Param({ "1000", "100000" })
+  public int size;
+
+  private List<Integer> list;
+  private int[] array;
+
+  @Setup(Level.Trial)
+  public void fill() {
+    list = new List<>();
+    array = new int[size];
+    for (int i = 0; i < size; i++) {
+      list.add(i);
+      array[i] = i;
+    }
+  }
+
+  @Benchmark
+  public List<Integer> build() {
+    List<Integer> built = new List<>();
+    for (int i = 0; i < size; i++) {
+      built.add(i);
+    }
+    return built;
+  }
+
+  @Benchmark
+  public long iterate() {
+    long sum = 0;
+    for (List.Node<Integer> node = list.getHead(); node != null; node = node.getNext()) {
+      sum += node.getData();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long iterateArray() {
+    long sum = 0;
+    for (int value : array) {
+      sum += value;
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,74 @@
+package university.dijkstra.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.io.BinaryGraphFile;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.io.ParallelGraphParser;
+import university.dijkstra.model.Graph;
+
+/**
+ * Loading a synthetic graph with the line-by-line text parser, the parallel
+ * text parser and from the binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+  /** Side length of the grid graph. */
+  @Param({ "300", "1000" })
+  public int size;
+
+  private Path textFile;
+  private Path binaryFile;
+
+  @Setup(Level.Trial)
+  public void writeFiles() throws IOException {
+    Graph graph = SyntheticGraphGenerator.roadNetwork(size, size, 42);
+    textFile = Files.createTempFile("graph", ".txt");
+    binaryFile = Files.createTempFile("graph", ".bin");
+    SyntheticGraphGenerator.writeText(graph, textFile.toString());
+    BinaryGraphFile.write(graph, binaryFile.toString());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    Files.deleteIfExists(textFile);
+    Files.deleteIfExists(binaryFile);
+  }
+
+  @Benchmark
+  public Graph parseText() throws IOException {
+    return DataProccessor.parseGraph(textFile.toString());
+  }
+
+  @Benchmark
+  public Graph parseTextParallel() throws IOException {
+    return new ParallelGraphParser().parse(textFile.toString());
+  }
+
+  @Benchmark
+  public Graph readBinary() throws IOException {
+    return BinaryGraphFile.read(binaryFile.toString());
+  }
+}
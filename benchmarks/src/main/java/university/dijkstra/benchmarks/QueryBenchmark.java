@@ -0,0 +1,134 @@
+package university.dijkstra.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.algorithm.BidirectionalDijkstra;
+import university.dijkstra.algorithm.ContractionHierarchyBuilder;
+import university.dijkstra.algorithm.ContractionHierarchyQuery;
+import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.algorithm.ShortestPathEngine;
+import university.dijkstra.model.Graph;
+
+/**
+ * Point-to-point queries on a synthetic road network, by engine and by how
+ * far the destination is from the source.
+ *
+ * Distance is measured as Dijkstra rank: a short query's destination is the
+ * vertex a plain Dijkstra search settles after 1% of the vertices reachable
+ * from the source, a medium one after 10% and a long one after 90%. Every
+ * call answers the next of {@code NUM_QUERIES} such pairs, so no single pair
+ * dominates. Preprocessing, such as building the contraction hierarchy, is
+ * done once per trial and not timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+  private static final int NUM_QUERIES = 64;
+
+  public enum Distance {
+    SHORT(0.01), MEDIUM(0.1), LONG(0.9);
+
+    final double rankFraction;
+
+    Distance(double rankFraction) {
+      this.rankFraction = rankFraction;
+    }
+  }
+
+  /** Side length of the grid graph. */
+  @Param({ "300" })
+  public int size;
+
+  @Param({ "SHORT", "MEDIUM", "LONG" })
+  public Distance distance;
+
+  @Param({ "dijkstra", "astar", "bidirectional", "ch" })
+  public String engineName;
+
+  private Graph graph;
+  private ShortestPathEngine engine;
+  private final int[] sources = new int[NUM_QUERIES];
+  private final int[] destinations = new int[NUM_QUERIES];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    graph = SyntheticGraphGenerator.roadNetwork(size, size, 42);
+    pickQueries();
+    engine = createEngine();
+  }
+
+  @Benchmark
+  public double query() {
+    int i = next;
+    next = (next + 1) % NUM_QUERIES;
+    engine.findShortestPath(graph, sources[i], destinations[i]);
+    return engine.getDistance(destinations[i]);
+  }
+
+  private void pickQueries() {
+    Random random = new Random(7);
+    Dijkstra dijkstra = new Dijkstra(graph.getNumVertices());
+    int[] reached = new int[graph.getNumVertices()];
+    double[] distances = new double[graph.getNumVertices()];
+    for (int q = 0; q < NUM_QUERIES; q++) {
+      int source = random.nextInt(graph.getNumVertices());
+      dijkstra.findShortestPathTree(graph, source);
+
+      // Order the reachable vertices the way the search settled them
+      int count = 0;
+      for (int v = 0; v < graph.getNumVertices(); v++) {
+        if (dijkstra.getDistance(v) != Double.MAX_VALUE) {
+          reached[count] = v;
+          distances[count] = dijkstra.getDistance(v);
+          count++;
+        }
+      }
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+
+      int rank = Math.min(count - 1, (int) (distance.rankFraction * count));
+      sources[q] = source;
+      destinations[q] = reached[order[rank]];
+    }
+  }
+
+  private ShortestPathEngine createEngine() {
+    switch (engineName) {
+      case "dijkstra":
+        return new Dijkstra(graph.getNumVertices());
+      case "astar":
+        Dijkstra aStar = new Dijkstra(graph.getNumVertices());
+        aStar.setAStar(true);
+        return aStar;
+      case "bidirectional":
+        return new BidirectionalDijkstra(graph.getNumVertices());
+      case "ch":
+        return new ContractionHierarchyQuery(new ContractionHierarchyBuilder().build(graph));
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + engineName);
+    }
+  }
+}
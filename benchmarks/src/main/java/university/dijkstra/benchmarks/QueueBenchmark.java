@@ -0,0 +1,200 @@
+package university.dijkstra.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.algorithm.QueueType;
+import university.dijkstra.data_structures.List;
+import university.dijkstra.data_structures.MinHeap;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.ConnectedComponents;
+import university.dijkstra.model.Graph;
+
+/**
+ * Dijkstra queries between random vertices, by priority queue.
+ *
+ * {@code LAZY_MIN_HEAP} is the original query loop, kept here as the
+ * baseline: a new node per relaxation in a generic {@link MinHeap}, stale
+ * entries skipped when popped, and a reset that walks the list of vertices
+ * the previous query touched. The other queues are the {@link QueueType}s
+ * of {@link Dijkstra}, each of which keeps a vertex queued at most once.
+ *
+ * The source and destination of every query are in the same component, so
+ * no query is answered without a search. The average peak queue size of
+ * each queue is printed when its trial ends. Set {@code graphFile} to run on
+ * a real graph instead of the generated one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QueueBenchmark {
+  private static final int NUM_QUERIES = 64;
+
+  /** Side length of the grid graph, if no graph file is given. */
+  @Param({ "300" })
+  public int size;
+
+  /** A graph file to load instead of generating one. */
+  @Param({ "" })
+  public String graphFile;
+
+  @Param({ "LAZY_MIN_HEAP", "BINARY_HEAP", "FOUR_ARY_HEAP", "PAIRING_HEAP", "RADIX_HEAP", "DIAL" })
+  public String queue;
+
+  private Graph graph;
+  private LazyHeapSearch lazySearch;
+  private Dijkstra dijkstra;
+  private final int[] sources = new int[NUM_QUERIES];
+  private final int[] destinations = new int[NUM_QUERIES];
+  private int next;
+  private long peakSizes;
+  private long queries;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    graph = graphFile.isEmpty() ? SyntheticGraphGenerator.roadNetwork(size, size, 42)
+        : DataProccessor.loadGraph(graphFile);
+    if (queue.equals("LAZY_MIN_HEAP")) {
+      lazySearch = new LazyHeapSearch(graph.getNumVertices());
+    } else {
+      dijkstra = new Dijkstra(graph.getNumVertices(), QueueType.fromName(queue).create(graph));
+    }
+
+    ConnectedComponents components = graph.getComponents();
+    Random random = new Random(7);
+    for (int q = 0; q < NUM_QUERIES; q++) {
+      int source;
+      int destination;
+      do {
+        source = random.nextInt(graph.getNumVertices());
+        destination = random.nextInt(graph.getNumVertices());
+      } while (!components.isConnected(source, destination));
+      sources[q] = source;
+      destinations[q] = destination;
+    }
+  }
+
+  @Benchmark
+  public double query() {
+    int i = next;
+    next = (next + 1) % NUM_QUERIES;
+    queries++;
+    if (lazySearch != null) {
+      lazySearch.findShortestPath(graph, sources[i], destinations[i]);
+      peakSizes += lazySearch.peakSize;
+      return lazySearch.distances[destinations[i]];
+    }
+    dijkstra.findShortestPath(graph, sources[i], destinations[i]);
+    peakSizes += dijkstra.getPeakQueueSize();
+    return dijkstra.getDistance(destinations[i]);
+  }
+
+  @TearDown(Level.Trial)
+  public void reportPeakSize() {
+    System.out.printf("%n%s: average peak queue size %d%n", queue, peakSizes / Math.max(1, queries));
+  }
+
+  /**
+   * The query loop before the indexed heaps, unchanged apart from counting
+   * the peak heap size.
+   */
+  static final class LazyHeapSearch {
+    final double[] distances;
+    final int[] previous;
+    final boolean[] known;
+    final List<Integer> visitedVertices = new List<>();
+    int peakSize;
+
+    static final class QueueNode implements Comparable<QueueNode> {
+      final int vertexId;
+      final double distance;
+
+      QueueNode(int vertexId, double distance) {
+        this.vertexId = vertexId;
+        this.distance = distance;
+      }
+
+      @Override
+      public int compareTo(QueueNode other) {
+        return Double.compare(distance, other.distance);
+      }
+    }
+
+    LazyHeapSearch(int numVertices) {
+      distances = new double[numVertices];
+      previous = new int[numVertices];
+      known = new boolean[numVertices];
+      for (int i = 0; i < numVertices; i++) {
+        distances[i] = Double.MAX_VALUE;
+        previous[i] = -1;
+      }
+    }
+
+    void findShortestPath(Graph graph, int source, int destination) {
+      MinHeap<QueueNode> pq = new MinHeap<QueueNode>();
+      resetVisitedVertices();
+
+      distances[source] = 0;
+      visitedVertices.add(source);
+      pq.insert(new QueueNode(source, 0));
+      peakSize = 1;
+
+      while (!pq.isEmpty()) {
+        int u = pq.dequeue().vertexId;
+        if (known[u]) {
+          continue;
+        }
+        known[u] = true;
+        if (u == destination) {
+          break;
+        }
+
+        int end = graph.getEdgeEnd(u);
+        for (int e = graph.getEdgeStart(u); e < end; e++) {
+          int v = graph.getTarget(e);
+          if (!known[v]) {
+            double newDistance = distances[u] + graph.getWeight(e);
+            if (newDistance < distances[v]) {
+              distances[v] = newDistance;
+              previous[v] = u;
+              pq.insert(new QueueNode(v, newDistance));
+              visitedVertices.add(v);
+              peakSize = Math.max(peakSize, pq.getSize());
+            }
+          }
+        }
+      }
+    }
+
+    private void resetVisitedVertices() {
+      List.Node<Integer> current = visitedVertices.getHead();
+      while (current != null) {
+        int vertexId = current.getData();
+        distances[vertexId] = Double.MAX_VALUE;
+        previous[vertexId] = -1;
+        known[vertexId] = false;
+        current = current.getNext();
+      }
+      visitedVertices.clear();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package university.dijkstra.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import university.dijkstra.algorithm.Dijkstra;
+import university.dijkstra.algorithm.ReorderedEngine;
+import university.dijkstra.algorithm.ShortestPathEngine;
+import university.dijkstra.io.DataProccessor;
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.VertexOrder;
+
+/**
+ * Dijkstra queries between random vertices, by vertex order.
+ *
+ * The generated graph numbers its vertices row by row, which is already
+ * local, so its ids are shuffled first to look like the arbitrary ids of a
+ * real input file. Set {@code graphFile} to run on a real graph, such as the
+ * USA one, as it is. Run with {@code -prof perfnorm} on Linux to see the
+ * cache misses per query next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReorderingBenchmark {
+  private static final int NUM_QUERIES = 64;
+
+  /** Side length of the grid graph, if no graph file is given. */
+  @Param({ "1000" })
+  public int size;
+
+  /** A graph file to load instead of generating one. */
+  @Param({ "" })
+  public String graphFile;
+
+  @Param({ "none", "hilbert", "bfs", "rcm" })
+  public String order;
+
+  private Graph graph;
+  private ShortestPathEngine engine;
+  private final int[] sources = new int[NUM_QUERIES];
+  private final int[] destinations = new int[NUM_QUERIES];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    graph = graphFile.isEmpty() ? shuffle(SyntheticGraphGenerator.roadNetwork(size, size, 42))
+        : DataProccessor.loadGraph(graphFile);
+    if (order.equals("none")) {
+      engine = new Dijkstra(graph.getNumVertices());
+    } else {
+      VertexOrder vertexOrder = VertexOrder.compute(graph, VertexOrder.Strategy.fromName(order));
+      engine = new ReorderedEngine(graph, vertexOrder, internalGraph -> new Dijkstra(internalGraph.getNumVertices()));
+    }
+
+    Random random = new Random(7);
+    for (int q = 0; q < NUM_QUERIES; q++) {
+      sources[q] = random.nextInt(graph.getNumVertices());
+      destinations[q] = random.nextInt(graph.getNumVertices());
+    }
+  }
+
+  @Benchmark
+  public double query() {
+    int i = next;
+    next = (next + 1) % NUM_QUERIES;
+    engine.findShortestPath(graph, sources[i], destinations[i]);
+    return engine.getDistance(destinations[i]);
+  }
+
+  private static Graph shuffle(Graph graph) {
+    int[] ids = new int[graph.getNumVertices()];
+    for (int v = 0; v < ids.length; v++) {
+      ids[v] = v;
+    }
+    Random random = new Random(11);
+    for (int i = ids.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = ids[i];
+      ids[i] = ids[j];
+      ids[j] = swap;
+    }
+    return new VertexOrder(ids).apply(graph);
+  }
+}
@@ -0,0 +1,126 @@
+package university.dijkstra.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import university.dijkstra.model.Graph;
+import university.dijkstra.model.GraphBuilder;
+
+/**
+ * Generates road-like graphs, so the benchmarks do not need the USA dataset.
+ *
+ * The vertices form a grid with a spacing of 100, every one moved by up to
+ * 30 in each direction so that no two paths have exactly the same length.
+ * Every {@code ARTERIAL_SPACING}-th row and column is a complete arterial
+ * road. The streets between them lose some of their grid edges and gain a
+ * few diagonals, like the blocks of a city. The result is connected apart
+ * from the odd vertex that lost all its streets, and has the low, almost
+ * constant degree of a road network.
+ *
+ * Usage: {@code SyntheticGraphGenerator <width> <height> <output> [seed]}
+ * writes the graph in the text format.
+ */
+public class SyntheticGraphGenerator {
+  private static final int SPACING = 100;
+  private static final int JITTER = 30;
+  private static final int ARTERIAL_SPACING = 8;
+  private static final double STREET_PROBABILITY = 0.8;
+  private static final double DIAGONAL_PROBABILITY = 0.05;
+
+  /**
+   * Builds a graph of {@code width * height} vertices; the vertex in column
+   * x and row y has the id {@code y * width + x}.
+   *
+   * @throws IllegalArgumentException if a dimension is not positive
+   */
+  public static Graph roadNetwork(int width, int height, long seed) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Width and height must be positive");
+    }
+    Random random = new Random(seed);
+    GraphBuilder builder = new GraphBuilder(width * height, 2 * width * height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        builder.setVertex(y * width + x, x * SPACING + jitter(random), y * SPACING + jitter(random));
+      }
+    }
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int v = y * width + x;
+        boolean arterialRow = y % ARTERIAL_SPACING == 0;
+        boolean arterialColumn = x % ARTERIAL_SPACING == 0;
+        if (x + 1 < width && (arterialRow || random.nextDouble() < STREET_PROBABILITY)) {
+          builder.addEdge(v, v + 1);
+        }
+        if (y + 1 < height && (arterialColumn || random.nextDouble() < STREET_PROBABILITY)) {
+          builder.addEdge(v, v + width);
+        }
+        if (x + 1 < width && y + 1 < height && random.nextDouble() < DIAGONAL_PROBABILITY) {
+          builder.addEdge(v, v + width + 1);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private static int jitter(Random random) {
+    return random.nextInt(2 * JITTER + 1) - JITTER;
+  }
+
+  /**
+   * Writes a graph in the text format read by
+   * {@link university.dijkstra.io.DataProccessor}.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeText(Graph graph, String filename) throws IOException {
+    int numVertices = graph.getNumVertices();
+    // Each edge is stored as two arcs, write it once
+    int numEdges = 0;
+    for (int v = 0; v < numVertices; v++) {
+      for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+        if (graph.getTarget(e) > v) {
+          numEdges++;
+        }
+      }
+    }
+
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+      writer.write(numVertices + " " + numEdges + "\n");
+      for (int v = 0; v < numVertices; v++) {
+        writer.write(v + " " + graph.getX(v) + " " + graph.getY(v) + "\n");
+      }
+      writer.write("\n");
+      for (int v = 0; v < numVertices; v++) {
+        for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+          if (graph.getTarget(e) > v) {
+            writer.write(v + " " + graph.getTarget(e) + "\n");
+          }
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println("Usage: SyntheticGraphGenerator <width> <height> <output> [seed]");
+      System.exit(2);
+    }
+
+    try {
+      int width = Integer.parseInt(args[0]);
+      int height = Integer.parseInt(args[1]);
+      long seed = args.length == 4 ? Long.parseLong(args[3]) : 42;
+      Graph graph = roadNetwork(width, height, seed);
+      writeText(graph, args[2]);
+      System.out.println("Wrote " + graph.getNumVertices() + " vertices and " + graph.getNumArcs() / 2
+          + " edges to " + args[2]);
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}